@@ -0,0 +1,9 @@
+package org.dotspace.oofp.enumeration.stepcontext;
+
+/**
+ * attribute 超出 AttributeBudget 時的處理方式：值一律不寫入；
+ * VIOLATE 只加入 violation，ABORT 另外中止流程。
+ */
+public enum BudgetOverflowAction {
+    VIOLATE, ABORT
+}
@@ -0,0 +1,8 @@
+package org.dotspace.oofp.enumeration.stepcontext;
+
+/**
+ * 例外轉為 violation 時是否附上 stack trace：不附、只附前幾個 frame、或完整內容。
+ */
+public enum StackTracePolicy {
+    NONE, TOP_FRAMES, FULL
+}
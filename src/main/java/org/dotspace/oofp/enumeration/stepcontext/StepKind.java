@@ -0,0 +1,32 @@
+package org.dotspace.oofp.enumeration.stepcontext;
+
+/**
+ * Step 組裝樹的節點種類，對應 BehaviorStep 的各個組合子，供 BehaviorPipeline.explain() 呈現。
+ */
+public enum StepKind {
+    /** 不可再拆解的 Step */
+    STEP,
+    /** chain / andThenStep */
+    CHAIN,
+    /** when */
+    GUARD,
+    /** requirePayload */
+    REQUIRE,
+    /** andThenMapper */
+    MAP,
+    /** peek */
+    PEEK,
+    /** parallel */
+    PARALLEL,
+    /** memoize */
+    MEMOIZED,
+    /** withTimeout */
+    TIME_LIMITED,
+    /** declare */
+    DECLARED;
+
+    /** when 與 requirePayload 會擋下部分請求，視為守衛 */
+    public boolean isGuard() {
+        return this == GUARD || this == REQUIRE;
+    }
+}
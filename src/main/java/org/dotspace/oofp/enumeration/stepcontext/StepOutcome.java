@@ -0,0 +1,13 @@
+package org.dotspace.oofp.enumeration.stepcontext;
+
+import org.dotspace.oofp.model.dto.behaviorstep.StepContext;
+import org.dotspace.oofp.model.dto.behaviorstep.Violations;
+import org.dotspace.oofp.utils.functional.monad.validation.Validation;
+
+public enum StepOutcome {
+    VALID, INVALID, ABORTED;
+
+    public static <T> StepOutcome of(Validation<Violations, StepContext<T>> result) {
+        return result.fold(violations -> INVALID, context -> context.isAborted() ? ABORTED : VALID);
+    }
+}
@@ -0,0 +1,83 @@
+package org.dotspace.oofp.model.dto.behaviorstep;
+
+import org.dotspace.oofp.enumeration.stepcontext.BudgetOverflowAction;
+import org.dotspace.oofp.utils.dsl.pipeline.metrics.AttributeMemoryStats;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Singular;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * StepContext attributes 的記憶體上限：以 AttributeSizes 估算每次 withAttribute 寫入值的大小，
+ * 超過單一 attribute 或整個 context 的上限時不寫入，改依 overflowAction 加入 violation 或中止流程。
+ * <pre>
+ * - 上限 &lt;= 0 表示不限制
+ * - attributeLimits 依名稱覆寫 maxAttributeBytes
+ * - stats 可由多個 context 共用，用於觀察實際大小分佈
+ * </pre>
+ */
+@Getter
+@Builder(setterPrefix = "with")
+public final class AttributeBudget {
+
+    public static final String STEP_CONTEXT_ATTRIBUTE_TOO_LARGE = "step-context.attribute.too-large";
+    public static final String STEP_CONTEXT_ATTRIBUTES_TOO_LARGE = "step-context.attributes.too-large";
+
+    private final long maxContextBytes;
+
+    private final long maxAttributeBytes;
+
+    @Singular
+    private final Map<String, Long> attributeLimits;
+
+    @Builder.Default
+    private final BudgetOverflowAction overflowAction = BudgetOverflowAction.VIOLATE;
+
+    @Builder.Default
+    private final AttributeMemoryStats stats = new AttributeMemoryStats();
+
+    public long limitOf(String name) {
+        return attributeLimits.getOrDefault(name, maxAttributeBytes);
+    }
+
+    /** 檢查寫入後是否超出上限，超出時回傳 violation 並記錄；未超出時回傳 null */
+    Violations check(String name, long bytes, long contextBytes) {
+        long limit = limitOf(name);
+        if (limit > 0 && bytes > limit) {
+            stats.recordRejected(name, bytes);
+            return Violations.violate(STEP_CONTEXT_ATTRIBUTE_TOO_LARGE,
+                    "attribute too large: %s estimated=%d limit=%d", name, bytes, limit);
+        }
+        if (maxContextBytes > 0 && contextBytes > maxContextBytes) {
+            stats.recordRejected(name, bytes);
+            return Violations.violate(STEP_CONTEXT_ATTRIBUTES_TOO_LARGE,
+                    "attributes too large after writing %s: estimated=%d limit=%d",
+                    name, contextBytes, maxContextBytes);
+        }
+        stats.recordAccepted(name, bytes, contextBytes);
+        return null;
+    }
+
+    /** 目前 context 各 attribute 的估計大小（不可變，寫入時替換） */
+    record Usage(Map<String, Long> sizes, long total) {
+
+        static final Usage EMPTY = new Usage(Map.of(), 0L);
+
+        long sizeOf(String name) {
+            return sizes.getOrDefault(name, 0L);
+        }
+
+        Usage with(String name, long bytes) {
+            Map<String, Long> updated = new HashMap<>(sizes);
+            if (bytes > 0) {
+                updated.put(name, bytes);
+            } else {
+                updated.remove(name);
+            }
+            return new Usage(Map.copyOf(updated), total - sizeOf(name) + bytes);
+        }
+    }
+}
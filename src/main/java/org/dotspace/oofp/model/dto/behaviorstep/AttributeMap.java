@@ -0,0 +1,520 @@
+package org.dotspace.oofp.model.dto.behaviorstep;
+
+import lombok.NonNull;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * StepContext 的 attributes：不可變、更新時共用結構的持久化 Map。
+ * <pre>
+ * - 16 筆以內以 key / value 交錯的小陣列儲存，線性搜尋，更新只複製這個陣列
+ * - 超過 16 筆改用 HAMT（32 路 bitmap trie），更新只複製根到葉的路徑，O(log32 n)
+ * - 實例建立後不再改變，可直接交給其他執行緒，不需要防禦性複製
+ * - 已登記槽位（{@link AttributeSlots}）的 attribute 另存於槽位陣列；由 AttrKey 寫入者標記為已轉型，讀取時不需再 cast
+ * </pre>
+ * 一般 key 支援 null value（與 HashMap 相同），槽位寫入 null 視為移除；
+ * Map 的 put / remove 等修改方法一律丟出 UnsupportedOperationException。
+ */
+public final class AttributeMap extends AbstractMap<String, Object> {
+
+    static final int SMALL_LIMIT = 16;
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+
+    private static final Object NOT_FOUND = new Object();
+
+    private static final Object[] NO_SLOTS = new Object[0];
+
+    private static final AttributeMap EMPTY = new AttributeMap(new Object[0], null, 0, NO_SLOTS, 0L, 0);
+
+    /** 小陣列模式：key0, value0, key1, value1 ...；trie 模式時為 null */
+    private final Object[] small;
+
+    private final Node root;
+
+    /** 一般 key 的筆數（不含槽位） */
+    private final int size;
+
+    /** 依槽位存放的值，null 代表不存在；長度只涵蓋到目前用過的最大槽位 */
+    private final Object[] slots;
+
+    /** 第 n 個 bit 為 1：槽位 n 的值由 AttrKey 寫入，型別已確定 */
+    private final long typed;
+
+    private final int slotCount;
+
+    private AttributeMap(Object[] small, Node root, int size, Object[] slots, long typed, int slotCount) {
+        this.small = small;
+        this.root = root;
+        this.size = size;
+        this.slots = slots;
+        this.typed = typed;
+        this.slotCount = slotCount;
+    }
+
+    /** 替換一般 key 的部分，沿用目前的槽位 */
+    private AttributeMap named(Object[] small, Node root, int size) {
+        return new AttributeMap(small, root, size, slots, typed, slotCount);
+    }
+
+    public static AttributeMap empty() {
+        return EMPTY;
+    }
+
+    /** 已是 AttributeMap 者直接回傳，否則複製內容；null 視為空 */
+    public static AttributeMap copyOf(Map<String, ?> source) {
+        if (source instanceof AttributeMap attributeMap) {
+            return attributeMap;
+        }
+        return source == null ? EMPTY : EMPTY.plusAll(source);
+    }
+
+    public AttributeMap plus(@NonNull String key, Object value) {
+        int slot = AttributeSlots.slotOf(key);
+        return slot >= 0 ? plusSlot(slot, value, false) : plusNamed(key, value);
+    }
+
+    /**
+     * 寫入槽位；typed 為 true 表示 value 已是該槽位登記的型別，讀取時可直接使用。
+     * 同名的一般 key（登記前寫入者）會一併移除。
+     */
+    public AttributeMap plusSlot(int slot, Object value, boolean typed) {
+        AttributeMap base = size > 0 && containsNamed(AttributeSlots.nameOf(slot))
+                ? minusNamed(AttributeSlots.nameOf(slot))
+                : this;
+        return base.withSlot(slot, value, typed);
+    }
+
+    /** 槽位的值；不存在時為 null */
+    public Object slot(int slot) {
+        return slot < slots.length ? slots[slot] : null;
+    }
+
+    /** 槽位的值是否由 AttrKey 寫入（型別已確定） */
+    public boolean isTyped(int slot) {
+        return (typed & (1L << slot)) != 0 && slot(slot) != null;
+    }
+
+    /**
+     * 目前相對於 before 新增或值不同（equals）的 attributes，保留槽位的已轉型標記。
+     */
+    public AttributeMap writtenSince(@NonNull AttributeMap before) {
+        AttributeMap written = EMPTY;
+        for (int i = 0; i < slots.length; i++) {
+            if (slots[i] != null && !Objects.equals(slots[i], before.slot(i))) {
+                written = written.withSlot(i, slots[i], isTyped(i));
+            }
+        }
+        AttributeMap[] result = {written};
+        forEachNamed((key, value) -> {
+            if (!before.containsKey(key) || !Objects.equals(before.get(key), value)) {
+                result[0] = result[0].plusNamed(key, value);
+            }
+        });
+        return result[0];
+    }
+
+    private AttributeMap withSlot(int slot, Object value, boolean isTyped) {
+        Object current = slot(slot);
+        long bit = 1L << slot;
+        boolean typedNow = value != null && isTyped;
+        if (current == value && ((typed & bit) != 0) == typedNow) {
+            return this;
+        }
+        Object[] copy = Arrays.copyOf(slots, Math.max(slots.length, slot + 1));
+        copy[slot] = value;
+        int count = slotCount + (current == null ? 1 : 0) - (value == null ? 1 : 0);
+        long mask = typedNow ? typed | bit : typed & ~bit;
+        return new AttributeMap(small, root, size, copy, mask, count);
+    }
+
+    private AttributeMap plusNamed(String key, Object value) {
+        if (small != null) {
+            int index = indexOf(key);
+            if (index >= 0) {
+                if (small[index + 1] == value) {
+                    return this;
+                }
+                Object[] copy = small.clone();
+                copy[index + 1] = value;
+                return named(copy, null, size);
+            }
+            if (size < SMALL_LIMIT) {
+                Object[] copy = Arrays.copyOf(small, small.length + 2);
+                copy[small.length] = key;
+                copy[small.length + 1] = value;
+                return named(copy, null, size + 1);
+            }
+            return toTrie().plusNamed(key, value);
+        }
+
+        boolean[] added = new boolean[1];
+        Node updated = root.put(new Leaf(key, value, key.hashCode()), 0, added);
+        return updated == root ? this : named(null, updated, added[0] ? size + 1 : size);
+    }
+
+    /** 加入 additional 的所有內容；additional 為 AttributeMap 時保留其槽位的已轉型標記 */
+    public AttributeMap plusAll(@NonNull Map<String, ?> additional) {
+        if (additional instanceof AttributeMap other) {
+            AttributeMap[] result = {this};
+            for (int i = 0; i < other.slots.length; i++) {
+                if (other.slots[i] != null) {
+                    result[0] = result[0].plusSlot(i, other.slots[i], other.isTyped(i));
+                }
+            }
+            other.forEachNamed((key, value) -> result[0] = result[0].plus(key, value));
+            return result[0];
+        }
+
+        AttributeMap result = this;
+        for (Map.Entry<String, ?> entry : additional.entrySet()) {
+            result = result.plus(entry.getKey(), entry.getValue());
+        }
+        return result;
+    }
+
+    public AttributeMap minus(String key) {
+        if (key == null) {
+            return this;
+        }
+        int slot = AttributeSlots.slotOf(key);
+        AttributeMap result = slot >= 0 ? withSlot(slot, null, false) : this;
+        return result.containsNamed(key) ? result.minusNamed(key) : result;
+    }
+
+    private AttributeMap minusNamed(String key) {
+        if (small != null) {
+            int index = indexOf(key);
+            Object[] copy = new Object[small.length - 2];
+            System.arraycopy(small, 0, copy, 0, index);
+            System.arraycopy(small, index + 2, copy, index, small.length - index - 2);
+            return named(copy, null, size - 1);
+        }
+
+        Node updated = root.remove(key, key.hashCode(), 0);
+        if (size - 1 <= SMALL_LIMIT / 2) {
+            // 筆數夠少時退回小陣列
+            List<Object> flat = new ArrayList<>(2 * (size - 1));
+            if (updated != null) {
+                updated.forEach((k, v) -> {
+                    flat.add(k);
+                    flat.add(v);
+                });
+            }
+            return named(flat.toArray(), null, size - 1);
+        }
+        return named(null, updated, size - 1);
+    }
+
+    public AttributeMap minusAll(@NonNull Collection<String> keys) {
+        AttributeMap result = this;
+        for (String key : keys) {
+            result = result.minus(key);
+        }
+        return result;
+    }
+
+    @Override
+    public int size() {
+        return size + slotCount;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return lookup(key) != NOT_FOUND;
+    }
+
+    @Override
+    public Object get(Object key) {
+        Object value = lookup(key);
+        return value == NOT_FOUND ? null : value;
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super String, ? super Object> action) {
+        for (int i = 0; i < slots.length; i++) {
+            if (slots[i] != null) {
+                action.accept(AttributeSlots.nameOf(i), slots[i]);
+            }
+        }
+        forEachNamed(action);
+    }
+
+    private void forEachNamed(BiConsumer<? super String, ? super Object> action) {
+        if (small != null) {
+            for (int i = 0; i < small.length; i += 2) {
+                action.accept((String) small[i], small[i + 1]);
+            }
+        } else {
+            root.forEach(action);
+        }
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return new AbstractSet<>() {
+
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                List<Entry<String, Object>> entries = new ArrayList<>(size());
+                AttributeMap.this.forEach((key, value) -> entries.add(new SimpleImmutableEntry<>(key, value)));
+                return entries.iterator();
+            }
+
+            @Override
+            public int size() {
+                return AttributeMap.this.size();
+            }
+        };
+    }
+
+    private Object lookup(Object key) {
+        if (!(key instanceof String name)) {
+            return NOT_FOUND;
+        }
+        int slot = AttributeSlots.slotOf(name);
+        if (slot >= 0 && slot(slot) != null) {
+            return slots[slot];
+        }
+        return lookupNamed(name);
+    }
+
+    private boolean containsNamed(String key) {
+        return lookupNamed(key) != NOT_FOUND;
+    }
+
+    private Object lookupNamed(String name) {
+        if (small != null) {
+            int index = indexOf(name);
+            return index < 0 ? NOT_FOUND : small[index + 1];
+        }
+        return root.get(name, name.hashCode(), 0);
+    }
+
+    private int indexOf(String key) {
+        int hash = key.hashCode();
+        for (int i = 0; i < small.length; i += 2) {
+            String candidate = (String) small[i];
+            if (candidate == key || (candidate.hashCode() == hash && candidate.equals(key))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private AttributeMap toTrie() {
+        Node node = Node.EMPTY;
+        boolean[] added = new boolean[1];
+        for (int i = 0; i < small.length; i += 2) {
+            String key = (String) small[i];
+            node = node.put(new Leaf(key, small[i + 1], key.hashCode()), 0, added);
+        }
+        return named(null, node, size);
+    }
+
+    private record Leaf(String key, Object value, int hash) {
+    }
+
+    /**
+     * HAMT 節點：bitmap 標示 32 個位置中有值者，slots 依序存放 Leaf、子 Node 或 Collision。
+     */
+    private static final class Node {
+
+        static final Node EMPTY = new Node(0, new Object[0]);
+
+        final int bitmap;
+        final Object[] slots;
+
+        Node(int bitmap, Object[] slots) {
+            this.bitmap = bitmap;
+            this.slots = slots;
+        }
+
+        Object get(String key, int hash, int shift) {
+            int bit = 1 << ((hash >>> shift) & MASK);
+            if ((bitmap & bit) == 0) {
+                return NOT_FOUND;
+            }
+            Object slot = slots[Integer.bitCount(bitmap & (bit - 1))];
+            if (slot instanceof Leaf leaf) {
+                return leaf.hash == hash && leaf.key.equals(key) ? leaf.value : NOT_FOUND;
+            }
+            if (slot instanceof Collision collision) {
+                return collision.get(key, hash);
+            }
+            return ((Node) slot).get(key, hash, shift + BITS);
+        }
+
+        Node put(Leaf leaf, int shift, boolean[] added) {
+            int bit = 1 << ((leaf.hash >>> shift) & MASK);
+            int position = Integer.bitCount(bitmap & (bit - 1));
+
+            if ((bitmap & bit) == 0) {
+                Object[] copy = new Object[slots.length + 1];
+                System.arraycopy(slots, 0, copy, 0, position);
+                copy[position] = leaf;
+                System.arraycopy(slots, position, copy, position + 1, slots.length - position);
+                added[0] = true;
+                return new Node(bitmap | bit, copy);
+            }
+
+            Object slot = slots[position];
+            Object replacement;
+            if (slot instanceof Leaf existing) {
+                if (existing.hash == leaf.hash && existing.key.equals(leaf.key)) {
+                    if (existing.value == leaf.value) {
+                        return this;
+                    }
+                    replacement = leaf;
+                } else {
+                    added[0] = true;
+                    replacement = existing.hash == leaf.hash
+                            ? new Collision(leaf.hash, new Leaf[] {existing, leaf})
+                            : branch(existing, existing.hash, leaf, shift + BITS);
+                }
+            } else if (slot instanceof Collision collision) {
+                replacement = collision.hash == leaf.hash
+                        ? collision.put(leaf, added)
+                        : branch(collision, collision.hash, leaf, shift + BITS);
+                added[0] |= collision.hash != leaf.hash;
+            } else {
+                replacement = ((Node) slot).put(leaf, shift + BITS, added);
+            }
+
+            if (replacement == slot) {
+                return this;
+            }
+            Object[] copy = slots.clone();
+            copy[position] = replacement;
+            return new Node(bitmap, copy);
+        }
+
+        /** existing 與 leaf 的 hash 不同，往下建立節點直到兩者分開 */
+        private static Node branch(Object existing, int existingHash, Leaf leaf, int shift) {
+            int existingIndex = (existingHash >>> shift) & MASK;
+            int leafIndex = (leaf.hash >>> shift) & MASK;
+            if (existingIndex == leafIndex) {
+                return new Node(1 << existingIndex, new Object[] {branch(existing, existingHash, leaf, shift + BITS)});
+            }
+            Object[] pair = existingIndex < leafIndex
+                    ? new Object[] {existing, leaf}
+                    : new Object[] {leaf, existing};
+            return new Node((1 << existingIndex) | (1 << leafIndex), pair);
+        }
+
+        /** 回傳移除後的節點；節點變空時回傳 null */
+        Node remove(String key, int hash, int shift) {
+            int bit = 1 << ((hash >>> shift) & MASK);
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+            int position = Integer.bitCount(bitmap & (bit - 1));
+            Object slot = slots[position];
+
+            Object replacement;
+            if (slot instanceof Leaf leaf) {
+                if (leaf.hash != hash || !leaf.key.equals(key)) {
+                    return this;
+                }
+                replacement = null;
+            } else if (slot instanceof Collision collision) {
+                replacement = collision.remove(key);
+            } else {
+                Node child = ((Node) slot).remove(key, hash, shift + BITS);
+                // 只剩單一 Leaf 的子節點往上收合
+                replacement = child != null && child.slots.length == 1 && !(child.slots[0] instanceof Node)
+                        ? child.slots[0]
+                        : child;
+            }
+
+            if (replacement == slot) {
+                return this;
+            }
+            if (replacement != null) {
+                Object[] copy = slots.clone();
+                copy[position] = replacement;
+                return new Node(bitmap, copy);
+            }
+            if (slots.length == 1) {
+                return null;
+            }
+            Object[] copy = new Object[slots.length - 1];
+            System.arraycopy(slots, 0, copy, 0, position);
+            System.arraycopy(slots, position + 1, copy, position, slots.length - position - 1);
+            return new Node(bitmap & ~bit, copy);
+        }
+
+        void forEach(BiConsumer<? super String, ? super Object> action) {
+            for (Object slot : slots) {
+                if (slot instanceof Leaf leaf) {
+                    action.accept(leaf.key, leaf.value);
+                } else if (slot instanceof Collision collision) {
+                    for (Leaf leaf : collision.leaves) {
+                        action.accept(leaf.key, leaf.value);
+                    }
+                } else {
+                    ((Node) slot).forEach(action);
+                }
+            }
+        }
+    }
+
+    /** hash 完全相同的多個 key */
+    private record Collision(int hash, Leaf[] leaves) {
+
+        Object get(String key, int hash) {
+            if (hash != this.hash) {
+                return NOT_FOUND;
+            }
+            for (Leaf leaf : leaves) {
+                if (leaf.key.equals(key)) {
+                    return leaf.value;
+                }
+            }
+            return NOT_FOUND;
+        }
+
+        Collision put(Leaf leaf, boolean[] added) {
+            for (int i = 0; i < leaves.length; i++) {
+                if (leaves[i].key.equals(leaf.key)) {
+                    if (leaves[i].value == leaf.value) {
+                        return this;
+                    }
+                    Leaf[] copy = leaves.clone();
+                    copy[i] = leaf;
+                    return new Collision(hash, copy);
+                }
+            }
+            Leaf[] copy = Arrays.copyOf(leaves, leaves.length + 1);
+            copy[leaves.length] = leaf;
+            added[0] = true;
+            return new Collision(hash, copy);
+        }
+
+        /** 回傳移除後的 Collision；只剩一個時回傳該 Leaf */
+        Object remove(String key) {
+            List<Leaf> remaining = new ArrayList<>(leaves.length);
+            for (Leaf leaf : leaves) {
+                if (!leaf.key.equals(key)) {
+                    remaining.add(leaf);
+                }
+            }
+            if (remaining.size() == leaves.length) {
+                return this;
+            }
+            return remaining.size() == 1 ? remaining.get(0) : new Collision(hash, remaining.toArray(Leaf[]::new));
+        }
+    }
+
+}
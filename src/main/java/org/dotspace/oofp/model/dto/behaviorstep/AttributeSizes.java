@@ -0,0 +1,72 @@
+package org.dotspace.oofp.model.dto.behaviorstep;
+
+import lombok.experimental.UtilityClass;
+
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * 估算 attribute 值在 heap 上保留的大約位元組數，用於 AttributeBudget。
+ * <pre>
+ * - byte[]、字串、heap ByteBuffer 依長度計算；direct ByteBuffer 不佔 heap，只計物件本身
+ * - Collection / Map 只取樣前 SAMPLE_SIZE 個元素再依總數推估，避免大型清單每次寫入都完整走訪
+ * - 其他物件只計物件標頭（不追蹤欄位）
+ * </pre>
+ */
+@UtilityClass
+public class AttributeSizes {
+
+    static final int SAMPLE_SIZE = 32;
+
+    private static final int MAX_DEPTH = 4;
+    private static final long OBJECT_HEADER = 16L;
+    private static final long REFERENCE = 8L;
+
+    public long estimate(Object value) {
+        return estimate(value, 0);
+    }
+
+    private long estimate(Object value, int depth) {
+        if (value == null) {
+            return 0L;
+        }
+        if (value instanceof byte[] bytes) {
+            return OBJECT_HEADER + bytes.length;
+        }
+        if (value instanceof CharSequence chars) {
+            return OBJECT_HEADER * 2 + 2L * chars.length();
+        }
+        if (value instanceof ByteBuffer buffer) {
+            return OBJECT_HEADER * 3 + (buffer.isDirect() ? 0 : buffer.capacity());
+        }
+        if (value instanceof Number || value instanceof Boolean || value instanceof Character
+                || value instanceof Enum<?>) {
+            return OBJECT_HEADER;
+        }
+        if (depth >= MAX_DEPTH) {
+            return OBJECT_HEADER;
+        }
+        if (value instanceof Collection<?> collection) {
+            return OBJECT_HEADER + sampled(collection.iterator(), collection.size(), depth);
+        }
+        if (value instanceof Map<?, ?> map) {
+            return OBJECT_HEADER + sampled(map.entrySet().iterator(), map.size(), depth);
+        }
+        if (value instanceof Map.Entry<?, ?> entry) {
+            return OBJECT_HEADER + estimate(entry.getKey(), depth + 1) + estimate(entry.getValue(), depth + 1);
+        }
+        return OBJECT_HEADER;
+    }
+
+    private long sampled(Iterator<?> iterator, int size, int depth) {
+        long sampledBytes = 0L;
+        int sampled = 0;
+        while (sampled < SAMPLE_SIZE && iterator.hasNext()) {
+            sampledBytes += REFERENCE + estimate(iterator.next(), depth + 1);
+            sampled++;
+        }
+        return sampled == 0 ? 0L : sampledBytes * size / sampled;
+    }
+}
@@ -0,0 +1,55 @@
+package org.dotspace.oofp.model.dto.behaviorstep;
+
+import lombok.NonNull;
+import lombok.experimental.UtilityClass;
+
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 常用 attribute 的固定槽位登記表（AttrKey.slotted 使用）。
+ * <pre>
+ * - 登記後的 attribute 在 AttributeMap 中存放於陣列，以槽位存取，不需字串雜湊
+ * - 同名再次登記：型別相同回傳同一槽位，型別不同則不配置（回傳 -1，改走一般 Map）
+ * - 最多 {@link #CAPACITY} 個槽位，額滿後的登記一律回傳 -1
+ * </pre>
+ * 槽位在 JVM 內固定不變，不可序列化或跨程序使用。
+ */
+@UtilityClass
+public class AttributeSlots {
+
+    public static final int CAPACITY = Long.SIZE;
+
+    private final Map<String, Integer> slots = new ConcurrentHashMap<>();
+    private final AtomicReferenceArray<String> names = new AtomicReferenceArray<>(CAPACITY);
+    private final AtomicReferenceArray<Type> types = new AtomicReferenceArray<>(CAPACITY);
+
+    /** 登記 name 並回傳其槽位；無法配置時回傳 -1 */
+    public synchronized int register(@NonNull String name, @NonNull Type type) {
+        Integer existing = slots.get(name);
+        if (existing != null) {
+            return type.equals(types.get(existing)) ? existing : -1;
+        }
+        int slot = slots.size();
+        if (slot >= CAPACITY) {
+            return -1;
+        }
+        names.set(slot, name);
+        types.set(slot, type);
+        slots.put(name, slot);
+        return slot;
+    }
+
+    /** name 的槽位；未登記時回傳 -1 */
+    public int slotOf(String name) {
+        Integer slot = slots.get(name);
+        return slot == null ? -1 : slot;
+    }
+
+    public String nameOf(int slot) {
+        return names.get(slot);
+    }
+
+}
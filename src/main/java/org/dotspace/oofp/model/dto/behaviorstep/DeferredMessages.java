@@ -0,0 +1,72 @@
+package org.dotspace.oofp.model.dto.behaviorstep;
+
+import lombok.NonNull;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * 延遲產生的 violation 訊息：建立時只保存 Supplier，第一次讀取（collectMessages、associateMessage、
+ * 序列化或 log）時才組字串，之後快取。未被讀取或合併的 violation 不會產生任何字串。
+ * <p>
+ * 不可修改；Supplier 應無副作用，可能在任何執行緒被呼叫（並行首次讀取時可能被呼叫多次）。
+ * <p>
+ * Violations 合併（join）時依訊息字串去重，與 equals 一致，因此參與合併的延遲訊息會在合併時組字串。
+ */
+public final class DeferredMessages extends AbstractList<String> {
+
+    private final List<Supplier<String>> sources;
+    private final String[] rendered;
+
+    private DeferredMessages(List<Supplier<String>> sources) {
+        this.sources = sources;
+        this.rendered = new String[sources.size()];
+    }
+
+    public static DeferredMessages of(@NonNull Supplier<String> source) {
+        return new DeferredMessages(List.of(source));
+    }
+
+    public static DeferredMessages of(@NonNull List<Supplier<String>> sources) {
+        return new DeferredMessages(List.copyOf(sources));
+    }
+
+    /** 以 String.format 的樣板延遲組訊息 */
+    public static Supplier<String> format(@NonNull String template, Object... args) {
+        return new Formatted(template, args);
+    }
+
+    @Override
+    public String get(int index) {
+        String message = rendered[index];
+        if (message == null) {
+            message = String.valueOf(sources.get(index).get());
+            rendered[index] = message;
+        }
+        return message;
+    }
+
+    @Override
+    public int size() {
+        return sources.size();
+    }
+
+    /** 是否已產生過訊息字串（診斷用） */
+    public boolean isRendered(int index) {
+        return rendered[index] != null;
+    }
+
+    private record Formatted(String template, Object[] args) implements Supplier<String> {
+
+        @Override
+        public String get() {
+            return String.format(template, args);
+        }
+
+        @Override
+        public String toString() {
+            return "Formatted(" + template + ")";
+        }
+    }
+}
@@ -3,23 +3,23 @@ package org.dotspace.oofp.model.dto.behaviorstep;
 import org.dotspace.oofp.enumeration.stepcontext.ViolationSeverity;
 import org.dotspace.oofp.utils.builder.GeneralBuilders;
 import org.dotspace.oofp.utils.builder.operation.WriteOperations;
-import org.dotspace.oofp.utils.functional.Casters;
-import org.dotspace.oofp.utils.functional.monad.Maybe;
 import jakarta.validation.ConstraintViolation;
-import lombok.EqualsAndHashCode;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
-import lombok.ToString;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.util.CollectionUtils;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
-import java.util.function.Function;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+import java.util.function.Supplier;
 
-@ToString
-@EqualsAndHashCode
+/**
+ * 單一 violation。常用的 options（severe、warning、severity）存放在型別化欄位與旗標位元中，
+ * 其餘 options 的 Map 在第一次寫入時才配置；{@link #getOptions()} 仍回傳可修改的 Map 檢視，
+ * 透過它寫入的常用 key 會同步到型別化欄位。
+ */
 @Getter
 public class GeneralViolation {
 
@@ -28,17 +28,28 @@ public class GeneralViolation {
     public static final String SEVERITY = "severity";
     public static final String ORDER_CONTENT = " (%d) %s";
 
+    private static final int SEVERE_SET = 1;
+    private static final int SEVERE_ON = 1 << 1;
+    private static final int WARNING_SET = 1 << 2;
+    private static final int WARNING_ON = 1 << 3;
+
     @Setter
     private String validationName;
 
     @Setter
-    @Getter
     private String stepName;
 
     @Setter
     private List<String> messages;
 
-    private final Map<String, Object> options = new HashMap<>();
+    @Getter(AccessLevel.NONE)
+    private ViolationSeverity severity;
+
+    @Getter(AccessLevel.NONE)
+    private byte flags;
+
+    @Getter(AccessLevel.NONE)
+    private Map<String, Object> extraOptions;
 
     public static GeneralViolation violate(String name, String msg) {
         return GeneralBuilders.supply(GeneralViolation::new)
@@ -47,22 +58,37 @@ public class GeneralViolation {
                 .build();
     }
 
+    /** 訊息延遲到第一次讀取時才產生，見 {@link DeferredMessages} */
+    public static GeneralViolation violate(String name, Supplier<String> msg) {
+        return GeneralBuilders.supply(GeneralViolation::new)
+                .with(WriteOperations.set(GeneralViolation::setValidationName, name))
+                .with(WriteOperations.set(GeneralViolation::setMessages, DeferredMessages.of(msg)))
+                .build();
+    }
+
     public boolean isSevere() {
-        return isBooleanOption(SEVERE);
+        return (flags & SEVERE_ON) != 0;
     }
 
     public boolean isWarning() {
-        return isBooleanOption(WARNING);
+        return (flags & WARNING_ON) != 0;
     }
 
-    private <T> Optional<T> maybeOptions(String name, Function<Object, T> mapper) {
-        return Optional.ofNullable(options.get(name))
-                .map(mapper);
+    public void setSevere(boolean severe) {
+        flags = (byte) (flags | SEVERE_SET);
+        flags = (byte) (severe ? flags | SEVERE_ON : flags & ~SEVERE_ON);
+        removeExtraOption(SEVERE);
     }
 
-    private boolean isBooleanOption(String name) {
-        return maybeOptions(name, Casters.<Boolean>cast())
-                .orElse(false);
+    public void setWarning(boolean warning) {
+        flags = (byte) (flags | WARNING_SET);
+        flags = (byte) (warning ? flags | WARNING_ON : flags & ~WARNING_ON);
+        removeExtraOption(WARNING);
+    }
+
+    public void setSeverity(ViolationSeverity severity) {
+        this.severity = severity;
+        removeExtraOption(SEVERITY);
     }
 
     /**
@@ -72,8 +98,227 @@ public class GeneralViolation {
      * @return ViolationSeverity
      */
     public ViolationSeverity getSeverity() {
-        return maybeOptions(SEVERITY, Casters.<ViolationSeverity>cast())
-                .orElse(ViolationSeverity.UNSPECIFIED);
+        return null == severity ? ViolationSeverity.UNSPECIFIED : severity;
+    }
+
+    /** 所有 options 的可修改檢視；常用 key 以正確型別寫入時存入型別化欄位，其他值放在延遲配置的 Map */
+    public Map<String, Object> getOptions() {
+        return new Options();
+    }
+
+    private Object option(String key) {
+        return switch (key) {
+            case SEVERE -> (flags & SEVERE_SET) != 0 ? Boolean.valueOf(isSevere()) : extraOption(key);
+            case WARNING -> (flags & WARNING_SET) != 0 ? Boolean.valueOf(isWarning()) : extraOption(key);
+            case SEVERITY -> null != severity ? severity : extraOption(key);
+            default -> extraOption(key);
+        };
+    }
+
+    private boolean hasOption(String key) {
+        return switch (key) {
+            case SEVERE -> (flags & SEVERE_SET) != 0 || hasExtraOption(key);
+            case WARNING -> (flags & WARNING_SET) != 0 || hasExtraOption(key);
+            case SEVERITY -> null != severity || hasExtraOption(key);
+            default -> hasExtraOption(key);
+        };
+    }
+
+    private void putOption(String key, Object value) {
+        if (SEVERE.equals(key) && value instanceof Boolean on) {
+            setSevere(on);
+        } else if (WARNING.equals(key) && value instanceof Boolean on) {
+            setWarning(on);
+        } else if (SEVERITY.equals(key) && value instanceof ViolationSeverity level) {
+            setSeverity(level);
+        } else {
+            removeOption(key);
+            if (null == extraOptions) {
+                extraOptions = new HashMap<>(4);
+            }
+            extraOptions.put(key, value);
+        }
+    }
+
+    private void removeOption(String key) {
+        switch (key) {
+            case SEVERE -> flags = (byte) (flags & ~(SEVERE_SET | SEVERE_ON));
+            case WARNING -> flags = (byte) (flags & ~(WARNING_SET | WARNING_ON));
+            case SEVERITY -> severity = null;
+            default -> { /* 非常用 key 只存在於 extraOptions */ }
+        }
+        removeExtraOption(key);
+    }
+
+    private Object extraOption(String key) {
+        return null == extraOptions ? null : extraOptions.get(key);
+    }
+
+    private boolean hasExtraOption(String key) {
+        return null != extraOptions && extraOptions.containsKey(key);
+    }
+
+    private void removeExtraOption(String key) {
+        if (null != extraOptions) {
+            extraOptions.remove(key);
+        }
+    }
+
+    private List<String> optionKeys() {
+        List<String> keys = new ArrayList<>(3 + (null == extraOptions ? 0 : extraOptions.size()));
+        if ((flags & SEVERE_SET) != 0) {
+            keys.add(SEVERE);
+        }
+        if ((flags & WARNING_SET) != 0) {
+            keys.add(WARNING);
+        }
+        if (null != severity) {
+            keys.add(SEVERITY);
+        }
+        if (null != extraOptions) {
+            keys.addAll(extraOptions.keySet());
+        }
+        return keys;
+    }
+
+    /** 與 getOptions().hashCode() 相同，但不建立 Map 檢視 */
+    int optionsHashCode() {
+        int h = 0;
+        if ((flags & SEVERE_SET) != 0) {
+            h += SEVERE.hashCode() ^ Boolean.hashCode(isSevere());
+        }
+        if ((flags & WARNING_SET) != 0) {
+            h += WARNING.hashCode() ^ Boolean.hashCode(isWarning());
+        }
+        if (null != severity) {
+            h += SEVERITY.hashCode() ^ severity.hashCode();
+        }
+        return null == extraOptions ? h : h + extraOptions.hashCode();
+    }
+
+    private boolean sameOptions(GeneralViolation that) {
+        return flags == that.flags && severity == that.severity
+                && Objects.equals(nonNull(extraOptions), nonNull(that.extraOptions));
+    }
+
+    private static Map<String, Object> nonNull(Map<String, Object> options) {
+        return null == options ? Map.of() : options;
+    }
+
+    /**
+     * Violations 去重用的雜湊：與 hashCode 相同但不含 stepName（tagStep 會就地修改）；
+     * 訊息以字串計算，延遲訊息會在此時組字串，讓 join 的去重與 equals 一致
+     */
+    int dedupHashCode() {
+        return 31 * (31 * Objects.hashCode(validationName) + Objects.hashCode(messages))
+                + optionsHashCode();
+    }
+
+    /** Violations 去重用的比較：同一物件時不組字串，其餘與 equals 相同 */
+    boolean sameForDedup(GeneralViolation that) {
+        return this == that || equals(that);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof GeneralViolation that)) return false;
+        return Objects.equals(validationName, that.validationName)
+                && Objects.equals(stepName, that.stepName)
+                && Objects.equals(messages, that.messages)
+                && sameOptions(that);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(validationName, stepName, messages, optionsHashCode());
+    }
+
+    @Override
+    public String toString() {
+        return "GeneralViolation(validationName=" + validationName + ", stepName=" + stepName
+                + ", messages=" + messages + ", options=" + getOptions() + ")";
+    }
+
+    private final class Options extends AbstractMap<String, Object> {
+
+        @Override
+        public Object get(Object key) {
+            return key instanceof String name ? option(name) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof String name && hasOption(name);
+        }
+
+        @Override
+        public Object put(String key, Object value) {
+            Object previous = option(key);
+            putOption(key, value);
+            return previous;
+        }
+
+        @Override
+        public Object remove(Object key) {
+            if (!(key instanceof String name)) {
+                return null;
+            }
+            Object previous = option(name);
+            removeOption(name);
+            return previous;
+        }
+
+        @Override
+        public void clear() {
+            flags = 0;
+            severity = null;
+            extraOptions = null;
+        }
+
+        @Override
+        public int size() {
+            return Integer.bitCount(flags & (SEVERE_SET | WARNING_SET)) + (null == severity ? 0 : 1)
+                    + (null == extraOptions ? 0 : extraOptions.size());
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    Iterator<String> keys = optionKeys().iterator();
+                    return new Iterator<>() {
+                        private String last;
+
+                        @Override
+                        public boolean hasNext() {
+                            return keys.hasNext();
+                        }
+
+                        @Override
+                        public Entry<String, Object> next() {
+                            last = keys.next();
+                            return new SimpleImmutableEntry<>(last, option(last));
+                        }
+
+                        @Override
+                        public void remove() {
+                            if (null == last) {
+                                throw new IllegalStateException();
+                            }
+                            removeOption(last);
+                            last = null;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return Options.this.size();
+                }
+            };
+        }
     }
 
     public static String fromConstraint(Collection<ConstraintViolation<Object>> violations, Map<String, Object> options) {
@@ -97,23 +342,45 @@ public class GeneralViolation {
         if (CollectionUtils.isEmpty(violations)) {
             return StringUtils.EMPTY;
         }
-        return IntStream.range(0, violations.size())
-                        .mapToObj(i -> {
-                            GeneralViolation violation = new ArrayList<>(violations).get(i);
-                            Maybe<String> withPropertyPath = Maybe.just(options)
-                                    .filter(opts -> Boolean.TRUE.equals(
-                                            opts.get("withPropertyPath")))
-                                    .map(x -> " {%s}");
-                            String msgTemplate = withPropertyPath
-                                    .map(x -> StringUtils.join(ORDER_CONTENT, " {%s}"))
-                                    .orElse(ORDER_CONTENT);
-
-                            return String.format(msgTemplate,
-                                    i + 1,
-                                    String.join(", ", violation.getMessages()),
-                                    withPropertyPath.map(x -> violation.getValidationName())
-                                            .orElse(StringUtils.EMPTY));
-                        })
-                .collect(Collectors.joining("\n"));
+        StringBuilder sb = new StringBuilder();
+        try {
+            appendViolationMessages(violations, options, sb);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 同 getViolationMessages，但直接寫入 out：單次走訪，不建立中間字串。
+     * 每行格式為 " (序號) 訊息1, 訊息2"，options 的 withPropertyPath 為 true 時附加 " {validationName}"。
+     */
+    public static void appendViolationMessages(Collection<GeneralViolation> violations, Map<String, Object> options,
+                                               Appendable out) throws IOException {
+        if (CollectionUtils.isEmpty(violations)) {
+            return;
+        }
+        boolean withPropertyPath = null != options && Boolean.TRUE.equals(options.get("withPropertyPath"));
+
+        int order = 0;
+        for (GeneralViolation violation : violations) {
+            if (order > 0) {
+                out.append('\n');
+            }
+            out.append(" (").append(String.valueOf(++order)).append(") ");
+            appendJoined(violation.getMessages(), ", ", out);
+            if (withPropertyPath) {
+                out.append(" {").append(String.valueOf(violation.getValidationName())).append('}');
+            }
+        }
+    }
+
+    static void appendJoined(List<String> messages, String delimiter, Appendable out) throws IOException {
+        for (int i = 0; i < messages.size(); i++) {
+            if (i > 0) {
+                out.append(delimiter);
+            }
+            out.append(String.valueOf(messages.get(i)));
+        }
     }
 }
@@ -1,20 +1,120 @@
 package org.dotspace.oofp.model.dto.behaviorstep;
 
 import org.dotspace.oofp.utils.dsl.Joinable;
-import org.dotspace.oofp.utils.functional.monad.Maybe;
 
-import lombok.AllArgsConstructor;
-import lombok.Getter;
+import java.util.ArrayDeque;
+import java.util.Deque;
 
-@Getter
-@AllArgsConstructor(staticName = "of")
+/**
+ * 以換行串接的訊息。join 只建立 rope 節點（O(1)），第一次 getMessage 時才攤平成字串並快取，
+ * 因此連續合併 N 則訊息的總成本與字元數成線性。
+ */
 public class JoinableMessage implements Joinable<JoinableMessage> {
 
-    private String message;
+    private static final char SEPARATOR = '\n';
+
+    private final JoinableMessage left;
+    private final JoinableMessage right;
+    private final int length;
+
+    private volatile String message;
+
+    private JoinableMessage(String message) {
+        this.left = null;
+        this.right = null;
+        this.length = message == null ? 0 : message.length();
+        this.message = message;
+    }
+
+    private JoinableMessage(JoinableMessage left, JoinableMessage right) {
+        this.left = left;
+        this.right = right;
+        this.length = left.length + 1 + right.length;
+    }
+
+    public static JoinableMessage of(String message) {
+        return new JoinableMessage(message);
+    }
+
+    public String getMessage() {
+        String flat = message;
+        if (flat == null && left != null) {
+            StringBuilder sb = new StringBuilder(length);
+            appendTo(sb);
+            flat = sb.toString();
+            message = flat;
+        }
+        return flat;
+    }
 
     @Override
     public JoinableMessage join(JoinableMessage other) {
-        return Maybe.given(message)
-                .fold(s -> JoinableMessage.of(s.concat("\n").concat(other.message)), () -> other);
+        if (isEmptyLeaf()) {
+            return other;
+        }
+        return other.isEmptyLeaf() ? this : new JoinableMessage(this, other);
+    }
+
+    @Override
+    public Accumulator<JoinableMessage> accumulator() {
+        return new MessageAccumulator(this);
+    }
+
+    private boolean isEmptyLeaf() {
+        return left == null && message == null;
+    }
+
+    /** 以明確的堆疊走訪，左深的長串 join 不會耗盡呼叫堆疊 */
+    private void appendTo(StringBuilder sb) {
+        Deque<JoinableMessage> pending = new ArrayDeque<>();
+        pending.push(this);
+        boolean first = true;
+        while (!pending.isEmpty()) {
+            JoinableMessage node = pending.pop();
+            String flat = node.message;
+            if (flat == null && node.left != null) {
+                pending.push(node.right);
+                pending.push(node.left);
+                continue;
+            }
+            if (!first) {
+                sb.append(SEPARATOR);
+            }
+            sb.append(flat);
+            first = false;
+        }
+    }
+
+    private static final class MessageAccumulator implements Accumulator<JoinableMessage> {
+
+        private JoinableMessage current;
+        private StringBuilder sb;
+
+        private MessageAccumulator(JoinableMessage initial) {
+            this.current = initial;
+        }
+
+        @Override
+        public Accumulator<JoinableMessage> add(JoinableMessage other) {
+            if (other.isEmptyLeaf()) {
+                return this;
+            }
+            if (sb == null) {
+                if (current.isEmptyLeaf()) {
+                    current = other;
+                    return this;
+                }
+                sb = new StringBuilder(current.length + 1 + other.length);
+                current.appendTo(sb);
+            }
+            sb.append(SEPARATOR);
+            other.appendTo(sb);
+            return this;
+        }
+
+        @Override
+        public JoinableMessage freeze() {
+            return sb == null ? current : JoinableMessage.of(sb.toString());
+        }
     }
 }
@@ -0,0 +1,60 @@
+package org.dotspace.oofp.model.dto.behaviorstep;
+
+import org.dotspace.oofp.enumeration.stepcontext.StackTracePolicy;
+import org.dotspace.oofp.utils.functional.monad.Maybe;
+
+import lombok.NonNull;
+import lombok.experimental.UtilityClass;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+
+import java.util.function.Supplier;
+
+/**
+ * 例外轉為 violation 時的 stack trace 擷取策略（全域設定，預設 FULL 以維持既有輸出）。
+ * 擷取一律延遲到訊息被讀取時才進行，見 {@link DeferredMessages}。
+ */
+@UtilityClass
+public class StackTraces {
+
+    public static final int DEFAULT_TOP_FRAMES = 8;
+
+    private volatile StackTracePolicy policy = StackTracePolicy.FULL;
+    private volatile int topFrames = DEFAULT_TOP_FRAMES;
+
+    public void configure(@NonNull StackTracePolicy stackTracePolicy, int frames) {
+        if (frames <= 0) {
+            throw new IllegalArgumentException("frames must be positive: " + frames);
+        }
+        topFrames = frames;
+        policy = stackTracePolicy;
+    }
+
+    public StackTracePolicy policy() {
+        return policy;
+    }
+
+    /** 依目前策略回傳延遲產生 stack trace 的 Supplier；NONE 時為 empty */
+    public Maybe<Supplier<String>> capture(@NonNull Throwable e) {
+        return switch (policy) {
+            case NONE -> Maybe.empty();
+            case FULL -> Maybe.just(() -> ExceptionUtils.getStackTrace(e));
+            case TOP_FRAMES -> {
+                int frames = topFrames;
+                yield Maybe.just(() -> topFrames(e, frames));
+            }
+        };
+    }
+
+    private String topFrames(Throwable e, int frames) {
+        StackTraceElement[] trace = e.getStackTrace();
+        StringBuilder sb = new StringBuilder(e.toString());
+        int shown = Math.min(frames, trace.length);
+        for (int i = 0; i < shown; i++) {
+            sb.append(System.lineSeparator()).append("\tat ").append(trace[i]);
+        }
+        if (trace.length > shown) {
+            sb.append(System.lineSeparator()).append("\t... ").append(trace.length - shown).append(" more");
+        }
+        return sb.toString();
+    }
+}
@@ -2,6 +2,7 @@ package org.dotspace.oofp.model.dto.behaviorstep;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 
+import org.dotspace.oofp.enumeration.stepcontext.BudgetOverflowAction;
 import org.dotspace.oofp.enumeration.stepcontext.ViolationSeverity;
 import org.dotspace.oofp.utils.eip.AttrKey;
 import org.dotspace.oofp.utils.functional.Casters;
@@ -11,15 +12,23 @@ import org.dotspace.oofp.utils.functional.monad.validation.Validation;
 import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.Getter;
+import lombok.NonNull;
 import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
 
 import java.lang.reflect.Type;
-import java.util.HashMap;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
+@Slf4j
 @Getter
-@Builder(setterPrefix = "with")
 public class StepContext<T> {
 
     public static final String ATTRIBUTE_IS_MISSING = "attribute is missing: ";
@@ -31,17 +40,37 @@ public class StepContext<T> {
     public static final String STEP_CONTEXT_ATTRIBUTE_CAST_FAILED = "step-context.attribute.cast.failed";
     public static final String STEP_CONTEXT_ATTRIBUTE_NULL = "step-context.attribute.null";
     public static final String STEP_CONTEXT_ATTRIBUTE_TYPE_MISMATCH = "step-context.attribute.type.mismatch";
+    public static final String STEP_CONTEXT_DEADLINE_EXCEEDED = "step-context.deadline.exceeded";
+
+    /** 流程結束時需釋放的資源（withResource），只在本機有效，不隨 context 序列化 */
+    public static final String RESOURCES_ATTRIBUTE = "step-context.resources";
+
+    /** 記憶體上限與記帳（withAttributeBudget），只在本機有效，不隨 context 序列化 */
+    public static final String ATTRIBUTE_BUDGET_ATTRIBUTE = "step-context.attribute-budget";
+    public static final String ATTRIBUTE_USAGE_ATTRIBUTE = "step-context.attribute-usage";
+
+    /** 只在本機有效的 attributes，序列化時略過，也不計入 AttributeBudget */
+    public static final Set<String> LOCAL_ATTRIBUTES = Set.of(
+            RESOURCES_ATTRIBUTE, ATTRIBUTE_BUDGET_ATTRIBUTE, ATTRIBUTE_USAGE_ATTRIBUTE);
+
+    private static final String DEADLINE_ATTRIBUTE = "step-context.deadline";
     private T payload; // 核心資料（主資料）
 
     private Violations violations; // 收集錯誤
 
     @Getter(AccessLevel.PROTECTED)
-    @Builder.Default
-    private final Map<String, Object> attributes = new HashMap<>(); // 彈性附加資料
+    private AttributeMap attributes; // 彈性附加資料（不可變、共用結構，更新時替換參照）
 
-    @Builder.Default
     @Setter
-    private boolean aborted = false; // 是否中止流程
+    private boolean aborted; // 是否中止流程
+
+    @Builder(setterPrefix = "with")
+    private StepContext(T payload, Violations violations, Map<String, Object> attributes, boolean aborted) {
+        this.payload = payload;
+        this.violations = violations;
+        this.attributes = AttributeMap.copyOf(attributes);
+        this.aborted = aborted;
+    }
 
     public StepContext<T> transit(T newPayload) {
         return StepContext.<T>builder()
@@ -66,13 +95,11 @@ public class StepContext<T> {
     }
 
     public boolean hasFatalErrors() {
-        return violations.stream()
-                .anyMatch(v -> v.getSeverity() == ViolationSeverity.FATAL);
+        return violations.countOf(ViolationSeverity.FATAL) > 0;
     }
 
     public boolean hasSevereThan(ViolationSeverity level) {
-        return violations.stream()
-                .anyMatch(v -> v.getSeverity().ordinal() >= level.ordinal());
+        return violations.countAtLeast(level) > 0;
     }
 
     public <R> R getAttributeOrDefault(String name, Function<Object, R> applier, R defaultValue) {
@@ -90,9 +117,13 @@ public class StepContext<T> {
                 .map(Casters.cast());
     }
 
+    /** 以 AttrKey 讀取；由同一槽位 AttrKey 寫入的值直接回傳，不經 cast */
     public <R> Maybe<R> findAttribute(AttrKey<R> attrKey) {
+        if (attrKey.slot() >= 0 && attributes.isTyped(attrKey.slot())) {
+            return Maybe.just(Casters.<R>cast().apply(attributes.slot(attrKey.slot())));
+        }
         return getAttributeRaw(attrKey.name())
-                .map(Casters.cast(attrKey.typeRef()));
+                .map(attrKey.caster());
     }
 
     public <R> Maybe<R> getAttribute(String name, Class<R> clazz) {
@@ -111,21 +142,28 @@ public class StepContext<T> {
     public <R> Validation<Violations, R> requireAttr(String name, Type type) {
         return getAttributeRaw(name)
                 .toValidation(Violations.violate(STEP_CONTEXT_ATTRIBUTE_CAST_MISSING,
-                        ATTRIBUTE_IS_MISSING + name))
+                        () -> ATTRIBUTE_IS_MISSING + name))
                 .flatMap(raw -> castOrInvalid(raw, type, name));
     }
 
     public <R> Validation<Violations, R> requireAttr(String name, Class<R> clazz) {
         return getAttributeRaw(name)
                 .toValidation(Violations.violate(STEP_CONTEXT_ATTRIBUTE_CAST_MISSING,
-                        ATTRIBUTE_IS_MISSING + name))
+                        () -> ATTRIBUTE_IS_MISSING + name))
                 .flatMap(raw -> castOrInvalid(raw, clazz, name));
     }
 
+    public <R> Validation<Violations, R> requireAttr(AttrKey<R> attrKey) {
+        if (attrKey.slot() >= 0 && attributes.isTyped(attrKey.slot())) {
+            return Validation.valid(Casters.<R>cast().apply(attributes.slot(attrKey.slot())));
+        }
+        return requireAttr(attrKey.name(), attrKey.typeRef());
+    }
+
     public <R> Validation<Violations, R> requireAttr(String name, TypeReference<R> typeRef) {
         return getAttributeRaw(name)
                 .toValidation(Violations.violate(STEP_CONTEXT_ATTRIBUTE_CAST_MISSING,
-                        ATTRIBUTE_IS_MISSING + name))
+                        () -> ATTRIBUTE_IS_MISSING + name))
                 .flatMap(raw -> castOrInvalid(raw, typeRef, name));
     }
 
@@ -138,14 +176,14 @@ public class StepContext<T> {
         return this.<R>requireAttr(name, type)
                 .flatMap(v -> Maybe.given(v)
                         .toValidation(Violations.violate(STEP_CONTEXT_ATTRIBUTE_NULL,
-                                "attribute is null: " + name)));
+                                () -> "attribute is null: " + name)));
     }
 
     public <R> Validation<Violations, R> requireAttrNonNull(String name, Class<R> clazz) {
         return requireAttr(name, clazz)
                 .flatMap(v -> Maybe.given(v)
                         .toValidation(Violations.violate(STEP_CONTEXT_ATTRIBUTE_NULL,
-                                "attribute is null: " + name)));
+                                () -> "attribute is null: " + name)));
     }
 
     /** 取不到就用 default（這裡不會 invalid） */
@@ -172,7 +210,7 @@ public class StepContext<T> {
             return Validation.valid(value);
         } catch (RuntimeException e) {
             return Validation.invalid(Violations.violate(STEP_CONTEXT_ATTRIBUTE_CAST_FAILED,
-                    ATTRIBUTE_CAST_FAILED + name + " -> " + type.getTypeName()
+                    () -> ATTRIBUTE_CAST_FAILED + name + " -> " + type.getTypeName()
                             + CONCAT_ACTUAL_PROMPT + raw.getClass().getName()
                             + CONCAT_ERROR_PROMPT + e.getClass().getSimpleName()));
         }
@@ -184,13 +222,13 @@ public class StepContext<T> {
             R value = Casters.cast(clazz).apply(raw);
             if (value == null) {
                 return Validation.invalid(Violations.violate(STEP_CONTEXT_ATTRIBUTE_TYPE_MISMATCH,
-                        "attribute type mismatch: " + name + " expected=" + clazz.getName()
+                        () -> "attribute type mismatch: " + name + " expected=" + clazz.getName()
                                 + CONCAT_ACTUAL_PROMPT + raw.getClass().getName()));
             }
             return Validation.valid(value);
         } catch (RuntimeException e) {
             return Validation.invalid(Violations.violate(STEP_CONTEXT_ATTRIBUTE_CAST_FAILED,
-                    ATTRIBUTE_CAST_FAILED + name + " -> " + clazz.getName()
+                    () -> ATTRIBUTE_CAST_FAILED + name + " -> " + clazz.getName()
                             + CONCAT_ACTUAL_PROMPT + raw.getClass().getName()
                             + CONCAT_ERROR_PROMPT + e.getClass().getSimpleName()));
         }
@@ -203,45 +241,287 @@ public class StepContext<T> {
             return Validation.valid(value);
         } catch (RuntimeException e) {
             return Validation.invalid(Violations.violate(STEP_CONTEXT_ATTRIBUTE_CAST_FAILED,
-                    ATTRIBUTE_CAST_FAILED + name + " -> " + typeRef.getType().getTypeName()
+                    () -> ATTRIBUTE_CAST_FAILED + name + " -> " + typeRef.getType().getTypeName()
                             + CONCAT_ACTUAL_PROMPT + raw.getClass().getName()
                             + CONCAT_ERROR_PROMPT + e.getClass().getSimpleName()));
         }
     }
 
-    // 設定屬性值
+    // 設定屬性值；設有 AttributeBudget 且超出上限時不寫入，改加入 violation（或中止）
     public StepContext<T> withAttribute(String key, Object value) {
-        attributes.put(key, value);
+        if (account(key, value) == null) {
+            attributes = attributes.plus(key, value);
+        }
         return this;
     }
 
+    /** 同 withAttribute，但超出 AttributeBudget 時回傳 invalid，供 Validation 串接的 Step 使用 */
+    public Validation<Violations, StepContext<T>> withAttributeWithinBudget(String key, Object value) {
+        Violations exceeded = account(key, value);
+        if (exceeded != null) {
+            return Validation.invalid(exceeded);
+        }
+        attributes = attributes.plus(key, value);
+        return Validation.valid(this);
+    }
+
     public StepContext<T> withNoneAttribute(String key) {
-        attributes.remove(key);
+        if (attributes.containsKey(ATTRIBUTE_BUDGET_ATTRIBUTE) && !LOCAL_ATTRIBUTES.contains(key)) {
+            attributes = attributes.plus(ATTRIBUTE_USAGE_ATTRIBUTE, usage().with(key, 0L));
+        }
+        attributes = attributes.minus(key);
         return this;
     }
 
-    // 設定多個屬性值
+    // 設定多個屬性值；設有 AttributeBudget 時逐一記帳，超出上限者同 withAttribute 不寫入
     public StepContext<T> withAttributes(Map<String, Object> additional) {
-        Map<String, Object> merged = new HashMap<>(attributes);
-        merged.putAll(additional);
-        return StepContext.<T>builder()
+        boolean budgeted = attributes.containsKey(ATTRIBUTE_BUDGET_ATTRIBUTE);
+        StepContext<T> next = StepContext.<T>builder()
                 .withPayload(payload)
                 .withViolations(violations)
-                .withAttributes(merged)
+                .withAttributes(budgeted ? attributes : attributes.plusAll(additional))
                 .withAborted(aborted)
                 .build();
+        if (budgeted) {
+            additional.forEach(next::withAttribute);
+        }
+        return next;
     }
 
     public StepContext<T> mergeViolations(Violations additional) {
         return StepContext.<T>builder()
                 .withPayload(payload)
-                .withViolations(this.violations.join(additional))
+                .withViolations(joinNullable(this.violations, additional))
                 .withAttributes(attributes)
                 .withAborted(aborted)
                 .build();
     }
 
+    /** 有槽位的 AttrKey 直接寫入槽位並標記為已轉型 */
     public <R> StepContext<T> withAttribute(AttrKey<R> attrKey, R attrValue) {
-        return withAttribute(attrKey.name(), attrValue);
+        if (attrKey.slot() < 0) {
+            return withAttribute(attrKey.name(), attrValue);
+        }
+        if (account(attrKey.name(), attrValue) == null) {
+            attributes = attributes.plusSlot(attrKey.slot(), attrValue, true);
+        }
+        return this;
+    }
+
+    // ---------------------------
+    // attribute budget
+    // ---------------------------
+
+    /** 啟用 attributes 的記憶體記帳與上限；之後的 withAttribute 都會估算大小並檢查 */
+    public StepContext<T> withAttributeBudget(@NonNull AttributeBudget budget) {
+        attributes = attributes.plus(ATTRIBUTE_BUDGET_ATTRIBUTE, budget);
+        return this;
+    }
+
+    public Maybe<AttributeBudget> getAttributeBudget() {
+        return getAttribute(ATTRIBUTE_BUDGET_ATTRIBUTE, AttributeBudget.class);
+    }
+
+    /**
+     * 因超出 AttributeBudget 而未寫入所產生的 violations；未啟用 budget 時為 empty。
+     * fail-fast 的 BehaviorPipeline.apply 在 Step 結束後以此判斷是否改回傳 invalid。
+     */
+    public Violations getBudgetViolations() {
+        if (violations == null || violations.isEmpty() || !attributes.containsKey(ATTRIBUTE_BUDGET_ATTRIBUTE)) {
+            return Violations.empty();
+        }
+        return violations.filter(violation ->
+                AttributeBudget.STEP_CONTEXT_ATTRIBUTE_TOO_LARGE.equals(violation.getValidationName())
+                        || AttributeBudget.STEP_CONTEXT_ATTRIBUTES_TOO_LARGE.equals(violation.getValidationName()));
+    }
+
+    /** 目前 attributes 的估計總大小（只計入啟用 AttributeBudget 後的寫入） */
+    public long getAttributeBytes() {
+        return usage().total();
+    }
+
+    private AttributeBudget.Usage usage() {
+        return attributes.get(ATTRIBUTE_USAGE_ATTRIBUTE) instanceof AttributeBudget.Usage usage
+                ? usage
+                : AttributeBudget.Usage.EMPTY;
+    }
+
+    /**
+     * 依 AttributeBudget 記帳：未超出時更新估計大小並回傳 null；
+     * 超出時將 violation 加入目前 context（ABORT 時一併中止）並回傳該 violation。
+     */
+    private Violations account(String key, Object value) {
+        if (!(attributes.get(ATTRIBUTE_BUDGET_ATTRIBUTE) instanceof AttributeBudget budget)
+                || LOCAL_ATTRIBUTES.contains(key)) {
+            return null;
+        }
+
+        AttributeBudget.Usage usage = usage();
+        long bytes = AttributeSizes.estimate(value);
+        Violations exceeded = budget.check(key, bytes, usage.total() - usage.sizeOf(key) + bytes);
+        if (exceeded == null) {
+            attributes = attributes.plus(ATTRIBUTE_USAGE_ATTRIBUTE, usage.with(key, bytes));
+            return null;
+        }
+
+        violations = joinNullable(violations, exceeded);
+        if (budget.getOverflowAction() == BudgetOverflowAction.ABORT) {
+            aborted = true;
+        }
+        return exceeded;
+    }
+
+    // ---------------------------
+    // deadline
+    // ---------------------------
+
+    /** 設定請求期限，之後的 Step 與 BehaviorPipeline 會依此判斷是否還值得繼續 */
+    public StepContext<T> withDeadline(Instant deadline) {
+        return withAttribute(DEADLINE_ATTRIBUTE, deadline);
+    }
+
+    public Maybe<Instant> getDeadline() {
+        return getAttribute(DEADLINE_ATTRIBUTE, Instant.class);
+    }
+
+    /** 距離期限的剩餘時間（已過期時為負值）；未設定期限時為 empty */
+    public Maybe<Duration> remaining() {
+        return getDeadline().map(deadline -> Duration.between(Instant.now(), deadline));
+    }
+
+    public boolean isDeadlineExceeded() {
+        return getDeadline()
+                .map(deadline -> !Instant.now().isBefore(deadline))
+                .orElse(false);
+    }
+
+    public Violations deadlineExceeded() {
+        Maybe<Instant> deadline = getDeadline();
+        return Violations.violate(STEP_CONTEXT_DEADLINE_EXCEEDED,
+                () -> "deadline exceeded: " + deadline.map(Instant::toString).orElse("unset"));
+    }
+
+    // ---------------------------
+    // resources
+    // ---------------------------
+
+    /** 登記流程結束時需釋放的資源（例如 ArenaPayload），BehaviorPipeline.apply 結束時依相反順序關閉 */
+    public StepContext<T> withResource(@NonNull AutoCloseable resource) {
+        List<AutoCloseable> resources = new ArrayList<>(getResources());
+        resources.add(resource);
+        return withAttribute(RESOURCES_ATTRIBUTE, List.copyOf(resources));
+    }
+
+    public List<AutoCloseable> getResources() {
+        return this.<List<AutoCloseable>>getAttribute(RESOURCES_ATTRIBUTE)
+                .orElse(List.of());
+    }
+
+    /**
+     * 依登記的相反順序關閉所有資源並移除登記。
+     * 個別資源關閉失敗只記錄 log，不影響其他資源的釋放。
+     */
+    public StepContext<T> releaseResources() {
+        List<AutoCloseable> resources = getResources();
+        for (int i = resources.size() - 1; i >= 0; i--) {
+            try {
+                resources.get(i).close();
+            } catch (Exception e) {
+                log.warn("releaseResources: failed to close {}", resources.get(i), e);
+            }
+        }
+        return resources.isEmpty() ? this : withNoneAttribute(RESOURCES_ATTRIBUTE);
+    }
+
+    /**
+     * 建立擁有獨立 attributes 的副本，讓平行分支的 withAttribute 不互相干擾。
+     * attributes 為共用結構的不可變 Map，副本與原 context 共用同一份，不需複製。
+     */
+    public StepContext<T> fork() {
+        return StepContext.<T>builder()
+                .withPayload(payload)
+                .withViolations(violations)
+                .withAttributes(attributes)
+                .withAborted(aborted)
+                .build();
+    }
+
+    /**
+     * 將 branch 相對於 base（分支起點）的異動合併進目前 context：
+     * attributes 的新增、覆寫與移除、payload 的替換、violations 與 aborted。
+     * branch 另外登記的資源一併移交給合併後的 context，由其在結束時釋放。
+     */
+    public StepContext<T> mergeBranch(StepContext<T> base, StepContext<T> branch) {
+        StepContext<T> merged = applyDelta(base.diff(branch));
+        List<AutoCloseable> inherited = base.getResources();
+        for (AutoCloseable resource : branch.getResources()) {
+            if (!inherited.contains(resource) && !merged.getResources().contains(resource)) {
+                merged = merged.withResource(resource);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * 計算 after（由目前 context 執行 Step 而來）相對於目前 context 的異動。
+     * LOCAL_ATTRIBUTES（資源、budget 與記帳）屬於各自的 context，不列入異動。
+     */
+    public StepContextDelta<T> diff(StepContext<T> after) {
+        AttributeMap written = AttributeMap.empty();
+        Set<String> removed = Set.of();
+        if (after.attributes != attributes) {
+            written = after.attributes.writtenSince(attributes).minusAll(LOCAL_ATTRIBUTES);
+            removed = attributes.keySet().stream()
+                    .filter(key -> !LOCAL_ATTRIBUTES.contains(key) && !after.attributes.containsKey(key))
+                    .collect(Collectors.toUnmodifiableSet());
+        }
+
+        List<GeneralViolation> added = Maybe.given(after.violations)
+                .map(v -> v.stream()
+                        .filter(violation -> violations == null
+                                || !violations.contains(violation))
+                        .toList())
+                .orElse(List.of());
+
+        return new StepContextDelta<>(written, removed,
+                after.payload != payload, after.payload, Violations.from(added), after.aborted);
+    }
+
+    /**
+     * 將異動套用到目前 context，回傳新的 context（不修改目前的 attributes）。
+     * 設有 AttributeBudget 時，寫入依目前 context 的記帳逐一重新檢查，超出上限者同 withAttribute 不寫入。
+     */
+    public StepContext<T> applyDelta(StepContextDelta<T> delta) {
+        boolean budgeted = attributes.containsKey(ATTRIBUTE_BUDGET_ATTRIBUTE);
+        StepContext<T> next = StepContext.<T>builder()
+                .withPayload(delta.payloadReplaced() ? delta.payload() : payload)
+                .withViolations(joinNullable(violations, delta.violations()))
+                .withAttributes(budgeted
+                        ? attributes
+                        : attributes.plusAll(delta.written()).minusAll(delta.removed()))
+                .withAborted(aborted || delta.aborted())
+                .build();
+        if (!budgeted) {
+            return next;
+        }
+
+        delta.removed().forEach(next::withNoneAttribute);
+        Set<String> rejected = new HashSet<>();
+        delta.written().forEach((key, value) -> {
+            if (next.account(key, value) != null) {
+                rejected.add(key);
+            }
+        });
+        next.attributes = next.attributes.plusAll(rejected.isEmpty()
+                ? delta.written()
+                : AttributeMap.empty().plusAll(delta.written()).minusAll(rejected));
+        return next;
+    }
+
+    private static Violations joinNullable(Violations current, Violations additional) {
+        if (current == null || current == additional) {
+            return additional;
+        }
+        return additional == null ? current : current.join(additional);
     }
 }
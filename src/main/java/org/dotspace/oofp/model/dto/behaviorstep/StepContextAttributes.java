@@ -3,14 +3,14 @@ package org.dotspace.oofp.model.dto.behaviorstep;
 import lombok.NonNull;
 import lombok.experimental.UtilityClass;
 
-import java.util.HashMap;
 import java.util.Map;
 
 @UtilityClass
 public class StepContextAttributes {
 
+    /** attributes 的不可變快照；與 context 共用結構，不需複製 */
     public <T> Map<String, Object> copyOf(@NonNull StepContext<T> stepContext) {
-        return new HashMap<>(stepContext.getAttributes());
+        return stepContext.getAttributes();
     }
 
 }
@@ -0,0 +1,24 @@
+package org.dotspace.oofp.model.dto.behaviorstep;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 一個 Step 對 StepContext 造成的異動，與原本的 context 脫鉤，可重播到其他 context 上。
+ * <pre>
+ * - written：新增或覆寫的 attributes
+ * - removed：被移除的 attribute 名稱
+ * - payloadReplaced / payload：payload 是否被替換及替換後的值
+ * - violations：新增的 violations
+ * - aborted：執行後是否中止
+ * </pre>
+ * 由 {@link StepContext#diff(StepContext)} 產生、{@link StepContext#applyDelta(StepContextDelta)} 套用。
+ */
+public record StepContextDelta<T>(
+        Map<String, Object> written,
+        Set<String> removed,
+        boolean payloadReplaced,
+        T payload,
+        Violations violations,
+        boolean aborted) {
+}
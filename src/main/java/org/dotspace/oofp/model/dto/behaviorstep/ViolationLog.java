@@ -0,0 +1,85 @@
+package org.dotspace.oofp.model.dto.behaviorstep;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Violations 共用的只增不減儲存：多個 Violations 以 (log, size) 共用同一段前綴。
+ * <pre>
+ * - 只有長度等於目前 log 長度的 Violations 能就地附加，其餘（分支）附加時複製前綴
+ * - 雜湊索引以 validationName、messages 與 options 分桶，桶內保存遞增的位置；不含 stepName，
+ *   tagStep 就地修改 stepName 不會讓索引失效
+ * - 延遲訊息（DeferredMessages）以組好的字串雜湊與比較，與 GeneralViolation.equals 一致
+ * </pre>
+ * 所有操作以 synchronized 保護，平行分支可以共用同一個 log。
+ */
+final class ViolationLog {
+
+    private static final int INITIAL_CAPACITY = 4;
+
+    private GeneralViolation[] items;
+    private int length;
+    private final Map<Integer, int[]> index = new HashMap<>();
+
+    ViolationLog() {
+        this.items = new GeneralViolation[INITIAL_CAPACITY];
+    }
+
+    static ViolationLog copyOf(ViolationLog source, int size) {
+        ViolationLog copy = new ViolationLog();
+        synchronized (source) {
+            copy.items = Arrays.copyOf(source.items, Math.max(INITIAL_CAPACITY, size * 2));
+        }
+        for (int i = 0; i < size; i++) {
+            copy.indexAt(i);
+        }
+        copy.length = size;
+        return copy;
+    }
+
+    /** 目前長度為 expectedLength 時附加並回傳 true；否則（已被其他分支附加）回傳 false */
+    synchronized boolean tryAppend(int expectedLength, GeneralViolation violation) {
+        if (length != expectedLength) {
+            return false;
+        }
+        if (length == items.length) {
+            items = Arrays.copyOf(items, length * 2);
+        }
+        items[length] = violation;
+        indexAt(length);
+        length++;
+        return true;
+    }
+
+    synchronized GeneralViolation get(int position) {
+        return items[position];
+    }
+
+    /** 前 limit 筆中是否有與 violation 相等者 */
+    synchronized boolean contains(GeneralViolation violation, int limit) {
+        int[] bucket = index.get(keyHash(violation));
+        if (bucket == null) {
+            return false;
+        }
+        for (int i = 1; i <= bucket[0] && bucket[i] < limit; i++) {
+            if (violation.sameForDedup(items[bucket[i]])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void indexAt(int position) {
+        int[] bucket = index.computeIfAbsent(keyHash(items[position]), key -> new int[2]);
+        if (bucket[0] + 1 == bucket.length) {
+            bucket = Arrays.copyOf(bucket, bucket.length * 2);
+            index.put(keyHash(items[position]), bucket);
+        }
+        bucket[++bucket[0]] = position;
+    }
+
+    private static int keyHash(GeneralViolation violation) {
+        return violation.dedupHashCode();
+    }
+}
@@ -4,36 +4,54 @@ import org.dotspace.oofp.enumeration.stepcontext.ViolationSeverity;
 import org.dotspace.oofp.utils.dsl.Joinable;
 import org.dotspace.oofp.utils.builder.GeneralBuilders;
 import org.dotspace.oofp.utils.builder.operation.WriteOperations;
-import org.dotspace.oofp.utils.functional.Functions;
 import org.dotspace.oofp.utils.functional.monad.Maybe;
 import org.dotspace.oofp.utils.functional.monad.validation.Validation;
 
-import lombok.*;
+import lombok.NonNull;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.commons.lang3.exception.ExceptionUtils;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 /**
  * Represents a collection of violations that can be joined together.
  * Provides methods to create violations, join them, and convert them to validations.
+ * <p>
+ * Backed by an append-only {@link ViolationLog} shared between instances, so joining m violations
+ * onto an accumulated Violations costs O(m) instead of rescanning the whole collection.
+ * Each instance also keeps per-severity counts, so severity checks do not walk the violations.
+ * Violations added to an instance should not be mutated afterwards, except for {@link #tagStep(String)}.
  */
-@ToString
-@Getter
 public class Violations implements Joinable<Violations> {
 
-    private Collection<GeneralViolation> violationCollection = new ArrayList<>();
+    private static final int[] NO_COUNTS = new int[ViolationSeverity.values().length];
 
-    private Violations() {
+    private final ViolationLog log;
+    private final int size;
+    private final int[] severityCounts; // 依 ViolationSeverity.ordinal() 計數，不可修改
+
+    private int hash;
+
+    private Violations(ViolationLog log, int size, int[] severityCounts) {
+        this.log = log;
+        this.size = size;
+        this.severityCounts = severityCounts;
     }
 
     public static Violations from(Collection<GeneralViolation> violations) {
-        Violations result = initialize();
-        result.violationCollection.addAll(violations);
-        return result;
+        ViolationLog log = new ViolationLog();
+        int[] counts = new int[NO_COUNTS.length];
+        int size = 0;
+        for (GeneralViolation violation : violations) {
+            log.tryAppend(size++, violation);
+            counts[violation.getSeverity().ordinal()]++;
+        }
+        return new Violations(log, size, counts);
     }
 
     /**
@@ -50,6 +68,30 @@ public class Violations implements Joinable<Violations> {
                 .build());
     }
 
+    /**
+     * Creates a violation whose message is produced only when it is first read
+     * (collectMessages, associateMessage, serialization or logging).
+     *
+     * @param validationName the name of the validation
+     * @param message        supplies the message for the violation
+     * @return a Violations instance containing the created violation
+     */
+    public static Violations violate(String validationName, @NonNull Supplier<String> message) {
+        return Violations.of(GeneralViolation.violate(validationName, message));
+    }
+
+    /**
+     * Creates a violation whose message is rendered with {@link String#format} only when it is first read.
+     *
+     * @param validationName the name of the validation
+     * @param template       the {@link String#format} template
+     * @param args           the template arguments
+     * @return a Violations instance containing the created violation
+     */
+    public static Violations violate(String validationName, @NonNull String template, Object... args) {
+        return violate(validationName, DeferredMessages.format(template, args));
+    }
+
     /**
      * Creates a Violations instance containing the specified GeneralViolation.
      *
@@ -57,106 +99,305 @@ public class Violations implements Joinable<Violations> {
      * @return a Violations instance containing the specified violation
      */
     public static Violations of(GeneralViolation violation) {
-        Violations result = initialize();
-        result.violationCollection.add(violation);
+        return empty().append(violation);
+    }
 
-        return result;
+    public static Violations empty() {
+        return new Violations(new ViolationLog(), 0, NO_COUNTS);
     }
 
-    private static Violations initialize() {
-        Violations result = new Violations();
-        result.violationCollection = new ArrayList<>();
+    /**
+     * 合併 other 中尚未出現在目前 Violations 的項目（以 GeneralViolation.equals 判斷），保留 other 的順序。
+     * 目前 Violations 不會被修改。
+     */
+    @Override
+    public Violations join(Violations other) {
+        if (other.isEmpty()) {
+            return this;
+        }
+
+        Violations result = this;
+        for (int i = 0; i < other.size; i++) {
+            GeneralViolation violation = other.log.get(i);
+            if (!log.contains(violation, size)) {
+                result = result.append(violation);
+            }
+        }
         return result;
     }
 
-    public static Violations empty() {
-        return initialize();
+    /**
+     * 可變的累加器：add 的語意同 join，但不為每次合併建立新的 Violations，只在 freeze 時產生結果。
+     */
+    @Override
+    public Accumulator<Violations> accumulator() {
+        return new ViolationsAccumulator(this);
     }
 
-    @Override
-    public Violations join(Violations other) {
-        return Violations.from(Maybe.just(violationCollection)
-                .fold(Functions.addAll(other.violationCollection.stream()
-                        .filter(Predicate.not(violationCollection::contains))
-                        .toList()), Collections::emptyList));
+    private static final class ViolationsAccumulator implements Accumulator<Violations> {
+
+        private ViolationLog log;
+        private int size;
+        private final int[] counts;
+
+        private ViolationsAccumulator(Violations initial) {
+            this.log = initial.log;
+            this.size = initial.size;
+            this.counts = initial.severityCounts.clone();
+        }
+
+        @Override
+        public Accumulator<Violations> add(Violations other) {
+            int limit = size;
+            for (int i = 0; i < other.size; i++) {
+                GeneralViolation violation = other.log.get(i);
+                if (log.contains(violation, limit)) {
+                    continue;
+                }
+                if (!log.tryAppend(size, violation)) {
+                    log = ViolationLog.copyOf(log, size);
+                    log.tryAppend(size, violation);
+                }
+                size++;
+                counts[violation.getSeverity().ordinal()]++;
+            }
+            return this;
+        }
+
+        @Override
+        public Violations freeze() {
+            return new Violations(log, size, counts.clone());
+        }
+    }
+
+    /** 就地附加到共用的 log；若 log 已被其他分支附加，先複製前綴 */
+    private Violations append(GeneralViolation violation) {
+        int[] counts = severityCounts.clone();
+        counts[violation.getSeverity().ordinal()]++;
+        if (log.tryAppend(size, violation)) {
+            return new Violations(log, size + 1, counts);
+        }
+        ViolationLog copy = ViolationLog.copyOf(log, size);
+        copy.tryAppend(size, violation);
+        return new Violations(copy, size + 1, counts);
+    }
+
+    /**
+     * 單次走訪保留符合 predicate 的項目；全部保留時回傳目前 Violations，不另外配置。
+     */
+    public Violations filter(@NonNull Predicate<GeneralViolation> predicate) {
+        ViolationLog kept = null;
+        int[] counts = new int[NO_COUNTS.length];
+        int keptSize = 0;
+        for (int i = 0; i < size; i++) {
+            GeneralViolation violation = log.get(i);
+            if (!predicate.test(violation)) {
+                if (kept == null) {
+                    kept = ViolationLog.copyOf(log, keptSize);
+                }
+                continue;
+            }
+            if (kept != null) {
+                kept.tryAppend(keptSize, violation);
+            }
+            keptSize++;
+            counts[violation.getSeverity().ordinal()]++;
+        }
+        return kept == null ? this : new Violations(kept, keptSize, counts);
+    }
+
+    /** 指定 severity 的項目數，O(1) */
+    public int countOf(@NonNull ViolationSeverity severity) {
+        return severityCounts[severity.ordinal()];
+    }
+
+    /** ordinal 大於等於 level 的項目數（與 StepContext.hasSevereThan 的比較方式相同） */
+    public int countAtLeast(@NonNull ViolationSeverity level) {
+        int count = 0;
+        for (int i = level.ordinal(); i < severityCounts.length; i++) {
+            count += severityCounts[i];
+        }
+        return count;
+    }
+
+    public boolean contains(GeneralViolation violation) {
+        return violation != null && log.contains(violation, size);
+    }
+
+    /** 唯讀檢視 */
+    public Collection<GeneralViolation> getViolationCollection() {
+        return new AbstractList<>() {
+            @Override
+            public GeneralViolation get(int index) {
+                Objects.checkIndex(index, size);
+                return log.get(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof GeneralViolation violation && Violations.this.contains(violation);
+            }
+        };
     }
 
     public Stream<GeneralViolation> stream() {
-        return violationCollection.stream();
+        return IntStream.range(0, size).mapToObj(log::get);
     }
 
     public boolean isEmpty() {
-        return violationCollection.isEmpty();
+        return size == 0;
     }
 
     public void tagStep(String stepName) {
-        this.violationCollection.forEach(v -> v.setStepName(stepName));
+        stream().forEach(v -> v.setStepName(stepName));
     }
 
     public <T> Validation<Violations, StepContext<T>> toValidation(StepContext<T> stepContext) {
-        return violationCollection.isEmpty() ? Validation.valid(stepContext) : Validation.invalid(this);
+        return isEmpty() ? Validation.valid(stepContext) : Validation.invalid(this);
     }
 
+    /**
+     * 例外轉為 violation：訊息與 stack trace 都延遲到讀取時才產生，stack trace 依 {@link StackTraces} 的策略擷取。
+     */
     public static <T> Validation<Violations, StepContext<T>> getInvalidValidation(String resultName, Throwable e) {
+        List<Supplier<String>> messages = new ArrayList<>(2);
+        messages.add(() -> Maybe.given(e.getMessage()).orElse("exception message is null"));
+        StackTraces.capture(e).match(messages::add);
+
         return Validation.invalid(Violations.of(GeneralBuilders.supply(GeneralViolation::new)
                 .with(WriteOperations.set(GeneralViolation::setValidationName, resultName))
-                .with(WriteOperations.set(
-                        GeneralViolation::setMessages, List.of(Maybe.given(e.getMessage())
-                                .orElse("exception message is null"), ExceptionUtils.getStackTrace(e))
-                ))
+                .with(WriteOperations.set(GeneralViolation::setMessages, DeferredMessages.of(messages)))
                 .build())
         );
     }
 
     public String getSize() {
-        return String.valueOf(violationCollection.size());
+        return String.valueOf(size);
     }
 
     public String collectMessages() {
-        return violationCollection.stream()
-                .map(vio -> String.format("%s -> %s%s", vio.getValidationName(), vio.getMessages(),
-                        Maybe.given(vio.getSeverity())
-                                .filter(Predicate.not(ViolationSeverity.UNSPECIFIED::equals))
-                                .map(severity -> " (" + severity + ")")
-                                .orElse(StringUtils.EMPTY)))
-                .collect(Collectors.joining("\n"));
+        StringBuilder sb = new StringBuilder();
+        try {
+            appendMessages(sb);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return sb.toString();
     }
 
+    /**
+     * 同 collectMessages，但直接寫入 out（例如 log 的 Writer），不建立中間字串。
+     * 每行格式為 "validationName -> [訊息1, 訊息2]"，severity 有指定時附加 " (SEVERITY)"。
+     */
+    public void appendMessages(@NonNull Appendable out) throws IOException {
+        for (int i = 0; i < size; i++) {
+            GeneralViolation violation = log.get(i);
+            if (i > 0) {
+                out.append('\n');
+            }
+            out.append(String.valueOf(violation.getValidationName())).append(" -> ");
+            if (violation.getMessages() == null) {
+                out.append("null");
+            } else {
+                out.append('[');
+                GeneralViolation.appendJoined(violation.getMessages(), ", ", out);
+                out.append(']');
+            }
+            if (violation.getSeverity() != ViolationSeverity.UNSPECIFIED) {
+                out.append(" (").append(violation.getSeverity().name()).append(')');
+            }
+        }
+    }
+
+    /**
+     * 依序比較 validationName、messages 與 severity（即 collectMessages 的內容），不組字串。
+     */
     @Override
     public boolean equals(Object o) {
+        if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Violations that = (Violations) o;
-        return Objects.equals(collectMessages(), that.collectMessages());
+        if (size != that.size || hashCode() != that.hashCode()) {
+            return false;
+        }
+        if (log == that.log) {
+            return true;
+        }
+        for (int i = 0; i < size; i++) {
+            GeneralViolation left = log.get(i);
+            GeneralViolation right = that.log.get(i);
+            if (!Objects.equals(left.getValidationName(), right.getValidationName())
+                    || !Objects.equals(left.getMessages(), right.getMessages())
+                    || left.getSeverity() != right.getSeverity()) {
+                return false;
+            }
+        }
+        return true;
     }
 
+    /** 結構雜湊只計算一次；內容不變（見類別說明），因此可快取 */
     @Override
     public int hashCode() {
-        return Objects.hashCode(collectMessages());
+        int h = hash;
+        if (h == 0 && size > 0) {
+            h = 1;
+            for (int i = 0; i < size; i++) {
+                GeneralViolation violation = log.get(i);
+                h = 31 * h + Objects.hash(violation.getValidationName(), violation.getMessages(),
+                        violation.getSeverity());
+            }
+            hash = h;
+        }
+        return h;
     }
 
+    @Override
+    public String toString() {
+        return "Violations(violationCollection=" + getViolationCollection() + ")";
+    }
+
+    /**
+     * 以 validationName 彙整訊息，同名者以換行串接；每個名稱只組一次字串。
+     */
     public Map<String, String> associateMessage() {
-        return violationCollection.stream()
-                .collect(Collectors.toMap(GeneralViolation::getValidationName,
-                        v -> StringUtils.join(v.getMessages(), "\n"),
-                        (l, r) -> StringUtils.join(l, "\n", r), HashMap::new));
+        Map<String, StringBuilder> joined = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            GeneralViolation violation = log.get(i);
+            StringBuilder sb = joined.get(violation.getValidationName());
+            if (sb == null) {
+                sb = new StringBuilder();
+                joined.put(violation.getValidationName(), sb);
+            } else {
+                sb.append('\n');
+            }
+            List<String> messages = violation.getMessages();
+            for (int j = 0; j < messages.size(); j++) {
+                sb.append(j > 0 ? "\n" : StringUtils.EMPTY).append(Objects.toString(messages.get(j), StringUtils.EMPTY));
+            }
+        }
+
+        Map<String, String> result = new HashMap<>(Math.max(4, joined.size() * 2));
+        joined.forEach((name, sb) -> result.put(name, sb.toString()));
+        return result;
     }
 
     public boolean messagesContains(String keyword) {
-        if (StringUtils.isBlank(keyword) || null == violationCollection) {
+        if (StringUtils.isBlank(keyword)) {
             return false;
         }
 
-        return violationCollection.stream().anyMatch(
+        return stream().anyMatch(
                 gv -> gv.getMessages().stream().anyMatch(msg -> msg.contains(keyword))
         );
     }
 
     public boolean namesAnyMatch(@NonNull Predicate<String> namePredicate) {
-        if (null == violationCollection) {
-            return false;
-        }
-
-        return violationCollection.stream().anyMatch(
+        return stream().anyMatch(
                 gv -> namePredicate.test(gv.getValidationName())
         );
     }
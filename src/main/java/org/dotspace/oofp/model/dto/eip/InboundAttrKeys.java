@@ -10,6 +10,9 @@ import lombok.experimental.UtilityClass;
 import java.util.List;
 import java.util.Map;
 
+/**
+ * Inbound 流程每則訊息都會讀寫的 attributes，皆配置固定槽位（AttrKey.slotted）。
+ */
 @UtilityClass
 public final class InboundAttrKeys {
 
@@ -18,43 +21,43 @@ public final class InboundAttrKeys {
      * ⚠️ 僅第一層 translator 寫入，其後只讀
      */
     public static final AttrKey<InboundEnvelope<?>> ENVELOPE =
-            AttrKey.of("inbound.envelope", new TypeReference<>() {
+            AttrKey.slotted("inbound.envelope", new TypeReference<>() {
             });
 
     /**
      * Inbound source 類型（HTTP / MQ / FILE）
      */
-    public static final AttrKey<InboundEnvelope.InboundSource> SOURCE = AttrKey.of(
+    public static final AttrKey<InboundEnvelope.InboundSource> SOURCE = AttrKey.slotted(
             "inbound.source", new TypeReference<>() {});
 
     /**
      * sourceId（URI / topic / file path）
      */
-    public static final AttrKey<String> SOURCE_ID = AttrKey.of(
+    public static final AttrKey<String> SOURCE_ID = AttrKey.slotted(
             "inbound.sourceId", new TypeReference<>() {});
 
     /**
      * 正規化後的 meta（已套白名單、rename、sanitize）
      */
-    public static final AttrKey<Map<String, String>> META = AttrKey.of
+    public static final AttrKey<Map<String, String>> META = AttrKey.slotted
             ("inbound.meta", new TypeReference<>() {});
 
-    public static final AttrKey<MessageClaims> CLAIMS = AttrKey.of(
+    public static final AttrKey<MessageClaims> CLAIMS = AttrKey.slotted(
             "inbound.message.claims", new TypeReference<>() {});
 
-    public static final AttrKey<List<QuerySpec>> QUERY_SPEC_LIST = AttrKey.of(
+    public static final AttrKey<List<QuerySpec>> QUERY_SPEC_LIST = AttrKey.slotted(
             "interchange.query", new TypeReference<>() {});
 
-    public static final AttrKey<MessageStatus> STATUS = AttrKey.of(
+    public static final AttrKey<MessageStatus> STATUS = AttrKey.slotted(
             "inbound.message.status", new TypeReference<>() {});
 
-    public static final AttrKey<List<Failure>> FAILURES = AttrKey.of(
+    public static final AttrKey<List<Failure>> FAILURES = AttrKey.slotted(
             "inbound.message.failures", new TypeReference<>() {});
 
-    public static final AttrKey<ControlDecision> NEXT_DECISION = AttrKey.of(
+    public static final AttrKey<ControlDecision> NEXT_DECISION = AttrKey.slotted(
             "inbound.message.control.next-decision", new TypeReference<>() {});
 
-    public static final AttrKey<AuthContext> AUTH_CONTEXT = AttrKey.of(
+    public static final AttrKey<AuthContext> AUTH_CONTEXT = AttrKey.slotted(
             "inbound.auth.context", new TypeReference<>() {});
 
 }
@@ -1,9 +1,11 @@
 package org.dotspace.oofp.model.dto.eip;
 
 import org.dotspace.oofp.utils.dsl.BehaviorStep;
+import org.dotspace.oofp.utils.dsl.pipeline.BehaviorPipeline;
 
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.Executor;
 
 public record StatefulGate<T>(
         List<BehaviorStep<T>> steps) {
@@ -14,4 +16,16 @@ public record StatefulGate<T>(
                 .toList());
     }
 
+    /**
+     * 同 step()，但依各 Step 宣告的 AttrKey 讀寫排程：
+     * 互不相依者（例如 bindAuthContext、observeStatus、bindQuerySpec）在 executor 上平行執行。
+     */
+    public BehaviorStep<T> scheduledStep(Executor executor) {
+        BehaviorPipeline<T> pipeline = BehaviorPipeline.steps();
+        steps.stream()
+                .filter(Objects::nonNull)
+                .forEach(pipeline::with);
+        return pipeline.schedule(executor).asStep();
+    }
+
 }
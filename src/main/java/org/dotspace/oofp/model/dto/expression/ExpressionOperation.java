@@ -37,7 +37,7 @@ public record ExpressionOperation(String expression, ExpressionEvaluations expre
             return Maybe.given(expressionEvaluations.evaluate(expression))
                     .toValidation(Violations.violate(
                             "expression.evaluation.error",
-                            "Failed to evaluate expression: " + expression));
+                            () -> "Failed to evaluate expression: " + expression));
         } catch (RuntimeException e) {
             log.error("Expression evaluation error for expression: {}", expression, e);
             return Validation.invalid(Violations.violate("expression.evaluation.exception",
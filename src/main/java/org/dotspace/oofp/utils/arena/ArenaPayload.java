@@ -0,0 +1,91 @@
+package org.dotspace.oofp.utils.arena;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * 由 {@link PayloadArena} 配置、以參考計數管理的 payload。
+ * <pre>
+ * - 建立時計數為 1；交給其他持有者前 retain，用完 release（或 close）
+ * - 計數歸零時 buffer 回到 arena，之後的存取丟出 IllegalStateException
+ * - 放進 StepContext（withResource）後，由 BehaviorPipeline.apply 結束時統一 release
+ * </pre>
+ * 釋放前取得的 {@link #buffer()} 視圖在釋放後不可再使用，內容可能已被其他 payload 覆寫。
+ */
+public final class ArenaPayload implements AutoCloseable {
+
+    private final PayloadArena arena;
+    private final ByteBuffer buffer;
+    private final int length;
+    private final AtomicInteger refCount = new AtomicInteger(1);
+
+    ArenaPayload(PayloadArena arena, ByteBuffer buffer, int length) {
+        this.arena = arena;
+        this.buffer = buffer;
+        this.length = length;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public int refCount() {
+        return refCount.get();
+    }
+
+    /** 唯讀視圖，position 0、limit 為 payload 長度 */
+    public ByteBuffer buffer() {
+        ensureLive();
+        return buffer.duplicate().position(0).limit(length).slice().asReadOnlyBuffer();
+    }
+
+    /** 以 reader 讀取內容，例如交給 parser 直接解析 direct buffer */
+    public <R> R read(Function<ByteBuffer, R> reader) {
+        return reader.apply(buffer());
+    }
+
+    /** 複製到 heap；只在必須取得 byte[] 的 API 使用 */
+    public byte[] toByteArray() {
+        byte[] bytes = new byte[length];
+        buffer().get(bytes);
+        return bytes;
+    }
+
+    public ArenaPayload retain() {
+        refCount.updateAndGet(count -> {
+            if (count <= 0) {
+                throw new IllegalStateException("arena payload already released");
+            }
+            return count + 1;
+        });
+        return this;
+    }
+
+    /** @return 這次呼叫是否使計數歸零並歸還 buffer */
+    public boolean release() {
+        int remaining = refCount.updateAndGet(count -> {
+            if (count <= 0) {
+                throw new IllegalStateException("arena payload already released");
+            }
+            return count - 1;
+        });
+        if (remaining == 0) {
+            arena.recycle(buffer);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void close() {
+        release();
+    }
+
+    private void ensureLive() {
+        if (refCount.get() <= 0) {
+            throw new IllegalStateException("arena payload already released");
+        }
+    }
+
+}
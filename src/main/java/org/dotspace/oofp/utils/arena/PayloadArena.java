@@ -0,0 +1,101 @@
+package org.dotspace.oofp.utils.arena;
+
+import lombok.NonNull;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+/**
+ * 以 direct ByteBuffer 存放大型 payload 的 arena：依 2 的次方分級重複使用 buffer，不經過 Java heap。
+ * <pre>
+ * - 取得的 {@link ArenaPayload} 採參考計數，最後一次 release 時 buffer 回到 arena 的分級池
+ * - 池中保留的總容量不超過 retainLimitBytes，超過時直接丟棄（交由 GC 回收 direct memory）
+ * - 最小分級 4 KiB；超過 1 GiB 的 payload 不支援
+ * </pre>
+ */
+public final class PayloadArena {
+
+    private static final int MIN_SHIFT = 12;
+    private static final int MAX_SHIFT = 30;
+
+    private final long retainLimitBytes;
+
+    private final List<Queue<ByteBuffer>> pools;
+
+    private final AtomicLong retainedBytes = new AtomicLong();
+    private final LongAdder allocated = new LongAdder();
+    private final LongAdder reused = new LongAdder();
+
+    private PayloadArena(long retainLimitBytes) {
+        this.retainLimitBytes = retainLimitBytes;
+        this.pools = IntStream.rangeClosed(MIN_SHIFT, MAX_SHIFT)
+                .<Queue<ByteBuffer>>mapToObj(shift -> new ConcurrentLinkedQueue<>())
+                .toList();
+    }
+
+    public static PayloadArena create(long retainLimitBytes) {
+        if (retainLimitBytes < 0) {
+            throw new IllegalArgumentException("retainLimitBytes must not be negative: " + retainLimitBytes);
+        }
+        return new PayloadArena(retainLimitBytes);
+    }
+
+    /** 複製 source 剩餘的內容（不移動 source 的 position） */
+    public ArenaPayload copyOf(@NonNull ByteBuffer source) {
+        int length = source.remaining();
+        ByteBuffer buffer = acquire(length);
+        buffer.put(source.duplicate());
+        return new ArenaPayload(this, buffer, length);
+    }
+
+    public ArenaPayload copyOf(byte @NonNull [] bytes) {
+        return copyOf(ByteBuffer.wrap(bytes));
+    }
+
+    public Stats stats() {
+        return new Stats(allocated.sum(), reused.sum(), retainedBytes.get());
+    }
+
+    private ByteBuffer acquire(int length) {
+        int index = classOf(length);
+        ByteBuffer pooled = pools.get(index).poll();
+        if (pooled != null) {
+            retainedBytes.addAndGet(-pooled.capacity());
+            reused.increment();
+            return pooled.clear();
+        }
+        allocated.increment();
+        return ByteBuffer.allocateDirect(1 << (index + MIN_SHIFT));
+    }
+
+    void recycle(ByteBuffer buffer) {
+        long capacity = buffer.capacity();
+        if (retainedBytes.addAndGet(capacity) > retainLimitBytes) {
+            retainedBytes.addAndGet(-capacity);
+            return;
+        }
+        pools.get(classOf(buffer.capacity())).offer(buffer);
+    }
+
+    private static int classOf(int length) {
+        int shift = Math.max(MIN_SHIFT, 32 - Integer.numberOfLeadingZeros(Math.max(1, length) - 1));
+        if (shift > MAX_SHIFT) {
+            throw new IllegalArgumentException("payload too large for arena: " + length);
+        }
+        return shift - MIN_SHIFT;
+    }
+
+    /**
+     * @param allocated     新配置的 direct buffer 數
+     * @param reused        由池中取回重複使用的次數
+     * @param retainedBytes 目前池中保留的總容量
+     */
+    public record Stats(long allocated, long reused, long retainedBytes) {
+    }
+
+}
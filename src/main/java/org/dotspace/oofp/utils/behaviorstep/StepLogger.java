@@ -2,7 +2,9 @@ package org.dotspace.oofp.utils.behaviorstep;
 
 import org.dotspace.oofp.utils.dsl.BehaviorStep;
 import org.dotspace.oofp.model.dto.behaviorstep.Violations;
+import org.dotspace.oofp.utils.dsl.pipeline.metrics.ViolationHeavyHitters;
 
+import lombok.NonNull;
 import lombok.experimental.UtilityClass;
 
 import java.util.function.Consumer;
@@ -12,10 +14,25 @@ public class StepLogger {
 
     public static <T> BehaviorStep<T> tagAndLogOnError(
             String stepName, BehaviorStep<T> step, Consumer<Violations> logger) {
-        return step.peekOnError(violations -> {
+        return BehaviorStep.named(stepName, step.peekOnError(violations -> {
             violations.tagStep(stepName);
             logger.accept(violations);
-        });
+        }));
+    }
+
+    /**
+     * 同 {@link #tagAndLogOnError(String, BehaviorStep, Consumer)}，並在交給 logger 前計入 violationStats。
+     * 大量流量下 logger 可只做抽樣，熱門 violation 由 violationStats.topK() 查詢。
+     * 若所在的 pipeline 已以 withViolationStats 記錄同一個實例，不需再用此版本，否則會重複計數。
+     */
+    public static <T> BehaviorStep<T> tagAndLogOnError(
+            String stepName, BehaviorStep<T> step, Consumer<Violations> logger,
+            @NonNull ViolationHeavyHitters violationStats) {
+        return BehaviorStep.named(stepName, step.peekOnError(violations -> {
+            violations.tagStep(stepName);
+            violationStats.record(violations, stepName);
+            logger.accept(violations);
+        }));
     }
 
 }
@@ -0,0 +1,13 @@
+package org.dotspace.oofp.utils.codec;
+
+/**
+ * 單一型別的二進位編解碼：直接寫入 / 讀出 ByteBuffer，不建立中間物件樹。
+ * 格式錯誤時 read 丟出 IllegalArgumentException 或 BufferUnderflowException。
+ */
+public interface BinaryCodec<T> {
+
+    void write(T value, BinaryWriter out);
+
+    T read(BinaryReader in);
+
+}
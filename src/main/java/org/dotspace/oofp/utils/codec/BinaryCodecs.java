@@ -0,0 +1,300 @@
+package org.dotspace.oofp.utils.codec;
+
+import org.dotspace.oofp.model.dto.behaviorstep.GeneralViolation;
+import org.dotspace.oofp.model.dto.behaviorstep.Violations;
+import org.dotspace.oofp.model.dto.eip.InboundEnvelope;
+
+import lombok.NonNull;
+import lombok.experimental.UtilityClass;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 常用的 {@link BinaryCodec}：字串、bytes、Violations、GeneralViolation、InboundEnvelope，
+ * 以及 attributes / options 使用的自帶型別標記的值（{@link #value()}）。
+ */
+@UtilityClass
+public class BinaryCodecs {
+
+    private static final int TAG_NULL = 0;
+    private static final int TAG_STRING = 1;
+    private static final int TAG_BOOLEAN = 2;
+    private static final int TAG_INT = 3;
+    private static final int TAG_LONG = 4;
+    private static final int TAG_DOUBLE = 5;
+    private static final int TAG_INSTANT = 6;
+    private static final int TAG_BYTES = 7;
+    private static final int TAG_ENUM = 8;
+    private static final int TAG_LIST = 9;
+    private static final int TAG_MAP = 10;
+
+    private static final BinaryCodec<String> STRING = new BinaryCodec<>() {
+        @Override
+        public void write(String value, BinaryWriter out) {
+            out.writeString(value);
+        }
+
+        @Override
+        public String read(BinaryReader in) {
+            return in.readString();
+        }
+    };
+
+    private static final BinaryCodec<byte[]> BYTES = new BinaryCodec<>() {
+        @Override
+        public void write(byte[] value, BinaryWriter out) {
+            out.writeBytes(value);
+        }
+
+        @Override
+        public byte[] read(BinaryReader in) {
+            return in.readBytes();
+        }
+    };
+
+    private static final BinaryCodec<Object> VALUE = new BinaryCodec<>() {
+        @Override
+        public void write(Object value, BinaryWriter out) {
+            writeValue(value, out);
+        }
+
+        @Override
+        public Object read(BinaryReader in) {
+            return readValue(in);
+        }
+    };
+
+    private static final BinaryCodec<GeneralViolation> GENERAL_VIOLATION = new BinaryCodec<>() {
+        @Override
+        public void write(GeneralViolation value, BinaryWriter out) {
+            out.writeString(value.getValidationName());
+            out.writeString(value.getStepName());
+            List<String> messages = value.getMessages();
+            out.writeVarInt(messages == null ? -1 : messages.size());
+            if (messages != null) {
+                messages.forEach(out::writeString);
+            }
+            out.writeVarInt(value.getOptions().size());
+            value.getOptions().forEach((name, option) -> {
+                out.writeString(name);
+                writeValue(option, out);
+            });
+        }
+
+        @Override
+        public GeneralViolation read(BinaryReader in) {
+            GeneralViolation violation = new GeneralViolation();
+            violation.setValidationName(in.readString());
+            violation.setStepName(in.readString());
+            int messageCount = in.readLength();
+            if (messageCount >= 0) {
+                List<String> messages = new ArrayList<>(messageCount);
+                for (int i = 0; i < messageCount; i++) {
+                    messages.add(in.readString());
+                }
+                violation.setMessages(messages);
+            }
+            int optionCount = in.readLength();
+            for (int i = 0; i < optionCount; i++) {
+                violation.getOptions().put(in.readString(), readValue(in));
+            }
+            return violation;
+        }
+    };
+
+    private static final BinaryCodec<Violations> VIOLATIONS = new BinaryCodec<>() {
+        @Override
+        public void write(Violations value, BinaryWriter out) {
+            out.writeVarInt(value.getViolationCollection().size());
+            value.getViolationCollection().forEach(violation -> GENERAL_VIOLATION.write(violation, out));
+        }
+
+        @Override
+        public Violations read(BinaryReader in) {
+            int count = in.readLength();
+            List<GeneralViolation> violations = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                violations.add(GENERAL_VIOLATION.read(in));
+            }
+            return Violations.from(violations);
+        }
+    };
+
+    public BinaryCodec<String> string() {
+        return STRING;
+    }
+
+    public BinaryCodec<byte[]> bytes() {
+        return BYTES;
+    }
+
+    public BinaryCodec<GeneralViolation> generalViolation() {
+        return GENERAL_VIOLATION;
+    }
+
+    public BinaryCodec<Violations> violations() {
+        return VIOLATIONS;
+    }
+
+    /**
+     * 自帶型別標記的值：null、String、Boolean、Integer、Long、Double、Instant、byte[]、Enum，
+     * 以及由這些值組成的 List 與 String key 的 Map。其他型別於寫入時丟出 IllegalArgumentException。
+     */
+    public BinaryCodec<Object> value() {
+        return VALUE;
+    }
+
+    /** 可為 null 的值：前置 1 byte 的存在標記 */
+    public <T> BinaryCodec<T> nullable(@NonNull BinaryCodec<T> codec) {
+        return new BinaryCodec<>() {
+            @Override
+            public void write(T value, BinaryWriter out) {
+                out.writeBoolean(value != null);
+                if (value != null) {
+                    codec.write(value, out);
+                }
+            }
+
+            @Override
+            public T read(BinaryReader in) {
+                return in.readBoolean() ? codec.read(in) : null;
+            }
+        };
+    }
+
+    /**
+     * InboundEnvelope：source 以名稱保存（enum 調整順序不影響），payload 交給 payloadCodec（可為 null）。
+     */
+    public <P> BinaryCodec<InboundEnvelope<P>> envelope(@NonNull BinaryCodec<P> payloadCodec) {
+        BinaryCodec<P> payload = nullable(payloadCodec);
+        return new BinaryCodec<>() {
+            @Override
+            public void write(InboundEnvelope<P> value, BinaryWriter out) {
+                out.writeString(value.source() == null ? null : value.source().name());
+                out.writeString(value.sourceId());
+                writeStringMap(value.meta(), out);
+                payload.write(value.payload(), out);
+                out.writeInstant(value.receivedAt());
+            }
+
+            @Override
+            public InboundEnvelope<P> read(BinaryReader in) {
+                String source = in.readString();
+                String sourceId = in.readString();
+                Map<String, String> meta = readStringMap(in);
+                P body = payload.read(in);
+                Instant receivedAt = in.readInstant();
+                return new InboundEnvelope<>(source == null ? null : InboundEnvelope.InboundSource.valueOf(source),
+                        sourceId, meta, body, receivedAt);
+            }
+        };
+    }
+
+    private void writeStringMap(Map<String, String> map, BinaryWriter out) {
+        out.writeVarInt(map == null ? -1 : map.size());
+        if (map != null) {
+            map.forEach((key, value) -> {
+                out.writeString(key);
+                out.writeString(value);
+            });
+        }
+    }
+
+    private Map<String, String> readStringMap(BinaryReader in) {
+        int size = in.readLength();
+        if (size < 0) {
+            return null;
+        }
+        Map<String, String> map = new LinkedHashMap<>(Math.max(4, size * 2));
+        for (int i = 0; i < size; i++) {
+            map.put(in.readString(), in.readString());
+        }
+        return map;
+    }
+
+    void writeValue(Object value, BinaryWriter out) {
+        if (value == null) {
+            out.writeByte(TAG_NULL);
+        } else if (value instanceof String s) {
+            out.writeByte(TAG_STRING).writeString(s);
+        } else if (value instanceof Boolean b) {
+            out.writeByte(TAG_BOOLEAN).writeBoolean(b);
+        } else if (value instanceof Integer i) {
+            out.writeByte(TAG_INT).writeVarInt(i);
+        } else if (value instanceof Long l) {
+            out.writeByte(TAG_LONG).writeVarLong(l);
+        } else if (value instanceof Double d) {
+            out.writeByte(TAG_DOUBLE).writeDouble(d);
+        } else if (value instanceof Instant instant) {
+            out.writeByte(TAG_INSTANT).writeInstant(instant);
+        } else if (value instanceof byte[] bytes) {
+            out.writeByte(TAG_BYTES).writeBytes(bytes);
+        } else if (value instanceof Enum<?> e) {
+            out.writeByte(TAG_ENUM).writeString(e.getDeclaringClass().getName()).writeString(e.name());
+        } else if (value instanceof List<?> list) {
+            out.writeByte(TAG_LIST).writeVarInt(list.size());
+            list.forEach(item -> writeValue(item, out));
+        } else if (value instanceof Map<?, ?> map) {
+            out.writeByte(TAG_MAP).writeVarInt(map.size());
+            map.forEach((key, item) -> {
+                if (!(key instanceof String name)) {
+                    throw new IllegalArgumentException("map key must be String: " + key);
+                }
+                out.writeString(name);
+                writeValue(item, out);
+            });
+        } else {
+            throw new IllegalArgumentException("unsupported value type: " + value.getClass().getName());
+        }
+    }
+
+    Object readValue(BinaryReader in) {
+        int tag = in.readByte();
+        return switch (tag) {
+            case TAG_NULL -> null;
+            case TAG_STRING -> in.readString();
+            case TAG_BOOLEAN -> in.readBoolean();
+            case TAG_INT -> in.readVarInt();
+            case TAG_LONG -> in.readVarLong();
+            case TAG_DOUBLE -> in.readDouble();
+            case TAG_INSTANT -> in.readInstant();
+            case TAG_BYTES -> in.readBytes();
+            case TAG_ENUM -> readEnum(in.readString(), in.readString());
+            case TAG_LIST -> {
+                int size = in.readLength();
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(in));
+                }
+                yield list;
+            }
+            case TAG_MAP -> {
+                int size = in.readLength();
+                Map<String, Object> map = new LinkedHashMap<>(Math.max(4, size * 2));
+                for (int i = 0; i < size; i++) {
+                    map.put(in.readString(), readValue(in));
+                }
+                yield map;
+            }
+            default -> throw new IllegalArgumentException("unknown value tag: " + tag);
+        };
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Object readEnum(String className, String constant) {
+        try {
+            Class<?> type = Class.forName(className, false, BinaryCodecs.class.getClassLoader());
+            if (!type.isEnum()) {
+                throw new IllegalArgumentException("not an enum type: " + className);
+            }
+            return Enum.valueOf((Class) type, constant);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalArgumentException("unknown enum type: " + className, e);
+        }
+    }
+
+}
@@ -0,0 +1,103 @@
+package org.dotspace.oofp.utils.codec;
+
+import lombok.NonNull;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+/**
+ * 由 ByteBuffer 目前位置依序讀取 {@link BinaryWriter} 寫入的內容，讀取後 position 前進。
+ */
+public final class BinaryReader {
+
+    private final ByteBuffer buffer;
+
+    private BinaryReader(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    public static BinaryReader from(@NonNull ByteBuffer buffer) {
+        return new BinaryReader(buffer);
+    }
+
+    public boolean hasRemaining() {
+        return buffer.hasRemaining();
+    }
+
+    public int readByte() {
+        return buffer.get();
+    }
+
+    public boolean readBoolean() {
+        return buffer.get() != 0;
+    }
+
+    public int readVarInt() {
+        long value = readVarLong();
+        if (value != (int) value) {
+            throw new IllegalArgumentException("varint out of int range: " + value);
+        }
+        return (int) value;
+    }
+
+    public long readVarLong() {
+        long zigzag = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            zigzag |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return (zigzag >>> 1) ^ -(zigzag & 1);
+            }
+        }
+        throw new IllegalArgumentException("malformed varint");
+    }
+
+    public double readDouble() {
+        return buffer.getDouble();
+    }
+
+    public byte[] readBytes() {
+        int length = readLength();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    public String readString() {
+        int length = readLength();
+        if (length < 0) {
+            return null;
+        }
+        String value;
+        if (buffer.hasArray()) {
+            value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+        } else {
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return value;
+    }
+
+    public Instant readInstant() {
+        if (!readBoolean()) {
+            return null;
+        }
+        return Instant.ofEpochSecond(readVarLong(), readVarInt());
+    }
+
+    /** 集合或字串長度；-1 為 null，超過剩餘 bytes 者視為格式錯誤 */
+    public int readLength() {
+        int length = readVarInt();
+        if (length < -1 || length > buffer.remaining()) {
+            throw new IllegalArgumentException("invalid length: " + length + ", remaining=" + buffer.remaining());
+        }
+        return length;
+    }
+
+}
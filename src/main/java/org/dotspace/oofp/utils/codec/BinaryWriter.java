@@ -0,0 +1,107 @@
+package org.dotspace.oofp.utils.codec;
+
+import lombok.NonNull;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+/**
+ * 寫入 ByteBuffer 的串流式 writer，空間不足時自動換成兩倍大的 buffer。
+ * <pre>
+ * - 整數一律以 varint（zig-zag）編碼，小數值只佔 1 byte
+ * - 字串為 UTF-8，前置 byte 長度；null 以長度 -1 表示
+ * </pre>
+ */
+public final class BinaryWriter {
+
+    private ByteBuffer buffer;
+
+    private BinaryWriter(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    public static BinaryWriter allocate(int initialCapacity) {
+        return new BinaryWriter(ByteBuffer.allocate(Math.max(16, initialCapacity)));
+    }
+
+    /** 從 target 的 position 開始寫入；容量不足時改寫到新的 heap buffer，以 {@link #buffer()} 取得結果 */
+    public static BinaryWriter to(@NonNull ByteBuffer target) {
+        return new BinaryWriter(target);
+    }
+
+    /** 已寫入內容的唯讀視圖（position 0 到目前位置） */
+    public ByteBuffer buffer() {
+        return buffer.duplicate().flip().asReadOnlyBuffer();
+    }
+
+    public int position() {
+        return buffer.position();
+    }
+
+    public BinaryWriter writeByte(int value) {
+        ensure(1);
+        buffer.put((byte) value);
+        return this;
+    }
+
+    public BinaryWriter writeBoolean(boolean value) {
+        return writeByte(value ? 1 : 0);
+    }
+
+    public BinaryWriter writeVarInt(int value) {
+        return writeVarLong(value);
+    }
+
+    public BinaryWriter writeVarLong(long value) {
+        ensure(10);
+        long zigzag = (value << 1) ^ (value >> 63);
+        while ((zigzag & ~0x7FL) != 0) {
+            buffer.put((byte) ((zigzag & 0x7F) | 0x80));
+            zigzag >>>= 7;
+        }
+        buffer.put((byte) zigzag);
+        return this;
+    }
+
+    public BinaryWriter writeDouble(double value) {
+        ensure(Double.BYTES);
+        buffer.putDouble(value);
+        return this;
+    }
+
+    public BinaryWriter writeBytes(byte[] value) {
+        if (value == null) {
+            return writeVarInt(-1);
+        }
+        writeVarInt(value.length);
+        ensure(value.length);
+        buffer.put(value);
+        return this;
+    }
+
+    public BinaryWriter writeString(String value) {
+        return writeBytes(value == null ? null : value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public BinaryWriter writeInstant(Instant value) {
+        writeBoolean(value != null);
+        if (value != null) {
+            writeVarLong(value.getEpochSecond());
+            writeVarInt(value.getNano());
+        }
+        return this;
+    }
+
+    private void ensure(int bytes) {
+        if (buffer.remaining() >= bytes) {
+            return;
+        }
+        int capacity = Math.max(buffer.capacity() * 2, buffer.position() + bytes);
+        ByteBuffer grown = ByteBuffer.allocate(capacity);
+        buffer.flip();
+        grown.put(buffer);
+        buffer = grown;
+    }
+
+}
@@ -0,0 +1,158 @@
+package org.dotspace.oofp.utils.codec;
+
+import org.dotspace.oofp.model.dto.behaviorstep.StepContext;
+import org.dotspace.oofp.model.dto.behaviorstep.StepContextAttributes;
+import org.dotspace.oofp.model.dto.behaviorstep.Violations;
+import org.dotspace.oofp.model.dto.eip.InboundAttrKeys;
+import org.dotspace.oofp.model.dto.eip.InboundEnvelope;
+import org.dotspace.oofp.utils.eip.AttrKey;
+import org.dotspace.oofp.utils.functional.monad.validation.Validation;
+
+import lombok.NonNull;
+
+import java.nio.ByteBuffer;
+import java.nio.BufferUnderflowException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * StepContext 的二進位格式，用於在節點間傳遞進行中的 context，或保存以供重試。
+ * <pre>
+ * - 開頭為格式版本（1 byte），讀取時版本不符即失敗
+ * - payload 交給建立時指定的 codec；violations 與 aborted 一併保存
+ * - attributes 依名稱保存：有以 withAttribute 註冊 codec 者使用該 codec，其餘以 BinaryCodecs.value() 的型別標記保存
+ * - 以 AttrKey 註冊者解碼後寫回該 AttrKey（有槽位者維持已轉型）
+ * </pre>
+ * 無法編碼的 attribute（未註冊且非基本型別）會使 encode 失敗，而不是默默略過；
+ * 只在本機有效的 StepContext.LOCAL_ATTRIBUTES（資源、記憶體上限與記帳）不寫入。
+ */
+public final class StepContextCodec<T> {
+
+    public static final String STEP_CONTEXT_CODEC_WRITE_FAILED = "step-context.codec.write.failed";
+    public static final String STEP_CONTEXT_CODEC_READ_FAILED = "step-context.codec.read.failed";
+
+    static final int VERSION = 1;
+
+    private static final int ATTRIBUTE_VALUE = 0;
+    private static final int ATTRIBUTE_CUSTOM = 1;
+
+    private final BinaryCodec<T> payloadCodec;
+
+    private final Map<String, Registration<?>> registrations = new HashMap<>();
+
+    private StepContextCodec(BinaryCodec<T> payloadCodec) {
+        this.payloadCodec = BinaryCodecs.nullable(payloadCodec);
+    }
+
+    public static <T> StepContextCodec<T> of(@NonNull BinaryCodec<T> payloadCodec) {
+        return new StepContextCodec<>(payloadCodec);
+    }
+
+    /** 為非基本型別的 attribute 指定 codec */
+    public <R> StepContextCodec<T> withAttribute(@NonNull AttrKey<R> attrKey, @NonNull BinaryCodec<R> codec) {
+        registrations.put(attrKey.name(), new Registration<>(attrKey, codec));
+        return this;
+    }
+
+    /** 註冊 InboundAttrKeys.ENVELOPE，envelope 的 payload 交給 payloadCodec */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public <P> StepContextCodec<T> withEnvelope(@NonNull BinaryCodec<P> payloadCodec) {
+        BinaryCodec envelopeCodec = BinaryCodecs.envelope(payloadCodec);
+        return withAttribute(InboundAttrKeys.ENVELOPE, (BinaryCodec<InboundEnvelope<?>>) envelopeCodec);
+    }
+
+    public Validation<Violations, ByteBuffer> encode(@NonNull StepContext<T> stepContext) {
+        try {
+            BinaryWriter out = BinaryWriter.allocate(256);
+            write(stepContext, out);
+            return Validation.valid(out.buffer());
+        } catch (IllegalArgumentException | ClassCastException e) {
+            return Validation.invalid(Violations.violate(STEP_CONTEXT_CODEC_WRITE_FAILED,
+                    String.format("Failed to encode step context => throws %s", e)));
+        }
+    }
+
+    public Validation<Violations, StepContext<T>> decode(@NonNull ByteBuffer buffer) {
+        try {
+            return Validation.valid(read(BinaryReader.from(buffer)));
+        } catch (IllegalArgumentException | BufferUnderflowException e) {
+            return Validation.invalid(Violations.violate(STEP_CONTEXT_CODEC_READ_FAILED,
+                    String.format("Failed to decode step context => throws %s", e)));
+        }
+    }
+
+    /** 串流寫入：接在 out 目前位置之後，可與其他內容串接 */
+    public void write(@NonNull StepContext<T> stepContext, @NonNull BinaryWriter out) {
+        out.writeByte(VERSION);
+        out.writeBoolean(stepContext.isAborted());
+        payloadCodec.write(stepContext.getPayload(), out);
+        BinaryCodecs.violations().write(
+                stepContext.getViolations() == null ? Violations.empty() : stepContext.getViolations(), out);
+
+        Map<String, Object> attributes = StepContextAttributes.copyOf(stepContext);
+        if (StepContext.LOCAL_ATTRIBUTES.stream().anyMatch(attributes::containsKey)) {
+            Map<String, Object> portable = new HashMap<>(attributes);
+            portable.keySet().removeAll(StepContext.LOCAL_ATTRIBUTES);
+            attributes = portable;
+        }
+        out.writeVarInt(attributes.size());
+        attributes.forEach((name, value) -> {
+            out.writeString(name);
+            Registration<?> registration = registrations.get(name);
+            if (registration != null && value != null) {
+                out.writeByte(ATTRIBUTE_CUSTOM);
+                registration.write(value, out);
+            } else {
+                out.writeByte(ATTRIBUTE_VALUE);
+                BinaryCodecs.writeValue(value, out);
+            }
+        });
+    }
+
+    public StepContext<T> read(@NonNull BinaryReader in) {
+        int version = in.readByte();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("unsupported step context format version: " + version);
+        }
+        boolean aborted = in.readBoolean();
+        T payload = payloadCodec.read(in);
+        Violations violations = BinaryCodecs.violations().read(in);
+
+        StepContext<T> context = StepContext.<T>builder()
+                .withPayload(payload)
+                .withViolations(violations)
+                .withAborted(aborted)
+                .build();
+
+        int count = in.readLength();
+        for (int i = 0; i < count; i++) {
+            String name = in.readString();
+            int kind = in.readByte();
+            if (kind == ATTRIBUTE_CUSTOM) {
+                Registration<?> registration = registrations.get(name);
+                if (registration == null) {
+                    throw new IllegalArgumentException("no codec registered for attribute: " + name);
+                }
+                registration.readInto(context, in);
+            } else if (kind == ATTRIBUTE_VALUE) {
+                context.withAttribute(name, BinaryCodecs.readValue(in));
+            } else {
+                throw new IllegalArgumentException("unknown attribute kind: " + kind);
+            }
+        }
+        return context;
+    }
+
+    private record Registration<R>(AttrKey<R> attrKey, BinaryCodec<R> codec) {
+
+        @SuppressWarnings("unchecked")
+        void write(Object value, BinaryWriter out) {
+            codec.write((R) value, out);
+        }
+
+        <T> void readInto(StepContext<T> context, BinaryReader in) {
+            context.withAttribute(attrKey, codec.read(in));
+        }
+    }
+
+}
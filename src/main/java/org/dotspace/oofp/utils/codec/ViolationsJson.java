@@ -0,0 +1,111 @@
+package org.dotspace.oofp.utils.codec;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import org.dotspace.oofp.enumeration.stepcontext.ViolationSeverity;
+import org.dotspace.oofp.model.dto.behaviorstep.GeneralViolation;
+import org.dotspace.oofp.model.dto.behaviorstep.Violations;
+
+import lombok.NonNull;
+import lombok.experimental.UtilityClass;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 以串流方式將 Violations 寫成 JSON：單次走訪，每則訊息直接寫入 JsonGenerator，不先組成中間字串或 Map。
+ * <pre>
+ * [
+ *   {"validationName": "...", "stepName": "...", "severity": "ERROR", "messages": ["..."], "options": {...}}
+ * ]
+ * </pre>
+ * - stepName、severity（UNSPECIFIED 時）與 options（無其他 options 時）省略
+ * - options 的值：字串、數字、布林照原型別輸出，enum 輸出名稱，其他以 toString 輸出
+ */
+@UtilityClass
+public class ViolationsJson {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    public void write(@NonNull Violations violations, @NonNull JsonGenerator gen) throws IOException {
+        gen.writeStartArray();
+        Iterator<GeneralViolation> iterator = violations.stream().iterator();
+        while (iterator.hasNext()) {
+            writeViolation(iterator.next(), gen);
+        }
+        gen.writeEndArray();
+    }
+
+    public void write(@NonNull Violations violations, @NonNull Writer writer) throws IOException {
+        try (JsonGenerator gen = JSON_FACTORY.createGenerator(writer)) {
+            gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            write(violations, gen);
+        }
+    }
+
+    public String toJson(@NonNull Violations violations) {
+        StringWriter writer = new StringWriter();
+        try {
+            write(violations, writer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return writer.toString();
+    }
+
+    private void writeViolation(GeneralViolation violation, JsonGenerator gen) throws IOException {
+        gen.writeStartObject();
+        gen.writeStringField("validationName", violation.getValidationName());
+        if (violation.getStepName() != null) {
+            gen.writeStringField("stepName", violation.getStepName());
+        }
+        if (violation.getSeverity() != ViolationSeverity.UNSPECIFIED) {
+            gen.writeStringField("severity", violation.getSeverity().name());
+        }
+
+        gen.writeArrayFieldStart("messages");
+        List<String> messages = violation.getMessages();
+        if (messages != null) {
+            for (int i = 0; i < messages.size(); i++) {
+                gen.writeString(messages.get(i));
+            }
+        }
+        gen.writeEndArray();
+
+        Map<String, Object> options = violation.getOptions();
+        if (options.size() > (options.containsKey(GeneralViolation.SEVERITY) ? 1 : 0)) {
+            gen.writeObjectFieldStart("options");
+            for (Map.Entry<String, Object> option : options.entrySet()) {
+                if (!GeneralViolation.SEVERITY.equals(option.getKey())) {
+                    gen.writeFieldName(option.getKey());
+                    writeScalar(option.getValue(), gen);
+                }
+            }
+            gen.writeEndObject();
+        }
+        gen.writeEndObject();
+    }
+
+    private void writeScalar(Object value, JsonGenerator gen) throws IOException {
+        if (value == null) {
+            gen.writeNull();
+        } else if (value instanceof Boolean b) {
+            gen.writeBoolean(b);
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short
+                || value instanceof Byte) {
+            gen.writeNumber(((Number) value).longValue());
+        } else if (value instanceof Number number) {
+            gen.writeNumber(number.toString());
+        } else if (value instanceof Enum<?> e) {
+            gen.writeString(e.name());
+        } else {
+            gen.writeString(value.toString());
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package org.dotspace.oofp.utils.dsl;
+
+import org.dotspace.oofp.model.dto.behaviorstep.StepContext;
+import org.dotspace.oofp.model.dto.behaviorstep.Violations;
+import org.dotspace.oofp.utils.functional.monad.validation.Validation;
+
+import lombok.NonNull;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * 非同步版本的 Step：回傳 CompletableFuture，讓 I/O 型的步驟不必佔住呼叫端執行緒。
+ * 所有 {@link BehaviorStep} 都是 AsyncBehaviorStep（以已完成的 future 包裝同步結果）。
+ */
+@FunctionalInterface
+public interface AsyncBehaviorStep<T> {
+
+    CompletableFuture<Validation<Violations, StepContext<T>>> executeAsync(StepContext<T> stepContext);
+
+    static <T> AsyncBehaviorStep<T> of(
+            Function<StepContext<T>, CompletableFuture<Validation<Violations, StepContext<T>>>> function) {
+        return function::apply;
+    }
+
+    /** 將會阻塞的同步 Step 移到指定 executor 執行 */
+    static <T> AsyncBehaviorStep<T> offload(@NonNull BehaviorStep<T> step, @NonNull Executor executor) {
+        return stepContext -> CompletableFuture.supplyAsync(() -> step.execute(stepContext), executor);
+    }
+
+    default AsyncBehaviorStep<T> andThenAsync(@NonNull AsyncBehaviorStep<T> step) {
+        return input -> executeAsync(input)
+                .thenCompose(result -> result.fold(
+                        violations -> CompletableFuture.completedFuture(result),
+                        step::executeAsync));
+    }
+
+    /**
+     * 轉為同步 Step：同步執行時等待結果，非同步執行時仍直接回傳 future。
+     */
+    default BehaviorStep<T> blocking() {
+        return new Blocking<>(this);
+    }
+
+    record Blocking<T>(AsyncBehaviorStep<T> step) implements BehaviorStep<T> {
+
+        @Override
+        public Validation<Violations, StepContext<T>> execute(StepContext<T> stepContext) {
+            try {
+                return step.executeAsync(stepContext).join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+
+        @Override
+        public CompletableFuture<Validation<Violations, StepContext<T>>> executeAsync(StepContext<T> stepContext) {
+            return step.executeAsync(stepContext);
+        }
+    }
+
+}
@@ -0,0 +1,36 @@
+package org.dotspace.oofp.utils.dsl;
+
+import org.dotspace.oofp.model.dto.behaviorstep.StepContext;
+import org.dotspace.oofp.model.dto.behaviorstep.Violations;
+import org.dotspace.oofp.utils.functional.monad.validation.Validation;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 可一次處理整批 StepContext 的 Step。
+ * <pre>
+ * - BehaviorPipeline.applyAll(...) 會把同一步驟中所有仍在執行的 context 一次交給 executeAll
+ * - 回傳的結果數量與順序必須與輸入一致
+ * - 單筆執行（apply / chain）時視為只有一筆的批次
+ * </pre>
+ * 適合把 N 次單筆查詢（權限、狀態、驗證）合併為一次批次呼叫。
+ * 注意：只有直接（或只經 named / declare 包裝）加入 pipeline 的 BatchBehaviorStep 會以批次執行，
+ * 包在 chain / when 內時仍逐筆執行。
+ */
+@FunctionalInterface
+public interface BatchBehaviorStep<T> extends BehaviorStep<T> {
+
+    List<Validation<Violations, StepContext<T>>> executeAll(List<StepContext<T>> stepContexts);
+
+    static <T> BatchBehaviorStep<T> of(
+            Function<List<StepContext<T>>, List<Validation<Violations, StepContext<T>>>> function) {
+        return function::apply;
+    }
+
+    @Override
+    default Validation<Violations, StepContext<T>> execute(StepContext<T> stepContext) {
+        return executeAll(List.of(stepContext)).get(0);
+    }
+
+}
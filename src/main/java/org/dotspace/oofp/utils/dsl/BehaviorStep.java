@@ -3,11 +3,25 @@ package org.dotspace.oofp.utils.dsl;
 import org.dotspace.oofp.model.dto.behaviorstep.StepContextAttributes;
 import org.dotspace.oofp.model.dto.behaviorstep.Violations;
 import org.dotspace.oofp.model.dto.behaviorstep.StepContext;
+import org.dotspace.oofp.model.dto.behaviorstep.StepContextDelta;
+import org.dotspace.oofp.utils.dsl.cache.CacheSpec;
+import org.dotspace.oofp.utils.dsl.cache.StepCache;
+import org.dotspace.oofp.utils.eip.AttrKey;
 import org.dotspace.oofp.utils.functional.monad.Maybe;
 import org.dotspace.oofp.utils.functional.monad.validation.Validation;
 import lombok.NonNull;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.function.*;
 
 /**
@@ -15,10 +29,19 @@ import java.util.function.*;
  * 適用於 Validation、Builder、Transformer、RuleEngine 等具備「步驟組裝、條件過濾、副作用插入、延後執行」的架構。
  */
 @FunctionalInterface
-public interface BehaviorStep<T> {
+public interface BehaviorStep<T> extends AsyncBehaviorStep<T> {
 
     Validation<Violations, StepContext<T>> execute(StepContext<T> stepContext);
 
+    @Override
+    default CompletableFuture<Validation<Violations, StepContext<T>>> executeAsync(StepContext<T> stepContext) {
+        try {
+            return CompletableFuture.completedFuture(execute(stepContext));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
     static <T> BehaviorStep<T> of(
             Function<StepContext<T>, Validation<Violations, StepContext<T>>> function) {
         return function::apply;
@@ -30,57 +53,72 @@ public interface BehaviorStep<T> {
     }
 
     static <T> BehaviorStep<T> chain(List<BehaviorStep<T>> steps) {
-        BehaviorStep<T> result = Validation::valid;
-
-        for (BehaviorStep<T> step : steps) {
-            result = result.andThenStep(step);
-        }
-        return result;
+        return new Chained<>(List.copyOf(steps));
     }
 
     static <T> BehaviorStep<T> when(
             @NonNull Predicate<StepContext<T>> predicate, @NonNull BehaviorStep<T> step) {
-        return stepContext -> predicate.test(stepContext)
-                ? step.execute(stepContext)
-                : Validation.valid(stepContext);
+        return new Guarded<>(predicate, step);
+    }
+
+    /**
+     * 為 step 命名（同 StepLogger 的 stepName），供 pipeline 統計與診斷辨識；不改變執行行為。
+     */
+    static <T> BehaviorStep<T> named(@NonNull String stepName, @NonNull BehaviorStep<T> step) {
+        return new Named<>(stepName, step);
+    }
+
+    /**
+     * 以同一個 StepContext 快照平行執行彼此獨立的 steps（預設使用 ForkJoinPool.commonPool）。
+     * I/O 型的 step 建議改用 {@link #parallel(List, Executor)} 指定專用的 executor。
+     */
+    static <T> BehaviorStep<T> parallel(List<BehaviorStep<T>> steps) {
+        return parallel(steps, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * 以同一個 StepContext 快照平行執行彼此獨立的 steps。
+     * <pre>
+     * - 每個 step 拿到擁有獨立 attributes 的副本
+     * - 全部 valid：依清單順序合併各 step 的 attribute 異動（後者覆蓋前者）與 violations
+     * - 任一 invalid：依清單順序以 join 合併所有 invalid 的 violations
+     * </pre>
+     */
+    static <T> BehaviorStep<T> parallel(List<BehaviorStep<T>> steps, @NonNull Executor executor) {
+        return new Parallel<>(List.copyOf(steps), executor);
     }
 
     default BehaviorStep<T> andThenStep(BehaviorStep<T> step) {
-        return input -> execute(input).flatMap(step::execute);
+        if (this instanceof Chained<T> chained) {
+            List<BehaviorStep<T>> steps = new ArrayList<>(chained.steps());
+            steps.add(step);
+            return new Chained<>(List.copyOf(steps));
+        }
+        return new Chained<>(List.of(this, step));
     }
 
     default BehaviorStep<T> andThenMapper(UnaryOperator<StepContext<T>> mapper) {
-        return input -> execute(input).map(mapper);
+        return new Mapped<>(this, mapper);
     }
 
     /** 成功時過濾資料，否則加上違規 */
     default BehaviorStep<T> requirePayload(
             Predicate<T> predicate, Function<T, Violations> violationProvider) {
-        return stepContext -> execute(stepContext)
-                .flatMap(ctx -> {
-                    if (predicate.test(ctx.getPayload())) {
-                        return Validation.valid(ctx);
-                    }
-                    return Validation.invalid(
-                            ctx.withViolation(violationProvider.apply(ctx.getPayload())));
-                });
+        return new Required<>(this, predicate, violationProvider);
     }
 
     /**
      * 加入副作用觀察行為（僅在成功結果執行）。
      */
     default BehaviorStep<T> peek(Consumer<StepContext<T>> observer) {
-        return input -> this.execute(input).peek(observer);
+        return new Observed<>(this, observer);
     }
 
     /**
      * 加入錯誤觀察（僅在錯誤結果執行）。
      */
     default BehaviorStep<T> peekOnError(Consumer<Violations> handler) {
-        return input -> {
-            Validation<Violations, StepContext<T>> result = this.execute(input);
-            return result.peekError(handler);
-        };
+        return new ErrorObserved<>(this, handler);
     }
 
     default BehaviorStep<T> recover(@NonNull Function<Violations, T> recoveryFunction) {
@@ -103,4 +141,338 @@ public interface BehaviorStep<T> {
                         }, Validation.Valid::new
                 );
     }
+
+    /**
+     * 以 keyFn 計算的 key 快取此 Step 的結果，只適用於結果僅取決於 key 的純 Step。
+     * <pre>
+     * - 快取的是 Step 對 context 造成的異動（attributes、payload、新增的 violations、aborted），命中時重播到目前 context
+     * - invalid 結果只快取並回傳此 Step 新增的 violations（不含 context 既有者），命中與未命中時相同
+     * - keyFn 回傳 null 時不使用快取
+     * </pre>
+     * 命中率與淘汰次數可由回傳值的 cache().stats() 取得。
+     */
+    default <K> Memoized<T, K> memoize(@NonNull Function<StepContext<T>, K> keyFn, @NonNull CacheSpec spec) {
+        return new Memoized<>(this, keyFn, new StepCache<>(spec));
+    }
+
+    /**
+     * 限制此 Step 的執行時間：預算取 timeout 與 context 剩餘期限（StepContext.withDeadline）的較小者。
+     * <pre>
+     * - 期限已過：不執行，回傳 step-context.deadline.exceeded
+     * - 逾時：不再等待，回傳 behavior-step.timeout（或期限造成時的 step-context.deadline.exceeded）
+     * </pre>
+     * Step 在 ForkJoinPool.commonPool() 上以 context 副本執行；會阻塞的 I/O 請改用 {@link #withTimeout(Duration, Executor)}。
+     * 逾時後背景仍可能跑完，但結果不會寫回原 context。
+     */
+    default BehaviorStep<T> withTimeout(@NonNull Duration timeout) {
+        return withTimeout(timeout, ForkJoinPool.commonPool());
+    }
+
+    default BehaviorStep<T> withTimeout(@NonNull Duration timeout, @NonNull Executor executor) {
+        if (timeout.isNegative() || timeout.isZero()) {
+            throw new IllegalArgumentException("timeout must be positive: " + timeout);
+        }
+        return new TimeLimited<>(this, timeout, executor);
+    }
+
+    /**
+     * 宣告此 Step 讀寫的 attributes，供 BehaviorPipeline.schedule() 建立相依圖。
+     * 宣告後的 Step 只應透過所列 AttrKey 讀寫 attributes，且不替換 payload；未宣告的 Step 在排程時視為屏障。
+     */
+    default Declared<T> declare(@NonNull Set<AttrKey<?>> reads, @NonNull Set<AttrKey<?>> writes) {
+        return declare(reads, writes, false);
+    }
+
+    /**
+     * 同 {@link #declare(Set, Set)}；writesPayload 為 true 時表示此 Step 會替換 payload，排程時與其他所有 Step 相依。
+     */
+    default Declared<T> declare(@NonNull Set<AttrKey<?>> reads, @NonNull Set<AttrKey<?>> writes,
+                                boolean writesPayload) {
+        return new Declared<>(this, Set.copyOf(reads), Set.copyOf(writes), writesPayload);
+    }
+
+    /**
+     * 去除不改變執行行為的 named / declare 包裝，取得實際執行的 step（例如判斷是否為 BatchBehaviorStep）。
+     */
+    static <T> BehaviorStep<T> unwrap(@NonNull BehaviorStep<T> step) {
+        BehaviorStep<T> current = step;
+        while (true) {
+            if (current instanceof Named<T> named) {
+                current = named.step();
+            } else if (current instanceof Declared<T> declared) {
+                current = declared.step();
+            } else {
+                return current;
+            }
+        }
+    }
+
+    // ---------------------------------------------------------------------
+    // 組合節點：保留組裝結構，讓 BehaviorPipeline.compile() 可攤平成單一迴圈
+    // ---------------------------------------------------------------------
+
+    /** named：帶名稱的 step */
+    record Named<T>(String stepName, BehaviorStep<T> step) implements BehaviorStep<T> {
+
+        @Override
+        public Validation<Violations, StepContext<T>> execute(StepContext<T> stepContext) {
+            return step.execute(stepContext);
+        }
+
+        @Override
+        public CompletableFuture<Validation<Violations, StepContext<T>>> executeAsync(StepContext<T> stepContext) {
+            return step.executeAsync(stepContext);
+        }
+    }
+
+    /** chain / andThenStep：依序執行，遇 invalid 即短路 */
+    record Chained<T>(List<BehaviorStep<T>> steps) implements BehaviorStep<T> {
+
+        @Override
+        public Validation<Violations, StepContext<T>> execute(StepContext<T> stepContext) {
+            StepContext<T> context = stepContext;
+            for (BehaviorStep<T> step : steps) {
+                Validation<Violations, StepContext<T>> result = step.execute(context);
+                if (result.isInvalid()) {
+                    return result;
+                }
+                context = result.get().orElseThrow();
+            }
+            return Validation.valid(context);
+        }
+    }
+
+    /** when：條件成立才執行 step，否則原 context 透傳 */
+    record Guarded<T>(Predicate<StepContext<T>> predicate, BehaviorStep<T> step) implements BehaviorStep<T> {
+
+        @Override
+        public Validation<Violations, StepContext<T>> execute(StepContext<T> stepContext) {
+            return predicate.test(stepContext)
+                    ? step.execute(stepContext)
+                    : Validation.valid(stepContext);
+        }
+    }
+
+    /** andThenMapper：成功後轉換 context */
+    record Mapped<T>(BehaviorStep<T> step, UnaryOperator<StepContext<T>> mapper) implements BehaviorStep<T> {
+
+        @Override
+        public Validation<Violations, StepContext<T>> execute(StepContext<T> stepContext) {
+            return step.execute(stepContext).map(mapper);
+        }
+    }
+
+    /** requirePayload：成功後檢查 payload，不符則加上違規 */
+    record Required<T>(BehaviorStep<T> step, Predicate<T> predicate,
+                       Function<T, Violations> violationProvider) implements BehaviorStep<T> {
+
+        @Override
+        public Validation<Violations, StepContext<T>> execute(StepContext<T> stepContext) {
+            return step.execute(stepContext)
+                    .flatMap(this::check);
+        }
+
+        public Validation<Violations, StepContext<T>> check(StepContext<T> ctx) {
+            if (predicate.test(ctx.getPayload())) {
+                return Validation.valid(ctx);
+            }
+            return Validation.invalid(
+                    ctx.withViolation(violationProvider.apply(ctx.getPayload())));
+        }
+    }
+
+    /** peek：成功後執行副作用觀察 */
+    record Observed<T>(BehaviorStep<T> step, Consumer<StepContext<T>> observer) implements BehaviorStep<T> {
+
+        @Override
+        public Validation<Violations, StepContext<T>> execute(StepContext<T> stepContext) {
+            return step.execute(stepContext).peek(observer);
+        }
+    }
+
+    /** peekOnError：僅在 invalid 結果執行的觀察 */
+    record ErrorObserved<T>(BehaviorStep<T> step, Consumer<Violations> handler) implements BehaviorStep<T> {
+
+        @Override
+        public Validation<Violations, StepContext<T>> execute(StepContext<T> stepContext) {
+            return step.execute(stepContext).peekError(handler);
+        }
+
+        @Override
+        public CompletableFuture<Validation<Violations, StepContext<T>>> executeAsync(StepContext<T> stepContext) {
+            return step.executeAsync(stepContext).thenApply(result -> result.peekError(handler));
+        }
+    }
+
+    /** parallel：同一快照平行執行，結果依清單順序合併 */
+    record Parallel<T>(List<BehaviorStep<T>> steps, Executor executor) implements BehaviorStep<T> {
+
+        @Override
+        public Validation<Violations, StepContext<T>> execute(StepContext<T> stepContext) {
+            if (steps.isEmpty()) {
+                return Validation.valid(stepContext);
+            }
+
+            List<CompletableFuture<Validation<Violations, StepContext<T>>>> forked = steps.stream()
+                    .skip(1)
+                    .map(step -> CompletableFuture.supplyAsync(() -> step.execute(stepContext.fork()), executor))
+                    .toList();
+
+            // 第一個 step 直接在呼叫端執行，少佔用一條執行緒
+            List<Validation<Violations, StepContext<T>>> results = new ArrayList<>(steps.size());
+            try {
+                results.add(steps.get(0).execute(stepContext.fork()));
+                forked.forEach(future -> results.add(await(future)));
+            } catch (RuntimeException | Error e) {
+                // 等其餘分支結束再丟出例外，呼叫端收到例外時不會有分支仍在執行
+                CompletableFuture.allOf(forked.toArray(new CompletableFuture<?>[0]))
+                        .exceptionally(error -> null)
+                        .join();
+                throw e;
+            }
+
+            return merge(stepContext, results);
+        }
+
+        private static <T> Validation<Violations, StepContext<T>> await(
+                CompletableFuture<Validation<Violations, StepContext<T>>> future) {
+            try {
+                return future.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                if (e.getCause() instanceof Error cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+
+        private static <T> Validation<Violations, StepContext<T>> merge(
+                StepContext<T> base, List<Validation<Violations, StepContext<T>>> results) {
+            Maybe<Violations> errors = Maybe.empty();
+            StepContext<T> merged = base.fork();
+
+            for (Validation<Violations, StepContext<T>> result : results) {
+                if (result.isInvalid()) {
+                    Violations error = result.error().orElseThrow();
+                    errors = errors.map(existing -> existing.join(error))
+                            .or(Maybe.just(error));
+                } else {
+                    merged = merged.mergeBranch(base, result.get().orElseThrow());
+                }
+            }
+
+            StepContext<T> context = merged;
+            return errors.fold(Validation::invalid, () -> Validation.valid(context));
+        }
+    }
+
+    /** memoize：以 key 快取 Step 造成的異動 */
+    record Memoized<T, K>(BehaviorStep<T> step, Function<StepContext<T>, K> keyFn,
+                          StepCache<K, Validation<Violations, StepContextDelta<T>>> cache)
+            implements BehaviorStep<T> {
+
+        @Override
+        public Validation<Violations, StepContext<T>> execute(StepContext<T> stepContext) {
+            K key = keyFn.apply(stepContext);
+            if (key == null) {
+                return step.execute(stepContext);
+            }
+
+            Maybe<Validation<Violations, StepContextDelta<T>>> cached = cache.get(key);
+            if (cached.isPresent()) {
+                return cached.orElseThrow()
+                        .map(stepContext::applyDelta);
+            }
+
+            // 在副本上執行，避免 withAttribute 的就地修改混入 diff 的基準
+            Validation<Violations, StepContext<T>> result = step.execute(stepContext.fork());
+            if (result.isInvalid()) {
+                Violations added = newViolations(stepContext, result.error().orElseThrow());
+                cache.put(key, Validation.invalid(added));
+                return Validation.invalid(added);
+            }
+            cache.put(key, Validation.valid(stepContext.diff(result.get().orElseThrow())));
+            return result;
+        }
+
+        private static <T> Violations newViolations(StepContext<T> stepContext, Violations violations) {
+            if (stepContext.getViolations() == null) {
+                return violations;
+            }
+            return Violations.from(violations.stream()
+                    .filter(v -> !stepContext.getViolations().contains(v))
+                    .toList());
+        }
+    }
+
+    /** withTimeout：在預算內等待 step 結果 */
+    record TimeLimited<T>(BehaviorStep<T> step, Duration timeout, Executor executor) implements BehaviorStep<T> {
+
+        @Override
+        public Validation<Violations, StepContext<T>> execute(StepContext<T> stepContext) {
+            Duration remaining = stepContext.remaining().orElse(null);
+            boolean deadlineBound = remaining != null && remaining.compareTo(timeout) < 0;
+            Duration budget = deadlineBound ? remaining : timeout;
+            if (budget.isNegative() || budget.isZero()) {
+                return Validation.invalid(stepContext.deadlineExceeded());
+            }
+
+            CompletableFuture<Validation<Violations, StepContext<T>>> future = CompletableFuture.supplyAsync(
+                    () -> step.execute(stepContext.fork()), executor);
+            try {
+                return future.get(budget.toNanos(), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                return Validation.invalid(deadlineBound
+                        ? stepContext.deadlineExceeded()
+                        : Violations.violate("behavior-step.timeout", "step timed out after " + timeout));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                future.cancel(true);
+                return Validation.invalid(Violations.violate("behavior-step.timeout", "interrupted while waiting"));
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                if (e.getCause() instanceof Error cause) {
+                    throw cause;
+                }
+                throw new CompletionException(e.getCause());
+            }
+        }
+    }
+
+    /** declare：帶有 attributes 讀寫宣告的 step */
+    record Declared<T>(BehaviorStep<T> step, Set<AttrKey<?>> reads, Set<AttrKey<?>> writes, boolean writesPayload)
+            implements BehaviorStep<T> {
+
+        @Override
+        public Validation<Violations, StepContext<T>> execute(StepContext<T> stepContext) {
+            return step.execute(stepContext);
+        }
+
+        @Override
+        public CompletableFuture<Validation<Violations, StepContext<T>>> executeAsync(StepContext<T> stepContext) {
+            return step.executeAsync(stepContext);
+        }
+
+        /**
+         * 與 other 是否有資料相依（讀寫、寫讀、寫寫同一個 attribute，或任一方替換 payload），有則不可同時執行。
+         */
+        public boolean conflictsWith(Declared<?> other) {
+            return writesPayload || other.writesPayload
+                    || intersects(writes, other.reads)
+                    || intersects(writes, other.writes)
+                    || intersects(reads, other.writes);
+        }
+
+        private static boolean intersects(Set<AttrKey<?>> left, Set<AttrKey<?>> right) {
+            return left.stream()
+                    .map(AttrKey::name)
+                    .anyMatch(name -> right.stream().anyMatch(key -> key.name().equals(name)));
+        }
+    }
 }
@@ -4,4 +4,45 @@ public interface Joinable<T> {
 
     T join(T other);
 
+    /**
+     * 以目前值為起點的累加器，結果等同依序 join。
+     * 預設逐次呼叫 join；大量合併的型別（Violations、JoinableMessage）覆寫為可變的 builder，只在 freeze 時產生結果。
+     */
+    @SuppressWarnings("unchecked")
+    default Accumulator<T> accumulator() {
+        return new Folding<>((T) this);
+    }
+
+    /**
+     * 合併用的可變累加器：add 就地累加，freeze 產生不可變的結果（freeze 後仍可繼續 add）。
+     * 非執行緒安全。
+     */
+    interface Accumulator<T> {
+
+        Accumulator<T> add(T other);
+
+        T freeze();
+    }
+
+    /** 以 join 逐次合併的預設累加器 */
+    final class Folding<T> implements Accumulator<T> {
+
+        private T current;
+
+        private Folding(T initial) {
+            this.current = initial;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Accumulator<T> add(T other) {
+            current = ((Joinable<T>) current).join(other);
+            return this;
+        }
+
+        @Override
+        public T freeze() {
+            return current;
+        }
+    }
 }
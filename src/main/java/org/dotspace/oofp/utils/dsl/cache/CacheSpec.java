@@ -0,0 +1,33 @@
+package org.dotspace.oofp.utils.dsl.cache;
+
+import lombok.NonNull;
+
+import java.time.Duration;
+
+/**
+ * StepCache 的容量與存活時間設定。
+ * <pre>
+ * - maximumSize：最多保留的項目數，超過時淘汰最早寫入者
+ * - ttl：寫入後的存活時間；null 代表不過期
+ * </pre>
+ */
+public record CacheSpec(long maximumSize, Duration ttl) {
+
+    public CacheSpec {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumSize must be positive: " + maximumSize);
+        }
+        if (ttl != null && (ttl.isNegative() || ttl.isZero())) {
+            throw new IllegalArgumentException("ttl must be positive: " + ttl);
+        }
+    }
+
+    public static CacheSpec of(long maximumSize, @NonNull Duration ttl) {
+        return new CacheSpec(maximumSize, ttl);
+    }
+
+    public static CacheSpec ofSize(long maximumSize) {
+        return new CacheSpec(maximumSize, null);
+    }
+
+}
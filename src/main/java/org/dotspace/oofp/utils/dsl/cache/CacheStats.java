@@ -0,0 +1,13 @@
+package org.dotspace.oofp.utils.dsl.cache;
+
+/**
+ * StepCache 的統計快照。eviction 包含容量淘汰與過期移除。
+ */
+public record CacheStats(long hits, long misses, long evictions, long size) {
+
+    public double hitRate() {
+        long requests = hits + misses;
+        return requests == 0 ? 0d : (double) hits / requests;
+    }
+
+}
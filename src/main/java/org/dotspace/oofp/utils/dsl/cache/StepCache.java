@@ -0,0 +1,106 @@
+package org.dotspace.oofp.utils.dsl.cache;
+
+import org.dotspace.oofp.utils.functional.monad.Maybe;
+
+import lombok.NonNull;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 依 CacheSpec 限制大小與存活時間的併發快取，並記錄 hit / miss / eviction 次數。
+ * <pre>
+ * - 超過 maximumSize 時依寫入順序（FIFO）淘汰
+ * - 過期項目在讀取時移除並計為 eviction
+ * - 同一個 key 併發 miss 時可能重複計算，以最後寫入者為準
+ * </pre>
+ */
+public final class StepCache<K, V> {
+
+    private final CacheSpec spec;
+    private final Map<K, Entry<K, V>> entries = new ConcurrentHashMap<>();
+    private final Queue<Entry<K, V>> writeOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicLong queued = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public StepCache(@NonNull CacheSpec spec) {
+        this.spec = spec;
+    }
+
+    public Maybe<V> get(@NonNull K key) {
+        Entry<K, V> entry = entries.get(key);
+        if (entry == null) {
+            misses.increment();
+            return Maybe.empty();
+        }
+        if (entry.isExpired(System.nanoTime())) {
+            if (entries.remove(key, entry)) {
+                evictions.increment();
+            }
+            misses.increment();
+            return Maybe.empty();
+        }
+
+        hits.increment();
+        return Maybe.just(entry.value());
+    }
+
+    public void put(@NonNull K key, @NonNull V value) {
+        Entry<K, V> entry = spec.ttl() == null
+                ? new Entry<>(key, value, false, 0L)
+                : new Entry<>(key, value, true, System.nanoTime() + spec.ttl().toNanos());
+        entries.put(key, entry);
+        writeOrder.add(entry);
+        queued.incrementAndGet();
+        evictOverflow();
+    }
+
+    public long size() {
+        return entries.size();
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+        writeOrder.clear();
+        queued.set(0);
+    }
+
+    public CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), entries.size());
+    }
+
+    private void evictOverflow() {
+        while (entries.size() > spec.maximumSize()) {
+            Entry<K, V> oldest = writeOrder.poll();
+            if (oldest == null) {
+                return;
+            }
+            queued.decrementAndGet();
+            // 佇列中可能留有已被覆寫或移除的舊項目，只淘汰仍在快取中的同一筆
+            if (entries.remove(oldest.key(), oldest)) {
+                evictions.increment();
+            }
+        }
+        // 覆寫與過期會在佇列留下舊項目，累積過多時一次清掉（保留寫入順序）
+        if (queued.get() > spec.maximumSize() * 2) {
+            writeOrder.removeIf(entry -> entries.get(entry.key()) != entry);
+            queued.set(writeOrder.size());
+        }
+    }
+
+    /** nanoTime 可能為負值，未設定 ttl 時以 expiring = false 表示永不過期，而不是以 Long.MAX_VALUE 比較 */
+    private record Entry<K, V>(K key, V value, boolean expiring, long expiresAt) {
+
+        boolean isExpired(long now) {
+            return expiring && now - expiresAt >= 0;
+        }
+    }
+
+}
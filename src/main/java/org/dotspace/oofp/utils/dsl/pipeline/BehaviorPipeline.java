@@ -1,91 +1,631 @@
 package org.dotspace.oofp.utils.dsl.pipeline;
 
+import org.dotspace.oofp.model.dto.behaviorstep.AttributeBudget;
 import org.dotspace.oofp.model.dto.behaviorstep.StepContext;
+import org.dotspace.oofp.utils.dsl.AsyncBehaviorStep;
+import org.dotspace.oofp.utils.dsl.BatchBehaviorStep;
 import org.dotspace.oofp.utils.dsl.BehaviorStep;
 import org.dotspace.oofp.model.dto.behaviorstep.Violations;
+import org.dotspace.oofp.utils.dsl.pipeline.checkpoint.BatchCheckpoint;
+import org.dotspace.oofp.utils.dsl.pipeline.checkpoint.CheckpointFile;
+import org.dotspace.oofp.utils.dsl.pipeline.metrics.PipelineMetrics;
+import org.dotspace.oofp.utils.dsl.pipeline.metrics.ViolationHeavyHitters;
 import org.dotspace.oofp.utils.functional.Functions;
+import org.dotspace.oofp.utils.jfr.FlightEvents;
+import org.dotspace.oofp.utils.functional.monad.Maybe;
+import org.dotspace.oofp.utils.functional.monad.Sequence;
 import org.dotspace.oofp.utils.functional.monad.validation.Validation;
 
 import lombok.NoArgsConstructor;
 import lombok.NonNull;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 @NoArgsConstructor(staticName = "steps")
 public class BehaviorPipeline<T> {
 
+    private static final int DEFAULT_STREAM_WINDOW = 256;
+
     private final List<BehaviorStep<T>> steps = new ArrayList<>();
 
+    private PipelineSettings settings = PipelineSettings.NONE;
+
     public BehaviorPipeline<T> with(BehaviorStep<T> step) {
         this.steps.add(step);
         return this;
     }
 
+    /**
+     * 加入具名 Step，名稱用於統計（PipelineMetrics）與診斷。
+     */
+    public BehaviorPipeline<T> with(String stepName, BehaviorStep<T> step) {
+        return with(BehaviorStep.named(stepName, step));
+    }
+
+    /**
+     * 啟用逐 Step 統計（延遲直方圖、valid / invalid / aborted、violation 數），涵蓋 apply、applyAsync、
+     * applyAll / stream 與 applyCorrectErrorsCheckpointed；BatchBehaviorStep 的批次延遲平均分攤到每一筆。
+     * Step 以 named / StepLogger.tagAndLogOnError 的名稱識別，未命名者為 "step[index]"。
+     */
+    public BehaviorPipeline<T> withMetrics(@NonNull PipelineMetrics metrics) {
+        this.settings = settings.withMetrics(metrics);
+        return this;
+    }
+
+    /**
+     * 將各 Step 回傳的 violations 計入 ViolationHeavyHitters（例如 global()），涵蓋的執行方式同 withMetrics；
+     * 未標記 stepName 者以 Step 名稱記錄。
+     */
+    public BehaviorPipeline<T> withViolationStats(@NonNull ViolationHeavyHitters violationStats) {
+        this.settings = settings.withViolationStats(violationStats);
+        return this;
+    }
+
+    /**
+     * 由本流程建立的 StepContext 都套用同一個 AttributeBudget（applyContext 的既有 context 不受影響），
+     * 超出上限的 withAttribute / split / flatRead 會產生 violation 或中止；統計見 budget.getStats()。
+     * fail-fast 的 apply / applyAsync / applyAll 在該 Step 結束後即回傳這些 violation（invalid）。
+     */
+    public BehaviorPipeline<T> withAttributeBudget(@NonNull AttributeBudget attributeBudget) {
+        this.settings = settings.withAttributeBudget(attributeBudget);
+        return this;
+    }
+
+    /**
+     * 加入非同步 Step。
+     * applyAsync / applyCorrectErrorsAsync 不會等待它；同步的 apply 則會在原執行緒等待結果。
+     */
+    public BehaviorPipeline<T> withAsync(AsyncBehaviorStep<T> step) {
+        return with(step.blocking());
+    }
+
+    /**
+     * 將目前組裝好的 Steps（含巢狀 chain、when、peek、requirePayload）攤平成單一指令陣列。
+     * 回傳的是快照（含 withMetrics / withViolationStats / withAttributeBudget），之後再呼叫 with(...) 不會影響已編譯的結果。
+     */
+    public CompiledBehaviorPipeline<T> compile() {
+        return new CompiledBehaviorPipeline<>(List.copyOf(steps), settings);
+    }
+
+    /**
+     * 依 Step 宣告的 AttrKey 讀寫（BehaviorStep.declare）建立相依圖，互不相依的 Steps 在 executor 上平行執行。
+     * 回傳的是快照，之後再呼叫 with(...) 不會影響排程結果。
+     */
+    public ScheduledBehaviorPipeline<T> schedule(@NonNull Executor executor) {
+        return new ScheduledBehaviorPipeline<>(List.copyOf(steps), settings, executor);
+    }
+
+    public ScheduledBehaviorPipeline<T> schedule() {
+        return schedule(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * 列出目前組裝的 Steps（含巢狀 chain、when、requirePayload），並以 withMetrics 累積的統計估算各頂層 Step 的成本。
+     * 較貴的 Step 排在便宜且會擋下請求的守衛（when / requirePayload）之前時，列於 findings。
+     */
+    public PipelinePlan explain() {
+        return PipelinePlan.of(List.copyOf(steps),
+                settings.metrics() == null ? Map.of() : settings.metrics().snapshot());
+    }
+
+    /**
+     * 以目前的流程為主、candidate 為候選：依 sampleRate 抽樣，在背景執行 candidate 並以 equivalence 比對結果與延遲。
+     * 預設使用單一執行緒、佇列 256 的有界 executor，滿載時丟棄比對。
+     */
+    public ShadowBehaviorPipeline<T> shadow(@NonNull BehaviorPipeline<T> candidate, double sampleRate,
+                                           @NonNull ShadowBehaviorPipeline.Equivalence<T> equivalence) {
+        return shadow(candidate, sampleRate, equivalence, ShadowBehaviorPipeline.boundedExecutor(1, 256));
+    }
+
+    public ShadowBehaviorPipeline<T> shadow(@NonNull BehaviorPipeline<T> candidate, double sampleRate,
+                                           @NonNull ShadowBehaviorPipeline.Equivalence<T> equivalence,
+                                           @NonNull Executor executor) {
+        return new ShadowBehaviorPipeline<>(this, candidate, sampleRate, equivalence, executor);
+    }
+
     /**
      * 執行組裝好的流程。
      * 若中途遇到 invalid，則流程會停止。
+     * input 為 ArenaPayload 時登記為 context 的資源，結束時一併釋放。
      */
     public <R> Validation<Violations, R> apply(@NonNull T input, @NonNull Function<StepContext<T>, R> resultApplier) {
-        StepContext<T> context = StepContext.<T>builder()
-                .withPayload(input)
-                .withViolations(Violations.empty())
-                .build();
-
-        for (BehaviorStep<T> step : steps) {
-            Validation<Violations, StepContext<T>> result = step.execute(context);
-
-            if (result.isInvalid()) {
-                result.error().match(context::addViolation);
-                return result.error()
-                        .map(Validation::<Violations, R>invalid)
+        return applyContext(settings.trackedContext(input), resultApplier);
+    }
+
+    /**
+     * 以既有的 StepContext（例如 InboundFlows 建立、帶有 attributes 與 deadline 者）執行流程，語意同 apply。
+     * <pre>
+     * - 若 context 已超過期限（StepContext.withDeadline），剩餘 Step 不再執行，回傳 step-context.deadline.exceeded
+     * - 結束時（完成、invalid、aborted 或例外）釋放最後一個 context 登記的資源（StepContext.withResource）；
+     *   resultApplier 需在回傳前取出所需資料，不可保留 ArenaPayload 的 buffer
+     * </pre>
+     */
+    public <R> Validation<Violations, R> applyContext(
+            @NonNull StepContext<T> initial, @NonNull Function<StepContext<T>, R> resultApplier) {
+        StepContext<T> context = initial;
+
+        try {
+            for (int index = 0; index < steps.size(); index++) {
+                if (context.isDeadlineExceeded()) {
+                    return Validation.invalid(context.deadlineExceeded());
+                }
+
+                Validation<Violations, StepContext<T>> result = overBudget(execute(index, context));
+
+                if (result.isInvalid()) {
+                    result.error().match(context::addViolation);
+                    return result.error()
+                            .map(Validation::<Violations, R>invalid)
+                            .orElseThrow();
+                }
+
+                context = result.get()
                         .orElseThrow();
+
+                boolean aborted = result.map(StepContext::isAborted)
+                        .fold(violations -> false, Boolean::booleanValue);
+
+                if (aborted) {
+                    break;
+                }
+
             }
 
-            context = result.get()
-                    .orElseThrow();
+            return Validation.valid(resultApplier.apply(context));
+        } finally {
+            context.releaseResources();
+        }
+    }
 
-            boolean aborted = result.map(StepContext::isAborted)
-                    .fold(violations -> false, Boolean::booleanValue);
+    public <R> Validation<Violations, R> applyCorrectErrors(
+            @NonNull T input, @NonNull Function<StepContext<T>, R> resultApplier) {
+        return applyCorrectErrorsContext(settings.trackedContext(input), resultApplier);
+    }
+
+    /**
+     * 以既有的 StepContext 執行流程，語意同 applyCorrectErrors。
+     * 超過期限時加入 step-context.deadline.exceeded 並停止執行剩餘 Step；結束時同 applyContext 釋放資源。
+     */
+    public <R> Validation<Violations, R> applyCorrectErrorsContext(
+            @NonNull StepContext<T> initial, @NonNull Function<StepContext<T>, R> resultApplier) {
+
+        StepContext<T> context = initial;
+
+        try {
+            for (int index = 0; index < steps.size(); index++) {
+                if (context.isDeadlineExceeded()) {
+                    context = context.mergeViolations(context.deadlineExceeded());
+                    break;
+                }
+
+                Validation<Violations, StepContext<T>> result = execute(index, context);
+
+                context = result.fold(
+                        context::mergeViolations,     // invalid：累積 violations，不中斷
+                        Functions.self()              // valid：承接新 context
+                );
+
+                // aborted：以「目前 context」判定（因為 invalid 時 result 沒 context）
+                if (context.isAborted()) {
+                    break;
+                }
 
-            if (aborted) {
-                break;
             }
 
+            return correctedResult(context, resultApplier);
+        } finally {
+            context.releaseResources();
         }
+    }
 
-        return Validation.valid(resultApplier.apply(context));
+    /**
+     * 非同步執行組裝好的流程，語意同 {@link #apply(Object, Function)}：遇到 invalid 即停止。
+     * 已完成的 Step 直接在目前執行緒往下走；只有尚未完成的 future 才會掛上後續流程。
+     * 流程結束時（完成、invalid 或例外）同 applyContext 釋放登記的資源。
+     */
+    public <R> CompletableFuture<Validation<Violations, R>> applyAsync(
+            @NonNull T input, @NonNull Function<StepContext<T>, R> resultApplier) {
+        return runAsync(settings.trackedContext(input), false, result -> result.fold(
+                Validation::<Violations, R>invalid,
+                context -> Validation.valid(resultApplier.apply(context))));
     }
 
-    public <R> Validation<Violations, R> applyCorrectErrors(
+    /**
+     * 非同步執行組裝好的流程，語意同 {@link #applyCorrectErrors(Object, Function)}：累積 violations，不中斷。
+     */
+    public <R> CompletableFuture<Validation<Violations, R>> applyCorrectErrorsAsync(
             @NonNull T input, @NonNull Function<StepContext<T>, R> resultApplier) {
+        return runAsync(settings.trackedContext(input), true,
+                result -> correctedResult(result.get().orElseThrow(), resultApplier));
+    }
 
-        StepContext<T> context = StepContext.<T>builder()
-                .withPayload(input)
-                .withViolations(Violations.empty())
-                .build();
+    /**
+     * 批次執行：以「步驟」為單位推進整批 payload，而不是一筆跑完整條流程再換下一筆。
+     * <pre>
+     * - 每一筆的語意同 apply：遇到 invalid 即停止該筆
+     * - BatchBehaviorStep 會一次收到所有仍在執行中的 context
+     * - 回傳結果與輸入順序一致
+     * - 整批的 resultApplier 都執行後，才釋放每一筆登記的資源
+     * </pre>
+     */
+    public <R> List<Validation<Violations, R>> applyAll(
+            @NonNull Collection<T> inputs, @NonNull Function<StepContext<T>, R> resultApplier) {
+        return runAll(inputs, false, result -> result.fold(
+                Validation::<Violations, R>invalid,
+                context -> Validation.valid(resultApplier.apply(context))));
+    }
 
-        for (BehaviorStep<T> step : steps) {
-            Validation<Violations, StepContext<T>> result = step.execute(context);
+    /**
+     * 批次執行，每一筆的語意同 {@link #applyCorrectErrors(Object, Function)}：累積 violations，不中斷。
+     */
+    public <R> List<Validation<Violations, R>> applyCorrectErrorsAll(
+            @NonNull Collection<T> inputs, @NonNull Function<StepContext<T>, R> resultApplier) {
+        return runAll(inputs, true, result -> correctedResult(result.get().orElseThrow(), resultApplier));
+    }
 
-            context = result.fold(
-                    context::mergeViolations,     // invalid：累積 violations，不中斷
-                    Functions.self()              // valid：承接新 context
-            );
+    /**
+     * 以 Sequence 串流執行：逐段（window 筆）取出輸入、以 applyAll 的方式執行，再依序輸出結果。
+     * <pre>
+     * - 回傳的 Sequence 是 lazy 的：只有在取用結果時才讀取輸入，每次 stream() 都會重新執行
+     * - 同時保留在記憶體中的只有目前這一段，可搭配 Sequence.unfold 處理大量資料
+     * - BatchBehaviorStep 每次收到的是這一段中仍在執行的 context
+     * </pre>
+     */
+    public <R> Sequence<Validation<Violations, R>> stream(
+            @NonNull Sequence<T> inputs, int window, @NonNull Function<StepContext<T>, R> resultApplier) {
+        return streamWindows(inputs, window, false, result -> result.fold(
+                Validation::<Violations, R>invalid,
+                context -> Validation.valid(resultApplier.apply(context))));
+    }
 
-            // aborted：以「目前 context」判定（因為 invalid 時 result 沒 context）
-            if (context.isAborted()) {
-                break;
+    public <R> Sequence<Validation<Violations, R>> stream(
+            @NonNull Sequence<T> inputs, @NonNull Function<StepContext<T>, R> resultApplier) {
+        return stream(inputs, DEFAULT_STREAM_WINDOW, resultApplier);
+    }
+
+    /**
+     * 串流執行，每一筆的語意同 {@link #applyCorrectErrors(Object, Function)}。
+     */
+    public <R> Sequence<Validation<Violations, R>> streamCorrectErrors(
+            @NonNull Sequence<T> inputs, int window, @NonNull Function<StepContext<T>, R> resultApplier) {
+        return streamWindows(inputs, window, true,
+                result -> correctedResult(result.get().orElseThrow(), resultApplier));
+    }
+
+    /**
+     * 以 applyCorrectErrors 語意批次執行大量輸入，並定期把進度寫入 checkpointFile。
+     * <pre>
+     * - 每處理 interval 筆（結果已交給 sink）就更新一次檢查點：offset 與 violation 摘要
+     * - 重新執行時由檢查點的 offset 繼續；已完成者直接回傳該檢查點
+     * - 上次檢查點之後、中斷之前的結果會再交給 sink 一次（at-least-once），inputs 每次的順序必須一致
+     * </pre>
+     * 檢查點讀寫失敗時回傳 invalid，並停止執行。
+     */
+    public <R> Validation<Violations, BatchCheckpoint> applyCorrectErrorsCheckpointed(
+            @NonNull Sequence<T> inputs, @NonNull Function<StepContext<T>, R> resultApplier,
+            @NonNull Consumer<Validation<Violations, R>> sink, @NonNull CheckpointFile checkpointFile,
+            int interval) {
+        return checkpointFile.load()
+                .flatMap(start -> start.completed()
+                        ? Validation.valid(start)
+                        : resume(start, inputs, resultApplier, sink, checkpointFile, interval));
+    }
+
+    private <R> Validation<Violations, BatchCheckpoint> resume(
+            BatchCheckpoint start, Sequence<T> inputs, Function<StepContext<T>, R> resultApplier,
+            Consumer<Validation<Violations, R>> sink, CheckpointFile checkpointFile, int interval) {
+        long offset = start.offset();
+        long invalidCount = start.invalidCount();
+        Map<String, Long> violationCounts = new HashMap<>(start.violationCounts());
+        int pending = 0;
+
+        Sequence<T> remaining = Sequence.defer(() -> inputs.stream().skip(start.offset()));
+        try (Stream<Validation<Violations, R>> results = streamCorrectErrors(remaining, interval, resultApplier)
+                .stream()) {
+            Iterator<Validation<Violations, R>> iterator = results.iterator();
+            while (iterator.hasNext()) {
+                Validation<Violations, R> result = iterator.next();
+                sink.accept(result);
+                offset++;
+                if (result.isInvalid()) {
+                    invalidCount++;
+                    result.error().orElseThrow().stream()
+                            .forEach(v -> violationCounts.merge(String.valueOf(v.getValidationName()), 1L, Long::sum));
+                }
+
+                if (++pending == interval) {
+                    Validation<Violations, BatchCheckpoint> saved = checkpointFile.save(
+                            new BatchCheckpoint(offset, invalidCount, violationCounts, false));
+                    if (saved.isInvalid()) {
+                        return saved;
+                    }
+                    pending = 0;
+                }
             }
+        }
 
+        return checkpointFile.save(new BatchCheckpoint(offset, invalidCount, violationCounts, true));
+    }
+
+    private <R> Sequence<Validation<Violations, R>> streamWindows(Sequence<T> inputs, int window,
+            boolean correctErrors, Function<Validation<Violations, StepContext<T>>, Validation<Violations, R>> finisher) {
+        if (window <= 0) {
+            throw new IllegalArgumentException("window must be positive: " + window);
         }
 
-        if (!context.getViolations().isEmpty()) {
+        return Sequence.defer(() -> {
+            Stream<T> source = inputs.stream();
+            Iterator<T> iterator = source.iterator();
+            Deque<Validation<Violations, R>> pending = new ArrayDeque<>(window);
+
+            Spliterator<Validation<Violations, R>> windows =
+                    new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE, Spliterator.ORDERED) {
+
+                        @Override
+                        public boolean tryAdvance(Consumer<? super Validation<Violations, R>> action) {
+                            if (pending.isEmpty()) {
+                                List<T> chunk = new ArrayList<>(window);
+                                while (chunk.size() < window && iterator.hasNext()) {
+                                    chunk.add(iterator.next());
+                                }
+                                if (chunk.isEmpty()) {
+                                    return false;
+                                }
+                                pending.addAll(runAll(chunk, correctErrors, finisher));
+                            }
+
+                            action.accept(pending.poll());
+                            return true;
+                        }
+                    };
+
+            return StreamSupport.stream(windows, false).onClose(source::close);
+        });
+    }
+
+    private static <T, R> Validation<Violations, R> correctedResult(
+            StepContext<T> context, Function<StepContext<T>, R> resultApplier) {
+        if (context.getViolations() != null && !context.getViolations().isEmpty()) {
             return Validation.invalid(context.getViolations());
         }
 
         return Validation.valid(resultApplier.apply(context));
+    }
+
+    /**
+     * 批次執行並以 finisher 產生每一筆的結果；結束時（含例外）釋放每一筆最後一個 context 登記的資源。
+     */
+    private <R> List<Validation<Violations, R>> runAll(Collection<T> inputs, boolean correctErrors,
+            Function<Validation<Violations, StepContext<T>>, Validation<Violations, R>> finisher) {
+        inputs.forEach(Objects::requireNonNull);
+        List<StepContext<T>> contexts = inputs.stream()
+                .map(settings::<T>trackedContext)
+                .collect(Collectors.toCollection(ArrayList::new));
+        try {
+            return settle(contexts, correctErrors).stream()
+                    .map(finisher)
+                    .toList();
+        } finally {
+            contexts.forEach(StepContext::releaseResources);
+        }
+    }
+
+    /** 以「步驟」為單位推進 contexts（就地更新為每一筆最後一個 context），回傳每一筆的結果 */
+    private List<Validation<Violations, StepContext<T>>> settle(List<StepContext<T>> contexts, boolean correctErrors) {
+        // 已結束（invalid 或 aborted）的結果；null 代表仍在執行中
+        List<Validation<Violations, StepContext<T>>> settled = new ArrayList<>(
+                Collections.nCopies(contexts.size(), null));
+
+        for (int stepIndex = 0; stepIndex < steps.size(); stepIndex++) {
+            settleExpired(contexts, settled, correctErrors);
+            List<Integer> live = IntStream.range(0, contexts.size())
+                    .filter(i -> settled.get(i) == null)
+                    .boxed()
+                    .toList();
+            if (live.isEmpty()) {
+                break;
+            }
+
+            List<Validation<Violations, StepContext<T>>> results = executeAll(
+                    stepIndex, live.stream().map(contexts::get).toList());
+
+            for (int k = 0; k < live.size(); k++) {
+                int index = live.get(k);
+                Validation<Violations, StepContext<T>> result = correctErrors ? results.get(k) : overBudget(results.get(k));
+
+                if (result.isInvalid() && !correctErrors) {
+                    settled.set(index, result);
+                    continue;
+                }
+
+                StepContext<T> context = result.fold(contexts.get(index)::mergeViolations, Functions.self());
+                contexts.set(index, context);
+                if (context.isAborted()) {
+                    settled.set(index, Validation.valid(context));
+                }
+            }
+        }
+
+        return IntStream.range(0, contexts.size())
+                .mapToObj(i -> Maybe.given(settled.get(i))
+                        .orElseGet(() -> Validation.valid(contexts.get(i))))
+                .toList();
+    }
+
+    private static <T> void settleExpired(List<StepContext<T>> contexts,
+            List<Validation<Violations, StepContext<T>>> settled, boolean correctErrors) {
+        for (int i = 0; i < contexts.size(); i++) {
+            StepContext<T> context = contexts.get(i);
+            if (settled.get(i) == null && context.isDeadlineExceeded()) {
+                settled.set(i, expired(context, correctErrors));
+            }
+        }
+    }
+
+    /**
+     * fail-fast 模式下，Step 回傳 valid 但 context 帶有超出 AttributeBudget 的 violation（VIOLATE 或 ABORT）時改為 invalid，
+     * 避免未寫入的 attribute 在後續 Step 才以「找不到 attribute」的形式出現。
+     */
+    static <T> Validation<Violations, StepContext<T>> overBudget(Validation<Violations, StepContext<T>> result) {
+        return result.flatMap(context -> {
+            Violations exceeded = context.getBudgetViolations();
+            return exceeded.isEmpty() ? result : Validation.invalid(exceeded);
+        });
+    }
+
+    /** 超過期限時的結果：fail-fast 回傳 invalid，correct-errors 併入 violations 後停止 */
+    static <T> Validation<Violations, StepContext<T>> expired(StepContext<T> context, boolean correctErrors) {
+        return correctErrors
+                ? Validation.valid(context.mergeViolations(context.deadlineExceeded()))
+                : Validation.invalid(context.deadlineExceeded());
+    }
+
+    /**
+     * 所有執行方式（apply、applyAsync、applyAll / stream / checkpointed）共用的逐 Step 呼叫：
+     * JFR 事件、PipelineMetrics 與 ViolationHeavyHitters 都在這裡記錄。
+     */
+    private Validation<Violations, StepContext<T>> execute(int index, StepContext<T> context) {
+        BehaviorStep<T> step = steps.get(index);
+        return settings.execute(() -> stepName(index, step), step, context);
+    }
+
+    private CompletableFuture<Validation<Violations, StepContext<T>>> executeAsync(
+            List<BehaviorStep<T>> steps, int index, StepContext<T> context) {
+        BehaviorStep<T> step = steps.get(index);
+        if (!settings.instrumented()) {
+            return FlightEvents.stepAsync(() -> stepName(index, step), step, context);
+        }
+
+        long start = System.nanoTime();
+        return FlightEvents.stepAsync(() -> stepName(index, step), step, context)
+                .whenComplete((result, error) -> {
+                    if (result != null) {
+                        settings.record(stepName(index, step), System.nanoTime() - start, result);
+                    }
+                });
+    }
+
+    /** BatchBehaviorStep 一次收到所有 context，延遲平均分攤到每一筆；其餘 Step 逐筆以 execute 執行 */
+    private List<Validation<Violations, StepContext<T>>> executeAll(int index, List<StepContext<T>> contexts) {
+        BehaviorStep<T> step = steps.get(index);
+        if (!(BehaviorStep.unwrap(step) instanceof BatchBehaviorStep<T> batchStep)) {
+            return contexts.stream()
+                    .map(context -> execute(index, context))
+                    .toList();
+        }
+
+        long start = System.nanoTime();
+        List<Validation<Violations, StepContext<T>>> results = FlightEvents.batch(
+                () -> stepName(index, step), batchStep, contexts);
+        long elapsed = System.nanoTime() - start;
+        if (results.size() != contexts.size()) {
+            throw new IllegalStateException("BatchBehaviorStep must return one result per context: expected="
+                    + contexts.size() + ", actual=" + results.size());
+        }
+
+        if (settings.instrumented()) {
+            long share = contexts.isEmpty() ? 0L : elapsed / contexts.size();
+            results.forEach(result -> settings.record(stepName(index, step), share, result));
+        }
+        return results;
+    }
+
+    static <T> String stepName(int index, BehaviorStep<T> step) {
+        return step instanceof BehaviorStep.Named<T> named ? named.stepName() : "step[" + index + "]";
+    }
+
+    /**
+     * 非同步執行並以 finisher 產生結果；結束時釋放最後一個 context 登記的資源，
+     * invalid 或例外時沒有最後的 context，改為釋放 initial 登記的資源。
+     */
+    private <R> CompletableFuture<Validation<Violations, R>> runAsync(StepContext<T> initial, boolean correctErrors,
+            Function<Validation<Violations, StepContext<T>>, Validation<Violations, R>> finisher) {
+        CompletableFuture<Validation<Violations, StepContext<T>>> run;
+        try {
+            run = runAsync(List.copyOf(steps), 0, initial, correctErrors);
+        } catch (RuntimeException | Error e) {
+            initial.releaseResources();
+            throw e;
+        }
+
+        return run.handle((result, error) -> {
+            StepContext<T> last = result == null ? initial : result.get().orElse(initial);
+            try {
+                if (error != null) {
+                    throw error instanceof CompletionException completion ? completion : new CompletionException(error);
+                }
+                return finisher.apply(result);
+            } finally {
+                last.releaseResources();
+            }
+        });
+    }
+
+    private CompletableFuture<Validation<Violations, StepContext<T>>> runAsync(
+            List<BehaviorStep<T>> steps, int from, StepContext<T> start, boolean correctErrors) {
+        StepContext<T> context = start;
+
+        for (int index = from; index < steps.size(); index++) {
+            if (context.isDeadlineExceeded()) {
+                return CompletableFuture.completedFuture(expired(context, correctErrors));
+            }
+
+            CompletableFuture<Validation<Violations, StepContext<T>>> future = executeAsync(steps, index, context);
+
+            if (!future.isDone() || future.isCompletedExceptionally()) {
+                int next = index + 1;
+                StepContext<T> current = context;
+                return future.thenCompose(result -> resumeAsync(steps, next, current, result, correctErrors));
+            }
+
+            Validation<Violations, StepContext<T>> result = correctErrors ? future.join() : overBudget(future.join());
+            if (result.isInvalid() && !correctErrors) {
+                return CompletableFuture.completedFuture(result);
+            }
+
+            context = result.fold(context::mergeViolations, Functions.self());
+            if (context.isAborted()) {
+                break;
+            }
+        }
+
+        return CompletableFuture.completedFuture(Validation.valid(context));
+    }
+
+    private CompletableFuture<Validation<Violations, StepContext<T>>> resumeAsync(
+            List<BehaviorStep<T>> steps, int next, StepContext<T> current,
+            Validation<Violations, StepContext<T>> result, boolean correctErrors) {
+        Validation<Violations, StepContext<T>> checked = correctErrors ? result : overBudget(result);
+        if (checked.isInvalid() && !correctErrors) {
+            return CompletableFuture.completedFuture(checked);
+        }
+
+        StepContext<T> context = checked.fold(current::mergeViolations, Functions.self());
+        if (context.isAborted()) {
+            return CompletableFuture.completedFuture(Validation.valid(context));
+        }
 
+        return runAsync(steps, next, context, correctErrors);
     }
 }
@@ -0,0 +1,156 @@
+package org.dotspace.oofp.utils.dsl.pipeline;
+
+import org.dotspace.oofp.model.dto.behaviorstep.StepContext;
+import org.dotspace.oofp.model.dto.behaviorstep.Violations;
+import org.dotspace.oofp.utils.dsl.BehaviorStep;
+import org.dotspace.oofp.utils.functional.monad.validation.Validation;
+
+import lombok.NonNull;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * {@link BehaviorPipeline#compile()} 的結果。
+ * 組裝樹被攤平成單一指令陣列，由一個迴圈依序執行：
+ * 呼叫堆疊不隨 chain / when / peek 的巢狀深度成長，guard、peek、requirePayload 也不再配置中介 Validation。
+ * 執行語意（fail-fast / correct-errors / aborted）與 {@link BehaviorPipeline} 相同，並沿用 compile() 當時的
+ * withMetrics / withViolationStats / withAttributeBudget 與 ArenaPayload 釋放；
+ * 統計以頂層 Step 為單位，但不產生 JFR 的 StepExecution 事件。
+ */
+public final class CompiledBehaviorPipeline<T> {
+
+    private final StepInstruction<T>[] program;
+    private final PipelineSettings settings;
+
+    @SuppressWarnings("unchecked")
+    CompiledBehaviorPipeline(List<BehaviorStep<T>> steps, PipelineSettings settings) {
+        this.program = StepInstruction.flatten(steps).toArray(StepInstruction[]::new);
+        this.settings = settings;
+    }
+
+    /**
+     * 攤平後的指令數（含每個頂層 Step 的邊界指令）。
+     */
+    public int size() {
+        return program.length;
+    }
+
+    /**
+     * 同 {@link BehaviorPipeline#apply(Object, Function)}：遇到 invalid 即停止。
+     */
+    public <R> Validation<Violations, R> apply(@NonNull T input, @NonNull Function<StepContext<T>, R> resultApplier) {
+        StepContext<T> initial = settings.trackedContext(input);
+        Run<T> run = null;
+        try {
+            run = run(initial, false);
+            return run.result()
+                    .fold(Validation::invalid, context -> Validation.valid(resultApplier.apply(context)));
+        } finally {
+            (run == null ? initial : run.last()).releaseResources();
+        }
+    }
+
+    /**
+     * 同 {@link BehaviorPipeline#applyCorrectErrors(Object, Function)}：累積 violations，不中斷。
+     */
+    public <R> Validation<Violations, R> applyCorrectErrors(
+            @NonNull T input, @NonNull Function<StepContext<T>, R> resultApplier) {
+        StepContext<T> initial = settings.trackedContext(input);
+        Run<T> run = null;
+        try {
+            run = run(initial, true);
+            StepContext<T> context = run.last();
+            if (!context.getViolations().isEmpty()) {
+                return Validation.invalid(context.getViolations());
+            }
+
+            return Validation.valid(resultApplier.apply(context));
+        } finally {
+            (run == null ? initial : run.last()).releaseResources();
+        }
+    }
+
+    /** 執行結果，以及最後一個 context（供結束時釋放資源） */
+    private record Run<T>(Validation<Violations, StepContext<T>> result, StepContext<T> last) {
+    }
+
+    private Run<T> run(StepContext<T> initial, boolean correctErrors) {
+        StepContext<T> context = initial;
+        StepContext<T> checkpoint = initial; // 目前頂層 Step 開始時的 context
+        Validation<Violations, StepContext<T>> failed = null; // 目前頂層 Step 的 invalid 結果（correct-errors）
+        long stepStart = settings.instrumented() ? System.nanoTime() : 0L;
+        int pc = 0;
+
+        if (program.length > 0 && initial.isDeadlineExceeded()) {
+            Validation<Violations, StepContext<T>> expired = BehaviorPipeline.expired(initial, correctErrors);
+            return new Run<>(expired, expired.get().orElse(initial));
+        }
+
+        while (pc < program.length) {
+            StepInstruction<T> instruction = program[pc];
+            Validation<Violations, StepContext<T>> result = null;
+
+            switch (instruction.opCode) {
+                case RUN -> result = instruction.step.execute(context);
+                case GUARD -> {
+                    if (!instruction.guard.test(context)) {
+                        pc = instruction.target;
+                        continue;
+                    }
+                }
+                case REQUIRE -> result = instruction.requirement.check(context);
+                case MAP -> context = Objects.requireNonNull(instruction.mapper.apply(context));
+                case PEEK -> instruction.observer.accept(context);
+                case BOUNDARY -> {
+                    Validation<Violations, StepContext<T>> stepResult = failed != null
+                            ? failed
+                            : Validation.valid(context);
+                    record(instruction, stepStart, stepResult);
+                    failed = null;
+
+                    if (!correctErrors && BehaviorPipeline.overBudget(stepResult).isInvalid()) {
+                        return new Run<>(BehaviorPipeline.overBudget(stepResult), context);
+                    }
+                    if (context.isAborted()) {
+                        return new Run<>(Validation.valid(context), context);
+                    }
+                    if (pc + 1 < program.length && context.isDeadlineExceeded()) {
+                        Validation<Violations, StepContext<T>> expired = BehaviorPipeline.expired(context, correctErrors);
+                        return new Run<>(expired, expired.get().orElse(context));
+                    }
+                    checkpoint = context;
+                    stepStart = settings.instrumented() ? System.nanoTime() : 0L;
+                }
+            }
+
+            if (result != null && result.isInvalid()) {
+                if (!correctErrors) {
+                    record(program[instruction.target], stepStart, result);
+                    return new Run<>(result, context);
+                }
+                // invalid：以頂層 Step 開始時的 context 累積 violations，跳到邊界繼續下一個 Step
+                failed = result;
+                context = checkpoint.mergeViolations(result.error().orElseThrow());
+                pc = instruction.target;
+                continue;
+            }
+
+            if (result != null) {
+                context = result.get().orElseThrow();
+            }
+            pc++;
+        }
+
+        return new Run<>(Validation.valid(context), context);
+    }
+
+    private void record(StepInstruction<T> boundary, long stepStart, Validation<Violations, StepContext<T>> result) {
+        if (settings.instrumented()) {
+            settings.record(BehaviorPipeline.stepName(boundary.stepIndex, boundary.step),
+                    System.nanoTime() - stepStart, result);
+        }
+    }
+
+}
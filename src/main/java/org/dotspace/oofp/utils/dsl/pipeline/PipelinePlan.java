@@ -0,0 +1,172 @@
+package org.dotspace.oofp.utils.dsl.pipeline;
+
+import org.dotspace.oofp.enumeration.stepcontext.StepKind;
+import org.dotspace.oofp.utils.dsl.BehaviorStep;
+import org.dotspace.oofp.utils.dsl.pipeline.metrics.StepStats;
+import org.dotspace.oofp.utils.functional.monad.Maybe;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * {@link BehaviorPipeline#explain()} 的結果：攤開後的 Step 組裝樹，以及依 PipelineMetrics 統計估算的成本。
+ * <pre>
+ * - nodes：依執行順序列出頂層 Step 與其巢狀結構（chain、when、requirePayload 等），depth 0 為頂層
+ * - 頂層 Step 以名稱對應 PipelineMetrics 的統計；沒有統計者不估算
+ * - findings：較貴的 Step 排在便宜且會擋下請求（有 invalid）的守衛（頂層為 when / requirePayload）之前，建議對調
+ * </pre>
+ * 排序依據為 mean / (1 - passRate)，值越小越應先執行；兩者宣告（BehaviorStep.declare）有資料相依時不列出。
+ */
+public record PipelinePlan(List<Node> nodes, List<Finding> findings) {
+
+    public PipelinePlan {
+        nodes = List.copyOf(nodes);
+        findings = List.copyOf(findings);
+    }
+
+    /**
+     * @param name     named 的名稱；頂層未命名者為 "step[index]"，巢狀未命名者為 null
+     * @param estimate 統計快照，無統計時為 null
+     */
+    public record Node(int depth, StepKind kind, String name, StepStats.Snapshot estimate) {
+
+        public Maybe<StepStats.Snapshot> cost() {
+            return Maybe.given(estimate);
+        }
+    }
+
+    /**
+     * expensiveStep 排在 guardStep 之前，但 guardStep 較便宜且會擋下部分請求。
+     */
+    public record Finding(String expensiveStep, String guardStep,
+                          double expensiveMeanNanos, double guardMeanNanos, double guardPassRate) {
+
+        public String message() {
+            return String.format(Locale.ROOT,
+                    "%s (mean %s) runs before %s (mean %s, pass %.1f%%); consider moving %s first",
+                    expensiveStep, micros(expensiveMeanNanos), guardStep, micros(guardMeanNanos),
+                    guardPassRate * 100d, guardStep);
+        }
+    }
+
+    /** 以縮排呈現組裝樹、成本估算與建議 */
+    public String render() {
+        StringBuilder sb = new StringBuilder();
+        for (Node node : nodes) {
+            sb.append("  ".repeat(node.depth()))
+                    .append(node.kind().name().toLowerCase(Locale.ROOT));
+            if (node.name() != null) {
+                sb.append(' ').append(node.name());
+            }
+            node.cost().match(snapshot -> sb.append(String.format(Locale.ROOT,
+                    "  [mean=%s p99=%s pass=%.1f%% n=%d]", micros(snapshot.meanNanos()),
+                    micros(snapshot.p99Nanos()), snapshot.passRate() * 100d, snapshot.count())));
+            sb.append('\n');
+        }
+        findings.forEach(finding -> sb.append("! ").append(finding.message()).append('\n'));
+        return sb.toString();
+    }
+
+    static <T> PipelinePlan of(List<BehaviorStep<T>> steps, Map<String, StepStats.Snapshot> stats) {
+        List<Node> nodes = new ArrayList<>();
+        List<Node> topLevel = new ArrayList<>();
+        List<StepKind> topLevelKinds = new ArrayList<>();
+        for (int index = 0; index < steps.size(); index++) {
+            int first = nodes.size();
+            describe(steps.get(index), 0, BehaviorPipeline.stepName(index, steps.get(index)), stats, nodes);
+            topLevel.add(nodes.get(first));
+            topLevelKinds.add(kindBehindDeclare(nodes, first));
+        }
+
+        List<Finding> findings = new ArrayList<>();
+        for (int j = 0; j < topLevel.size(); j++) {
+            StepStats.Snapshot guard = topLevel.get(j).estimate();
+            if (!topLevelKinds.get(j).isGuard() || guard == null || guard.passRate() >= 1d) {
+                continue;
+            }
+            for (int i = 0; i < j; i++) {
+                StepStats.Snapshot expensive = topLevel.get(i).estimate();
+                if (expensive != null && expensive.meanNanos() > guard.meanNanos()
+                        && rank(guard) < rank(expensive)
+                        && !dependent(steps.get(i), steps.get(j))) {
+                    findings.add(new Finding(topLevel.get(i).name(), topLevel.get(j).name(),
+                            expensive.meanNanos(), guard.meanNanos(), guard.passRate()));
+                }
+            }
+        }
+
+        return new PipelinePlan(nodes, findings);
+    }
+
+    private static <T> void describe(BehaviorStep<T> step, int depth, String name,
+                                     Map<String, StepStats.Snapshot> stats, List<Node> nodes) {
+        if (step instanceof BehaviorStep.Named<T> named) {
+            describe(named.step(), depth, named.stepName(), stats, nodes);
+            return;
+        }
+
+        StepStats.Snapshot estimate = name == null ? null : stats.get(name);
+        if (estimate != null && estimate.count() == 0) {
+            estimate = null;
+        }
+
+        if (step instanceof BehaviorStep.Chained<T> chained) {
+            nodes.add(new Node(depth, StepKind.CHAIN, name, estimate));
+            chained.steps().forEach(s -> describe(s, depth + 1, null, stats, nodes));
+        } else if (step instanceof BehaviorStep.Parallel<T> parallel) {
+            nodes.add(new Node(depth, StepKind.PARALLEL, name, estimate));
+            parallel.steps().forEach(s -> describe(s, depth + 1, null, stats, nodes));
+        } else if (step instanceof BehaviorStep.Guarded<T> guarded) {
+            nodes.add(new Node(depth, StepKind.GUARD, name, estimate));
+            describe(guarded.step(), depth + 1, null, stats, nodes);
+        } else if (step instanceof BehaviorStep.Required<T> required) {
+            nodes.add(new Node(depth, StepKind.REQUIRE, name, estimate));
+            describe(required.step(), depth + 1, null, stats, nodes);
+        } else if (step instanceof BehaviorStep.Mapped<T> mapped) {
+            nodes.add(new Node(depth, StepKind.MAP, name, estimate));
+            describe(mapped.step(), depth + 1, null, stats, nodes);
+        } else if (step instanceof BehaviorStep.Observed<T> observed) {
+            nodes.add(new Node(depth, StepKind.PEEK, name, estimate));
+            describe(observed.step(), depth + 1, null, stats, nodes);
+        } else if (step instanceof BehaviorStep.Memoized<T, ?> memoized) {
+            nodes.add(new Node(depth, StepKind.MEMOIZED, name, estimate));
+            describe(memoized.step(), depth + 1, null, stats, nodes);
+        } else if (step instanceof BehaviorStep.TimeLimited<T> timeLimited) {
+            nodes.add(new Node(depth, StepKind.TIME_LIMITED, name, estimate));
+            describe(timeLimited.step(), depth + 1, null, stats, nodes);
+        } else if (step instanceof BehaviorStep.Declared<T> declared) {
+            nodes.add(new Node(depth, StepKind.DECLARED, name, estimate));
+            describe(declared.step(), depth + 1, null, stats, nodes);
+        } else {
+            nodes.add(new Node(depth, StepKind.STEP, name, estimate));
+        }
+    }
+
+    /** 頂層節點的種類；declare 包裝者取其內層 */
+    private static StepKind kindBehindDeclare(List<Node> nodes, int first) {
+        int index = first;
+        while (nodes.get(index).kind() == StepKind.DECLARED && index + 1 < nodes.size()) {
+            index++;
+        }
+        return nodes.get(index).kind();
+    }
+
+    /** 每擋下一筆請求的預期成本；完全不擋者為無限大 */
+    private static double rank(StepStats.Snapshot snapshot) {
+        double rejectRate = 1d - snapshot.passRate();
+        return rejectRate <= 0d ? Double.POSITIVE_INFINITY : snapshot.meanNanos() / rejectRate;
+    }
+
+    private static <T> boolean dependent(BehaviorStep<T> earlier, BehaviorStep<T> later) {
+        BehaviorStep.Declared<T> e = ScheduledBehaviorPipeline.declarationOf(earlier);
+        BehaviorStep.Declared<T> l = ScheduledBehaviorPipeline.declarationOf(later);
+        return e != null && l != null && e.conflictsWith(l);
+    }
+
+    private static String micros(double nanos) {
+        return String.format(Locale.ROOT, "%.1fus", nanos / 1_000d);
+    }
+
+}
@@ -0,0 +1,79 @@
+package org.dotspace.oofp.utils.dsl.pipeline;
+
+import org.dotspace.oofp.enumeration.stepcontext.StepOutcome;
+import org.dotspace.oofp.model.dto.behaviorstep.AttributeBudget;
+import org.dotspace.oofp.model.dto.behaviorstep.StepContext;
+import org.dotspace.oofp.model.dto.behaviorstep.Violations;
+import org.dotspace.oofp.utils.arena.ArenaPayload;
+import org.dotspace.oofp.utils.dsl.BehaviorStep;
+import org.dotspace.oofp.utils.dsl.pipeline.metrics.PipelineMetrics;
+import org.dotspace.oofp.utils.dsl.pipeline.metrics.ViolationHeavyHitters;
+import org.dotspace.oofp.utils.functional.monad.validation.Validation;
+import org.dotspace.oofp.utils.jfr.FlightEvents;
+
+import java.util.function.Supplier;
+
+/**
+ * BehaviorPipeline 的執行設定（withMetrics / withViolationStats / withAttributeBudget）。
+ * compile() 與 schedule() 取用當時的快照，與 BehaviorPipeline 共用逐 Step 記錄、AttributeBudget 與 ArenaPayload 登記。
+ */
+record PipelineSettings(PipelineMetrics metrics, ViolationHeavyHitters violationStats,
+                        AttributeBudget attributeBudget) {
+
+    static final PipelineSettings NONE = new PipelineSettings(null, null, null);
+
+    PipelineSettings withMetrics(PipelineMetrics metrics) {
+        return new PipelineSettings(metrics, violationStats, attributeBudget);
+    }
+
+    PipelineSettings withViolationStats(ViolationHeavyHitters violationStats) {
+        return new PipelineSettings(metrics, violationStats, attributeBudget);
+    }
+
+    PipelineSettings withAttributeBudget(AttributeBudget attributeBudget) {
+        return new PipelineSettings(metrics, violationStats, attributeBudget);
+    }
+
+    boolean instrumented() {
+        return metrics != null || violationStats != null;
+    }
+
+    /** 單一頂層 Step 的執行：JFR 事件，以及啟用時的 PipelineMetrics / ViolationHeavyHitters 記錄 */
+    <T> Validation<Violations, StepContext<T>> execute(
+            Supplier<String> stepName, BehaviorStep<T> step, StepContext<T> context) {
+        if (!instrumented()) {
+            return FlightEvents.step(stepName, step, context);
+        }
+
+        long start = System.nanoTime();
+        Validation<Violations, StepContext<T>> result = FlightEvents.step(stepName, step, context);
+        record(stepName.get(), System.nanoTime() - start, result);
+        return result;
+    }
+
+    <T> void record(String stepName, long nanos, Validation<Violations, StepContext<T>> result) {
+        if (metrics != null) {
+            metrics.record(stepName, nanos, StepOutcome.of(result),
+                    result.error()
+                            .map(violations -> violations.getViolationCollection().size())
+                            .orElse(0));
+        }
+        if (violationStats != null) {
+            result.error().match(violations -> violationStats.record(violations, stepName));
+        }
+    }
+
+    <T> StepContext<T> initialContext(T input) {
+        StepContext<T> context = StepContext.<T>builder()
+                .withPayload(input)
+                .withViolations(Violations.empty())
+                .build();
+        return attributeBudget == null ? context : context.withAttributeBudget(attributeBudget);
+    }
+
+    /** 同 initialContext，input 為 ArenaPayload 時登記為 context 的資源，由呼叫端在結束時釋放 */
+    <T> StepContext<T> trackedContext(T input) {
+        StepContext<T> context = initialContext(input);
+        return input instanceof ArenaPayload payload ? context.withResource(payload) : context;
+    }
+}
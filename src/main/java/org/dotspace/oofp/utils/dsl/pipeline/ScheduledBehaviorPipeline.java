@@ -0,0 +1,222 @@
+package org.dotspace.oofp.utils.dsl.pipeline;
+
+import org.dotspace.oofp.model.dto.behaviorstep.StepContext;
+import org.dotspace.oofp.model.dto.behaviorstep.Violations;
+import org.dotspace.oofp.utils.dsl.BehaviorStep;
+import org.dotspace.oofp.utils.functional.monad.validation.Validation;
+
+import lombok.NonNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * {@link BehaviorPipeline#schedule(Executor)} 的結果。
+ * 依 {@link BehaviorStep#declare} 宣告的 AttrKey 讀寫建立相依圖，把 Steps 分成數個階段：
+ * <pre>
+ * - 同一階段內的 Steps 彼此沒有資料相依，以 context 副本平行執行，結果依組裝順序合併
+ * - 有資料相依者（讀寫、寫讀、寫寫同一個 attribute，或宣告 writesPayload）一定排在較後的階段
+ * - 未宣告的 Step 視為屏障：與前後所有 Step 都不同階段
+ * - 沿用 schedule() 當時的 withMetrics / withViolationStats / withAttributeBudget，ArenaPayload 同 apply 於結束時釋放
+ * </pre>
+ * 與 {@link BehaviorPipeline} 的差異（Steps 會被重新排序）：
+ * <pre>
+ * - 組裝順序較後、但不相依的 Step 可能排在較前的階段，因此即使較前的 Step invalid（fail-fast）或 aborted，
+ *   同一或更早階段的 Step 仍已執行（含其副作用）；aborted 只在該階段結束後停止後續階段
+ * - fail-fast 時，回傳的是第一個出現 invalid 的階段中組裝順序最前者的 violations
+ * - 平行執行的 Step 替換 payload 但未宣告 writesPayload 時丟出 IllegalStateException
+ * </pre>
+ */
+public final class ScheduledBehaviorPipeline<T> {
+
+    private final List<BehaviorStep<T>> steps;
+    private final int[][] stages;
+    private final PipelineSettings settings;
+    private final Executor executor;
+
+    ScheduledBehaviorPipeline(List<BehaviorStep<T>> steps, PipelineSettings settings, Executor executor) {
+        this.steps = steps;
+        this.stages = plan(steps);
+        this.settings = settings;
+        this.executor = executor;
+    }
+
+    /**
+     * 各階段的 Step 名稱（named 的名稱，未命名者為 "step[index]"），方便檢視排程結果。
+     */
+    public List<List<String>> stages() {
+        return Arrays.stream(stages)
+                .map(stage -> Arrays.stream(stage)
+                        .mapToObj(index -> BehaviorPipeline.stepName(index, steps.get(index)))
+                        .toList())
+                .toList();
+    }
+
+    public <R> Validation<Violations, R> apply(@NonNull T input, @NonNull Function<StepContext<T>, R> resultApplier) {
+        StepContext<T> initial = settings.trackedContext(input);
+        Run<T> run = null;
+        try {
+            run = run(initial, false);
+            return run.result()
+                    .fold(Validation::invalid, context -> Validation.valid(resultApplier.apply(context)));
+        } finally {
+            (run == null ? initial : run.last()).releaseResources();
+        }
+    }
+
+    public <R> Validation<Violations, R> applyCorrectErrors(
+            @NonNull T input, @NonNull Function<StepContext<T>, R> resultApplier) {
+        StepContext<T> initial = settings.trackedContext(input);
+        Run<T> run = null;
+        try {
+            run = run(initial, true);
+            StepContext<T> context = run.last();
+            if (!context.getViolations().isEmpty()) {
+                return Validation.invalid(context.getViolations());
+            }
+
+            return Validation.valid(resultApplier.apply(context));
+        } finally {
+            (run == null ? initial : run.last()).releaseResources();
+        }
+    }
+
+    /**
+     * 以 fail-fast 語意包成單一 Step，可放入 InboundFlow 或其他 pipeline；資源由外層流程釋放。
+     */
+    public BehaviorStep<T> asStep() {
+        return stepContext -> run(stepContext, false).result();
+    }
+
+    /** 執行結果，以及最後一個 context（供結束時釋放資源） */
+    private record Run<T>(Validation<Violations, StepContext<T>> result, StepContext<T> last) {
+    }
+
+    private Run<T> run(StepContext<T> initial, boolean correctErrors) {
+        StepContext<T> context = initial;
+
+        for (int[] stage : stages) {
+            if (context.isDeadlineExceeded()) {
+                Validation<Violations, StepContext<T>> expired = BehaviorPipeline.expired(context, correctErrors);
+                return new Run<>(expired, expired.get().orElse(context));
+            }
+
+            List<Validation<Violations, StepContext<T>>> results = execute(stage, context);
+            StepContext<T> merged = context;
+            for (Validation<Violations, StepContext<T>> stepResult : results) {
+                Validation<Violations, StepContext<T>> result = correctErrors
+                        ? stepResult
+                        : BehaviorPipeline.overBudget(stepResult);
+                if (result.isInvalid()) {
+                    if (!correctErrors) {
+                        return new Run<>(result, merged);
+                    }
+                    merged = merged.mergeViolations(result.error().orElseThrow());
+                } else if (stage.length == 1) {
+                    merged = result.get().orElseThrow();
+                } else {
+                    merged = merged.mergeBranch(context, result.get().orElseThrow());
+                }
+            }
+            context = merged;
+
+            if (context.isAborted()) {
+                break;
+            }
+        }
+
+        return new Run<>(Validation.valid(context), context);
+    }
+
+    private List<Validation<Violations, StepContext<T>>> execute(int[] stage, StepContext<T> context) {
+        if (stage.length == 1) {
+            return List.of(execute(stage[0], context));
+        }
+
+        List<CompletableFuture<Validation<Violations, StepContext<T>>>> forked = Arrays.stream(stage)
+                .skip(1)
+                .mapToObj(index -> CompletableFuture.supplyAsync(() -> execute(index, context.fork()), executor))
+                .toList();
+
+        // 第一個 step 直接在呼叫端執行，少佔用一條執行緒
+        List<Validation<Violations, StepContext<T>>> results = new ArrayList<>(stage.length);
+        results.add(execute(stage[0], context.fork()));
+        forked.forEach(future -> results.add(await(future)));
+
+        for (int k = 0; k < stage.length; k++) {
+            int index = stage[k];
+            results.get(k).get()
+                    .filter(branch -> branch.getPayload() != context.getPayload())
+                    .match(branch -> {
+                        throw new IllegalStateException("step replaced the payload without declaring writesPayload: "
+                                + BehaviorPipeline.stepName(index, steps.get(index)));
+                    });
+        }
+        return results;
+    }
+
+    private Validation<Violations, StepContext<T>> execute(int index, StepContext<T> context) {
+        BehaviorStep<T> step = steps.get(index);
+        return settings.execute(() -> BehaviorPipeline.stepName(index, step), step, context);
+    }
+
+    private static <T> Validation<Violations, StepContext<T>> await(
+            CompletableFuture<Validation<Violations, StepContext<T>>> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 每個 Step 的階段 = 與它相依的前面 Steps 中最大的階段 + 1。
+     */
+    private static <T> int[][] plan(List<BehaviorStep<T>> steps) {
+        int[] levels = new int[steps.size()];
+        List<BehaviorStep.Declared<T>> declarations = steps.stream()
+                .map(ScheduledBehaviorPipeline::declarationOf)
+                .toList();
+
+        for (int i = 0; i < steps.size(); i++) {
+            int level = 0;
+            for (int j = 0; j < i; j++) {
+                if (dependsOn(declarations.get(i), declarations.get(j))) {
+                    level = Math.max(level, levels[j] + 1);
+                }
+            }
+            levels[i] = level;
+        }
+
+        int stageCount = Arrays.stream(levels).max().orElse(-1) + 1;
+        return IntStream.range(0, stageCount)
+                .mapToObj(stage -> IntStream.range(0, levels.length)
+                        .filter(index -> levels[index] == stage)
+                        .toArray())
+                .toArray(int[][]::new);
+    }
+
+    private static <T> boolean dependsOn(BehaviorStep.Declared<T> later, BehaviorStep.Declared<T> earlier) {
+        return later == null || earlier == null || earlier.conflictsWith(later);
+    }
+
+    static <T> BehaviorStep.Declared<T> declarationOf(BehaviorStep<T> step) {
+        if (step instanceof BehaviorStep.Named<T> named) {
+            return declarationOf(named.step());
+        }
+        return step instanceof BehaviorStep.Declared<T> declared ? declared : null;
+    }
+
+}
@@ -0,0 +1,186 @@
+package org.dotspace.oofp.utils.dsl.pipeline;
+
+import org.dotspace.oofp.model.dto.behaviorstep.GeneralViolation;
+import org.dotspace.oofp.model.dto.behaviorstep.StepContext;
+import org.dotspace.oofp.model.dto.behaviorstep.Violations;
+import org.dotspace.oofp.utils.arena.ArenaPayload;
+import org.dotspace.oofp.utils.dsl.pipeline.metrics.ShadowStats;
+import org.dotspace.oofp.utils.functional.monad.validation.Validation;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * {@link BehaviorPipeline#shadow} 的結果：回應永遠來自主流程，候選流程只在抽樣到的請求上於背景執行並比對。
+ * <pre>
+ * - 候選流程在獨立的 executor 上執行，從同一個 input 建立自己的 StepContext，不共用 attributes
+ * - executor 滿載時直接丟棄該次比對（記為 dropped），不阻塞主流程
+ * - 比對結果與兩邊的延遲記錄在 {@link #getStats()}
+ * </pre>
+ * 注意：payload 物件本身會被兩邊共用，候選流程不應就地修改 payload。
+ */
+public final class ShadowBehaviorPipeline<T> {
+
+    private final BehaviorPipeline<T> primary;
+    private final BehaviorPipeline<T> candidate;
+    private final double sampleRate;
+    private final Equivalence<T> equivalence;
+    private final Executor executor;
+
+    @Getter
+    private final ShadowStats stats = new ShadowStats();
+
+    ShadowBehaviorPipeline(BehaviorPipeline<T> primary, BehaviorPipeline<T> candidate,
+                           double sampleRate, Equivalence<T> equivalence, Executor executor) {
+        if (sampleRate < 0d || sampleRate > 1d) {
+            throw new IllegalArgumentException("sampleRate must be within [0, 1]: " + sampleRate);
+        }
+        this.primary = primary;
+        this.candidate = candidate;
+        this.sampleRate = sampleRate;
+        this.equivalence = equivalence;
+        this.executor = executor;
+    }
+
+    /**
+     * 判斷主流程與候選流程的結果是否等價。
+     */
+    @FunctionalInterface
+    public interface Equivalence<T> {
+
+        boolean test(Validation<Violations, StepContext<T>> primary, Validation<Violations, StepContext<T>> candidate);
+
+        /** 同為 valid 且 payload 相等，或同為 invalid 且 violation 名稱集合相同 */
+        static <T> Equivalence<T> sameOutcome() {
+            return (primary, candidate) -> primary.fold(
+                    primaryViolations -> candidate.fold(
+                            candidateViolations -> namesOf(primaryViolations).equals(namesOf(candidateViolations)),
+                            context -> false),
+                    primaryContext -> candidate.fold(
+                            violations -> false,
+                            context -> Objects.equals(primaryContext.getPayload(), context.getPayload())));
+        }
+
+        private static Set<String> namesOf(Violations violations) {
+            return violations.stream()
+                    .map(GeneralViolation::getValidationName)
+                    .collect(Collectors.toSet());
+        }
+    }
+
+    /**
+     * 影子執行預設使用的有界 executor：固定 threads 條 daemon 執行緒，佇列滿時拒絕（即丟棄該次比對）。
+     */
+    public static Executor boundedExecutor(int threads, int queueCapacity) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "behavior-pipeline-shadow");
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    public <R> Validation<Violations, R> apply(@NonNull T input, @NonNull Function<StepContext<T>, R> resultApplier) {
+        if (!sampled()) {
+            return primary.apply(input, resultApplier);
+        }
+        return shadowed(input, resultApplier, primary::apply, candidate::apply);
+    }
+
+    public <R> Validation<Violations, R> applyCorrectErrors(
+            @NonNull T input, @NonNull Function<StepContext<T>, R> resultApplier) {
+        if (!sampled()) {
+            return primary.applyCorrectErrors(input, resultApplier);
+        }
+        return shadowed(input, resultApplier, primary::applyCorrectErrors, candidate::applyCorrectErrors);
+    }
+
+    /** BehaviorPipeline.apply / applyCorrectErrors 的共同形狀 */
+    @FunctionalInterface
+    private interface Run<T> {
+        <R> Validation<Violations, R> run(T input, Function<StepContext<T>, R> resultApplier);
+    }
+
+    /**
+     * resultApplier 在主流程內（資源釋放前）執行，主流程的 context 另外保留給比對使用。
+     * 抽樣時多持有的 ArenaPayload 參考交給候選流程釋放；主流程拋出例外或未能交付時在此釋放。
+     */
+    private <R> Validation<Violations, R> shadowed(T input, Function<StepContext<T>, R> resultApplier,
+                                                   Run<T> primaryRun, Run<T> candidateRun) {
+        retain(input);
+        boolean handedOff = false;
+        try {
+            List<StepContext<T>> primaryContext = new ArrayList<>(1);
+            long start = System.nanoTime();
+            Validation<Violations, R> result = primaryRun.run(input, context -> {
+                primaryContext.add(context);
+                return resultApplier.apply(context);
+            });
+            long elapsed = System.nanoTime() - start;
+
+            Validation<Violations, StepContext<T>> compared = result.fold(
+                    Validation::invalid,
+                    value -> Validation.valid(primaryContext.get(0)));
+            handedOff = true;
+            submit(input, compared, elapsed, () -> candidateRun.run(input, Function.identity()));
+            return result;
+        } finally {
+            if (!handedOff) {
+                release(input);
+            }
+        }
+    }
+
+    private boolean sampled() {
+        return sampleRate > 0d && (sampleRate >= 1d || ThreadLocalRandom.current().nextDouble() < sampleRate);
+    }
+
+    /** ArenaPayload 由兩邊各自的 apply 釋放一次，因此抽樣時先多持有一份 */
+    private static void retain(Object input) {
+        if (input instanceof ArenaPayload payload) {
+            payload.retain();
+        }
+    }
+
+    private static void release(Object input) {
+        if (input instanceof ArenaPayload payload) {
+            payload.release();
+        }
+    }
+
+    private void submit(T input, Validation<Violations, StepContext<T>> primaryResult, long primaryNanos,
+                        Supplier<Validation<Violations, StepContext<T>>> shadowRun) {
+        try {
+            executor.execute(() -> {
+                try {
+                    long start = System.nanoTime();
+                    Validation<Violations, StepContext<T>> candidateResult = shadowRun.get();
+                    long elapsed = System.nanoTime() - start;
+                    stats.recordCompared(primaryNanos, elapsed, equivalence.test(primaryResult, candidateResult));
+                } catch (RuntimeException e) {
+                    stats.recordFailed();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            release(input);
+            stats.recordDropped();
+        }
+    }
+
+}
@@ -0,0 +1,103 @@
+package org.dotspace.oofp.utils.dsl.pipeline;
+
+import org.dotspace.oofp.model.dto.behaviorstep.StepContext;
+import org.dotspace.oofp.utils.dsl.BehaviorStep;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * 攤平後的單一指令。
+ * 由 {@link #flatten(List)} 把 Step 組裝樹（chain / when / peek / requirePayload / andThenMapper / named）
+ * 轉成線性陣列，交給 {@link CompiledBehaviorPipeline} 以單一迴圈執行。
+ */
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+final class StepInstruction<T> {
+
+    enum OpCode {
+        /** 執行不可再攤平的 Step */
+        RUN,
+        /** when 條件：不成立時跳到 target */
+        GUARD,
+        /** requirePayload 檢查 */
+        REQUIRE,
+        /** andThenMapper 轉換 */
+        MAP,
+        /** peek 觀察 */
+        PEEK,
+        /** pipeline 頂層 Step 的邊界：判定 aborted；step 為該頂層 Step，stepIndex 為其位置（供統計命名） */
+        BOUNDARY
+    }
+
+    final OpCode opCode;
+
+    final BehaviorStep<T> step;
+
+    final Predicate<StepContext<T>> guard;
+
+    final BehaviorStep.Required<T> requirement;
+
+    final UnaryOperator<StepContext<T>> mapper;
+
+    final Consumer<StepContext<T>> observer;
+
+    /** GUARD：條件不成立時的跳躍位置；其他：所屬頂層 Step 的 BOUNDARY 位置 */
+    int target;
+
+    /** BOUNDARY：頂層 Step 在 pipeline 中的位置 */
+    int stepIndex;
+
+    static <T> List<StepInstruction<T>> flatten(List<BehaviorStep<T>> steps) {
+        List<StepInstruction<T>> program = new ArrayList<>();
+        for (int index = 0; index < steps.size(); index++) {
+            BehaviorStep<T> step = steps.get(index);
+            int start = program.size();
+            emit(step, program);
+            int boundary = program.size();
+            StepInstruction<T> boundaryInstruction = new StepInstruction<>(
+                    OpCode.BOUNDARY, step, null, null, null, null);
+            boundaryInstruction.stepIndex = index;
+            program.add(boundaryInstruction);
+
+            for (int i = start; i < boundary; i++) {
+                StepInstruction<T> instruction = program.get(i);
+                if (instruction.opCode != OpCode.GUARD) {
+                    instruction.target = boundary;
+                }
+            }
+        }
+        return program;
+    }
+
+    private static <T> void emit(BehaviorStep<T> step, List<StepInstruction<T>> program) {
+        if (step instanceof BehaviorStep.Named<T> named) {
+            emit(named.step(), program);
+        } else if (step instanceof BehaviorStep.Chained<T> chained) {
+            chained.steps().forEach(s -> emit(s, program));
+        } else if (step instanceof BehaviorStep.Guarded<T> guarded) {
+            StepInstruction<T> guard = new StepInstruction<>(
+                    OpCode.GUARD, null, guarded.predicate(), null, null, null);
+            program.add(guard);
+            emit(guarded.step(), program);
+            guard.target = program.size();
+        } else if (step instanceof BehaviorStep.Required<T> required) {
+            emit(required.step(), program);
+            program.add(new StepInstruction<>(OpCode.REQUIRE, null, null, required, null, null));
+        } else if (step instanceof BehaviorStep.Mapped<T> mapped) {
+            emit(mapped.step(), program);
+            program.add(new StepInstruction<>(OpCode.MAP, null, null, null, mapped.mapper(), null));
+        } else if (step instanceof BehaviorStep.Observed<T> observed) {
+            emit(observed.step(), program);
+            program.add(new StepInstruction<>(OpCode.PEEK, null, null, null, null, observed.observer()));
+        } else {
+            program.add(new StepInstruction<>(OpCode.RUN, step, null, null, null, null));
+        }
+    }
+
+}
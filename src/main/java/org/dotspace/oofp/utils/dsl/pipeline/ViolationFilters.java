@@ -2,10 +2,13 @@ package org.dotspace.oofp.utils.dsl.pipeline;
 
 import org.dotspace.oofp.model.dto.behaviorstep.Violations;
 import org.dotspace.oofp.model.dto.behaviorstep.GeneralViolation;
+import lombok.NonNull;
 import lombok.experimental.UtilityClass;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Function;
+import java.util.function.Predicate;
 
 @UtilityClass
 public class ViolationFilters {
@@ -14,14 +17,14 @@ public class ViolationFilters {
      * keepAll：保留所有 violations（不過濾）
      */
     public Function<Violations, Violations> keepAll() {
-        return Function.identity();
+        return matching(violation -> true);
     }
 
     /**
      * dropAll：丟棄所有 violations（總是視為無錯誤）
      */
     public Function<Violations, Violations> dropAll() {
-        return violations -> Violations.from(List.of());
+        return matching(violation -> false);
     }
 
     /**
@@ -29,11 +32,7 @@ public class ViolationFilters {
      * （需要 GeneralViolation 類別支援 isSevere() 判斷）
      */
     public Function<Violations, Violations> onlySevere() {
-        return violations -> Violations.from(
-                violations.stream()
-                        .filter(GeneralViolation::isSevere)
-                        .toList()
-        );
+        return matching(GeneralViolation::isSevere);
     }
 
     /**
@@ -41,11 +40,73 @@ public class ViolationFilters {
      * （需要 GeneralViolation 類別支援 isWarning() 判斷）
      */
     public Function<Violations, Violations> ignoreWarnings() {
-        return violations -> Violations.from(
-                violations.stream()
-                        .filter(vio -> !vio.isWarning())
-                        .toList()
-        );
+        return matching(vio -> !vio.isWarning());
+    }
+
+    /**
+     * matching：自訂條件，只保留符合 predicate 的 violations
+     */
+    public Function<Violations, Violations> matching(@NonNull Predicate<GeneralViolation> predicate) {
+        return new Compiled(List.of(predicate));
+    }
+
+    /**
+     * allOf：依序套用多個 filter；由本類別產生的 filter 會合併為一次走訪，其他 Function 依序套用
+     */
+    public Function<Violations, Violations> allOf(@NonNull List<Function<Violations, Violations>> filters) {
+        return filters.stream()
+                .reduce(keepAll(), Function::andThen);
+    }
+
+    /**
+     * 由多個 predicate 組成的 filter：以 andThen / compose 與另一個 Compiled 串接時合併 predicate，
+     * 套用時只走訪一次 Violations，不產生中間結果。
+     */
+    static final class Compiled implements Function<Violations, Violations> {
+
+        private final List<Predicate<GeneralViolation>> predicates;
+
+        private Compiled(List<Predicate<GeneralViolation>> predicates) {
+            this.predicates = predicates;
+        }
+
+        @Override
+        public Violations apply(Violations violations) {
+            return violations.filter(this::test);
+        }
+
+        private boolean test(GeneralViolation violation) {
+            for (Predicate<GeneralViolation> predicate : predicates) {
+                if (!predicate.test(violation)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <V> Function<Violations, V> andThen(Function<? super Violations, ? extends V> after) {
+            if (after instanceof Compiled next) {
+                return (Function<Violations, V>) merge(this, next);
+            }
+            return Function.super.andThen(after);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <V> Function<V, Violations> compose(Function<? super V, ? extends Violations> before) {
+            if (before instanceof Compiled previous) {
+                return (Function<V, Violations>) merge(previous, this);
+            }
+            return Function.super.compose(before);
+        }
+
+        private static Compiled merge(Compiled first, Compiled second) {
+            List<Predicate<GeneralViolation>> merged = new ArrayList<>(first.predicates);
+            merged.addAll(second.predicates);
+            return new Compiled(List.copyOf(merged));
+        }
     }
 
 }
@@ -0,0 +1,28 @@
+package org.dotspace.oofp.utils.dsl.pipeline.checkpoint;
+
+import java.util.Map;
+
+/**
+ * 批次執行的進度快照。
+ * <pre>
+ * - offset：已處理（且已交給 sink）的筆數，重新執行時由此繼續
+ * - invalidCount：其中 invalid 的筆數
+ * - violationCounts：依 violation 名稱累計的次數
+ * - completed：整批是否已處理完畢
+ * </pre>
+ */
+public record BatchCheckpoint(
+        long offset,
+        long invalidCount,
+        Map<String, Long> violationCounts,
+        boolean completed) {
+
+    public BatchCheckpoint {
+        violationCounts = violationCounts == null ? Map.of() : Map.copyOf(violationCounts);
+    }
+
+    public static BatchCheckpoint start() {
+        return new BatchCheckpoint(0, 0, Map.of(), false);
+    }
+
+}
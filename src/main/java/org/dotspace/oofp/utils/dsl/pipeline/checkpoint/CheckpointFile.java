@@ -0,0 +1,82 @@
+package org.dotspace.oofp.utils.dsl.pipeline.checkpoint;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.dotspace.oofp.model.dto.behaviorstep.Violations;
+import org.dotspace.oofp.utils.functional.monad.validation.Validation;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * 以本機 JSON 檔保存 BatchCheckpoint。
+ * 寫入時先寫暫存檔再搬移取代，crash 時不會留下半個檔案。
+ */
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public final class CheckpointFile {
+
+    public static final String CHECKPOINT_READ_FAILED = "pipeline.checkpoint.read.failed";
+    public static final String CHECKPOINT_WRITE_FAILED = "pipeline.checkpoint.write.failed";
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Getter
+    private final Path path;
+
+    public static CheckpointFile at(@NonNull Path path) {
+        return new CheckpointFile(path);
+    }
+
+    /** 檔案不存在時視為從頭開始 */
+    public Validation<Violations, BatchCheckpoint> load() {
+        if (!Files.exists(path)) {
+            return Validation.valid(BatchCheckpoint.start());
+        }
+        try {
+            return Validation.valid(objectMapper.readValue(path.toFile(), BatchCheckpoint.class));
+        } catch (IOException e) {
+            return Validation.invalid(Violations.violate(CHECKPOINT_READ_FAILED,
+                    String.format("Failed to read checkpoint: %s => throws %s", path, e)));
+        }
+    }
+
+    public Validation<Violations, BatchCheckpoint> save(@NonNull BatchCheckpoint checkpoint) {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            objectMapper.writeValue(temp.toFile(), checkpoint);
+            try {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return Validation.valid(checkpoint);
+        } catch (IOException e) {
+            return Validation.invalid(Violations.violate(CHECKPOINT_WRITE_FAILED,
+                    String.format("Failed to write checkpoint: %s => throws %s", path, e)));
+        }
+    }
+
+    /** 刪除檢查點，下次執行從頭開始 */
+    public Validation<Violations, Path> clear() {
+        try {
+            Files.deleteIfExists(path);
+            return Validation.valid(path);
+        } catch (IOException e) {
+            return Validation.invalid(Violations.violate(CHECKPOINT_WRITE_FAILED,
+                    String.format("Failed to delete checkpoint: %s => throws %s", path, e)));
+        }
+    }
+
+}
@@ -0,0 +1,58 @@
+package org.dotspace.oofp.utils.dsl.pipeline.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * AttributeBudget 的記帳統計：受計量的寫入次數與位元組、被拒絕的寫入，
+ * 以及單一 context 與各 attribute 觀察到的最大估計大小。
+ */
+public final class AttributeMemoryStats {
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder acceptedBytes = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAccumulator peakContextBytes = new LongAccumulator(Math::max, 0L);
+    private final Map<String, LongAccumulator> peakAttributeBytes = new ConcurrentHashMap<>();
+
+    public void recordAccepted(String name, long bytes, long contextBytes) {
+        accepted.increment();
+        acceptedBytes.add(bytes);
+        peakContextBytes.accumulate(contextBytes);
+        peakAttributeBytes.computeIfAbsent(name, key -> new LongAccumulator(Math::max, 0L))
+                .accumulate(bytes);
+    }
+
+    public void recordRejected(String name, long bytes) {
+        rejected.increment();
+        peakAttributeBytes.computeIfAbsent(name, key -> new LongAccumulator(Math::max, 0L))
+                .accumulate(bytes);
+    }
+
+    public Snapshot snapshot() {
+        Map<String, Long> peaks = new TreeMap<>();
+        peakAttributeBytes.forEach((name, peak) -> peaks.put(name, peak.get()));
+        return new Snapshot(accepted.sum(), acceptedBytes.sum(), rejected.sum(), peakContextBytes.get(),
+                Map.copyOf(peaks));
+    }
+
+    public void reset() {
+        accepted.reset();
+        acceptedBytes.reset();
+        rejected.reset();
+        peakContextBytes.reset();
+        peakAttributeBytes.clear();
+    }
+
+    public record Snapshot(
+            long accepted,
+            long acceptedBytes,
+            long rejected,
+            long peakContextBytes,
+            Map<String, Long> peakAttributeBytes) {
+    }
+
+}
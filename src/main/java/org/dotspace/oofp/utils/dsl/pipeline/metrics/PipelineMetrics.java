@@ -0,0 +1,41 @@
+package org.dotspace.oofp.utils.dsl.pipeline.metrics;
+
+import org.dotspace.oofp.enumeration.stepcontext.StepOutcome;
+
+import lombok.NoArgsConstructor;
+import lombok.NonNull;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 以 stepName 為索引的 Step 統計集合。
+ * 可由多條 BehaviorPipeline 共用（BehaviorPipeline.withMetrics(...)），step 名稱相同即累計在一起。
+ */
+@NoArgsConstructor(staticName = "create")
+public final class PipelineMetrics {
+
+    private final Map<String, StepStats> stats = new ConcurrentHashMap<>();
+
+    public StepStats stats(@NonNull String stepName) {
+        StepStats existing = stats.get(stepName);
+        return existing != null ? existing : stats.computeIfAbsent(stepName, StepStats::new);
+    }
+
+    public void record(String stepName, long nanos, StepOutcome outcome, int violationCount) {
+        stats(stepName).record(nanos, outcome, violationCount);
+    }
+
+    /** 依 stepName 排序的快照 */
+    public Map<String, StepStats.Snapshot> snapshot() {
+        Map<String, StepStats.Snapshot> result = new TreeMap<>();
+        stats.forEach((name, stepStats) -> result.put(name, stepStats.snapshot()));
+        return result;
+    }
+
+    public void reset() {
+        stats.values().forEach(StepStats::reset);
+    }
+
+}
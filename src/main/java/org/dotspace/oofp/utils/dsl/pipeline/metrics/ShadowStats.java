@@ -0,0 +1,69 @@
+package org.dotspace.oofp.utils.dsl.pipeline.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 影子執行（ShadowBehaviorPipeline）的比對統計：結果一致 / 不一致、被丟棄與失敗次數，
+ * 以及同一批抽樣請求在主流程與候選流程的延遲分佈。
+ */
+public final class ShadowStats {
+
+    private final LatencyHistogram primaryLatency = new LatencyHistogram();
+    private final LatencyHistogram candidateLatency = new LatencyHistogram();
+    private final LongAdder matched = new LongAdder();
+    private final LongAdder mismatched = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    public void recordCompared(long primaryNanos, long candidateNanos, boolean equivalent) {
+        primaryLatency.record(primaryNanos);
+        candidateLatency.record(candidateNanos);
+        (equivalent ? matched : mismatched).increment();
+    }
+
+    /** executor 已滿，未執行候選流程 */
+    public void recordDropped() {
+        dropped.increment();
+    }
+
+    /** 候選流程或比對拋出例外 */
+    public void recordFailed() {
+        failed.increment();
+    }
+
+    public Snapshot snapshot() {
+        return new Snapshot(matched.sum(), mismatched.sum(), dropped.sum(), failed.sum(),
+                primaryLatency.percentileNanos(50), candidateLatency.percentileNanos(50),
+                primaryLatency.percentileNanos(99), candidateLatency.percentileNanos(99));
+    }
+
+    public void reset() {
+        primaryLatency.reset();
+        candidateLatency.reset();
+        matched.reset();
+        mismatched.reset();
+        dropped.reset();
+        failed.reset();
+    }
+
+    public record Snapshot(
+            long matched,
+            long mismatched,
+            long dropped,
+            long failed,
+            long primaryP50Nanos,
+            long candidateP50Nanos,
+            long primaryP99Nanos,
+            long candidateP99Nanos) {
+
+        public long compared() {
+            return matched + mismatched;
+        }
+
+        /** 一致率：比對過的請求中結果一致的比例 */
+        public double matchRate() {
+            return compared() == 0 ? 1d : (double) matched / compared();
+        }
+    }
+
+}
@@ -0,0 +1,72 @@
+package org.dotspace.oofp.utils.dsl.pipeline.metrics;
+
+import org.dotspace.oofp.enumeration.stepcontext.StepOutcome;
+
+import lombok.Getter;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 單一 Step 的執行統計：延遲直方圖、valid / invalid / aborted 次數與 violation 數量。
+ * 所有計數皆為 LongAdder，可在高併發下常駐開啟。
+ */
+public final class StepStats {
+
+    @Getter
+    private final String stepName;
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder valid = new LongAdder();
+    private final LongAdder invalid = new LongAdder();
+    private final LongAdder aborted = new LongAdder();
+    private final LongAdder violations = new LongAdder();
+
+    StepStats(String stepName) {
+        this.stepName = stepName;
+    }
+
+    public void record(long nanos, StepOutcome outcome, int violationCount) {
+        latency.record(nanos);
+        switch (outcome) {
+            case VALID -> valid.increment();
+            case INVALID -> invalid.increment();
+            case ABORTED -> aborted.increment();
+        }
+        if (violationCount > 0) {
+            violations.add(violationCount);
+        }
+    }
+
+    public Snapshot snapshot() {
+        return new Snapshot(stepName, latency.count(), valid.sum(), invalid.sum(), aborted.sum(),
+                violations.sum(), latency.meanNanos(), latency.percentileNanos(50),
+                latency.percentileNanos(99), latency.maxNanos());
+    }
+
+    public void reset() {
+        latency.reset();
+        valid.reset();
+        invalid.reset();
+        aborted.reset();
+        violations.reset();
+    }
+
+    public record Snapshot(
+            String stepName,
+            long count,
+            long valid,
+            long invalid,
+            long aborted,
+            long violations,
+            double meanNanos,
+            long p50Nanos,
+            long p99Nanos,
+            long maxNanos) {
+
+        /** 通過率：invalid 以外（valid + aborted）佔全部執行次數的比例 */
+        public double passRate() {
+            return count == 0 ? 1d : (double) (valid + aborted) / count;
+        }
+    }
+
+}
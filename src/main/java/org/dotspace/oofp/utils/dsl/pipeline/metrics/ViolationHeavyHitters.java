@@ -0,0 +1,220 @@
+package org.dotspace.oofp.utils.dsl.pipeline.metrics;
+
+import org.dotspace.oofp.enumeration.stepcontext.ViolationSeverity;
+import org.dotspace.oofp.model.dto.behaviorstep.GeneralViolation;
+import org.dotspace.oofp.model.dto.behaviorstep.Violations;
+
+import lombok.NonNull;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * 無鎖的 violation 熱門排行：以 (validationName, stepName, severity) 為 key，
+ * 用 count-min sketch 估算滾動時間窗內的次數，並追蹤前 K 名。
+ * <pre>
+ * - 時間窗切成 slots 個時段，每個時段一份 sketch；過期時段在下一次寫入時清空重用
+ * - 估計值只會高估（sketch 碰撞），誤差約為 窗內總數 * e / width
+ * - 候選 key 最多保留 4K 個，超過時由搶到的執行緒裁剪為前 K 名，其他執行緒不等待
+ * - 時段切換時的清空與並行寫入之間不加鎖，邊界上可能少算幾筆
+ * </pre>
+ * {@link #global()} 為程序共用的實例；寫入由呼叫端決定（BehaviorPipeline.withViolationStats 或
+ * StepLogger.tagAndLogOnError 指定 violationStats 的版本），同一筆失敗只應由其中一處記錄。
+ */
+public final class ViolationHeavyHitters {
+
+    public static final int DEFAULT_DEPTH = 4;
+    public static final int DEFAULT_WIDTH = 1 << 11;
+    public static final int DEFAULT_TOP_K = 20;
+    public static final int DEFAULT_SLOTS = 6;
+    public static final Duration DEFAULT_SLOT_DURATION = Duration.ofSeconds(10);
+
+    private static final long[] SEEDS = {
+            0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L,
+            0xFF51AFD7ED558CCDL, 0xC4CEB9FE1A85EC53L, 0x94D049BB133111EBL, 0xBF58476D1CE4E5B9L
+    };
+
+    private static final ViolationHeavyHitters GLOBAL = create(DEFAULT_SLOTS, DEFAULT_SLOT_DURATION,
+            DEFAULT_DEPTH, DEFAULT_WIDTH, DEFAULT_TOP_K);
+
+    private final int depth;
+    private final int mask;
+    private final int topK;
+    private final long slotNanos;
+    private final LongSupplier clock;
+    private final AtomicLongArray[] slots;
+    private final AtomicLong[] slotEpochs;
+    private final Map<Key, Boolean> candidates = new ConcurrentHashMap<>();
+    private final AtomicBoolean pruning = new AtomicBoolean();
+    private volatile Admission admission = new Admission(-1L, 0L);
+
+    private ViolationHeavyHitters(int slotCount, Duration slotDuration, int depth, int width, int topK,
+                                  LongSupplier clock) {
+        if (slotCount <= 0 || depth <= 0 || depth > SEEDS.length || topK <= 0) {
+            throw new IllegalArgumentException("invalid sketch settings: slots=" + slotCount
+                    + ", depth=" + depth + ", topK=" + topK);
+        }
+        if (width <= 0 || Integer.bitCount(width) != 1) {
+            throw new IllegalArgumentException("width must be a power of two: " + width);
+        }
+        if (slotDuration.isNegative() || slotDuration.isZero()) {
+            throw new IllegalArgumentException("slotDuration must be positive: " + slotDuration);
+        }
+        this.depth = depth;
+        this.mask = width - 1;
+        this.topK = topK;
+        this.slotNanos = slotDuration.toNanos();
+        this.clock = clock;
+        this.slots = new AtomicLongArray[slotCount];
+        this.slotEpochs = new AtomicLong[slotCount];
+        for (int i = 0; i < slotCount; i++) {
+            slots[i] = new AtomicLongArray(depth * width);
+            slotEpochs[i] = new AtomicLong(-1L);
+        }
+    }
+
+    public static ViolationHeavyHitters create(int slotCount, @NonNull Duration slotDuration,
+                                               int depth, int width, int topK) {
+        return new ViolationHeavyHitters(slotCount, slotDuration, depth, width, topK, System::nanoTime);
+    }
+
+    /** 指定時鐘（nanoseconds），用於模擬時間 */
+    public static ViolationHeavyHitters create(int slotCount, @NonNull Duration slotDuration, int depth, int width,
+                                               int topK, @NonNull LongSupplier clock) {
+        return new ViolationHeavyHitters(slotCount, slotDuration, depth, width, topK, clock);
+    }
+
+    public static ViolationHeavyHitters global() {
+        return GLOBAL;
+    }
+
+    public record Key(String validationName, String stepName, ViolationSeverity severity) {
+
+        public static Key of(GeneralViolation violation, String defaultStepName) {
+            return new Key(violation.getValidationName(),
+                    violation.getStepName() != null ? violation.getStepName() : defaultStepName,
+                    violation.getSeverity());
+        }
+    }
+
+    public record Entry(Key key, long estimate) {
+    }
+
+    /** 最近一次裁剪時第 K 名的估計值；只在同一時段內有效，時段切換後任何 key 都可再進入候選 */
+    private record Admission(long epoch, long threshold) {
+    }
+
+    /** 記錄一批 violations；未標記 stepName 者使用 defaultStepName（可為 null） */
+    public void record(@NonNull Violations violations, String defaultStepName) {
+        violations.stream().forEach(violation -> record(Key.of(violation, defaultStepName)));
+    }
+
+    public void record(@NonNull Key key) {
+        long epoch = clock.getAsLong() / slotNanos;
+        AtomicLongArray sketch = slotFor(epoch);
+        long hash = key.hashCode();
+        for (int row = 0; row < depth; row++) {
+            sketch.incrementAndGet(cell(row, hash));
+        }
+
+        if (candidates.containsKey(key)) {
+            return;
+        }
+        Admission current = admission;
+        if (current.epoch() != epoch || candidates.size() < topK || estimate(key, epoch) >= current.threshold()) {
+            candidates.put(key, Boolean.TRUE);
+            if (candidates.size() > topK * 4) {
+                prune(epoch);
+            }
+        }
+    }
+
+    /** 滾動時間窗內 key 的估計次數（只會高估） */
+    public long estimate(@NonNull Key key) {
+        return estimate(key, clock.getAsLong() / slotNanos);
+    }
+
+    /** 滾動時間窗內估計次數最多的前 K 個 key，依次數遞減 */
+    public List<Entry> topK() {
+        long epoch = clock.getAsLong() / slotNanos;
+        return candidates.keySet().stream()
+                .map(key -> new Entry(key, estimate(key, epoch)))
+                .filter(entry -> entry.estimate() > 0)
+                .sorted(Comparator.comparingLong(Entry::estimate).reversed())
+                .limit(topK)
+                .toList();
+    }
+
+    public void reset() {
+        for (int i = 0; i < slots.length; i++) {
+            slotEpochs[i].set(-1L);
+            clear(slots[i]);
+        }
+        candidates.clear();
+        admission = new Admission(-1L, 0L);
+    }
+
+    private AtomicLongArray slotFor(long epoch) {
+        int index = (int) (epoch % slots.length);
+        AtomicLong slotEpoch = slotEpochs[index];
+        long current = slotEpoch.get();
+        if (current < epoch && slotEpoch.compareAndSet(current, epoch)) {
+            clear(slots[index]);
+        }
+        return slots[index];
+    }
+
+    private long estimate(Key key, long epoch) {
+        long hash = key.hashCode();
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            int cell = cell(row, hash);
+            long sum = 0L;
+            for (int i = 0; i < slots.length; i++) {
+                long slotEpoch = slotEpochs[i].get();
+                if (slotEpoch >= 0 && epoch - slotEpoch < slots.length) {
+                    sum += slots[i].get(cell);
+                }
+            }
+            min = Math.min(min, sum);
+        }
+        return min;
+    }
+
+    private void prune(long epoch) {
+        if (!pruning.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            List<Entry> ranked = candidates.keySet().stream()
+                    .map(key -> new Entry(key, estimate(key, epoch)))
+                    .sorted(Comparator.comparingLong(Entry::estimate).reversed())
+                    .toList();
+            for (int i = topK; i < ranked.size(); i++) {
+                candidates.remove(ranked.get(i).key());
+            }
+            admission = new Admission(epoch, ranked.get(Math.min(topK, ranked.size()) - 1).estimate());
+        } finally {
+            pruning.set(false);
+        }
+    }
+
+    private int cell(int row, long hash) {
+        long h = (hash + SEEDS[row]) * SEEDS[(row + 1) % SEEDS.length];
+        h ^= h >>> 31;
+        return row * (mask + 1) + (int) (h & mask);
+    }
+
+    private static void clear(AtomicLongArray sketch) {
+        for (int i = 0; i < sketch.length(); i++) {
+            sketch.set(i, 0L);
+        }
+    }
+}
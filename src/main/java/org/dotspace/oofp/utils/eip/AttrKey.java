@@ -2,6 +2,7 @@ package org.dotspace.oofp.utils.eip;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 
+import org.dotspace.oofp.model.dto.behaviorstep.AttributeSlots;
 import org.dotspace.oofp.model.dto.behaviorstep.Violations;
 import org.dotspace.oofp.model.dto.behaviorstep.StepContext;
 import org.dotspace.oofp.utils.functional.Casters;
@@ -10,24 +11,38 @@ import org.dotspace.oofp.utils.functional.monad.validation.Validation;
 
 import java.util.function.Function;
 
-public record AttrKey<R>(String name, TypeReference<R> typeRef, Function<Object, R> caster) {
+/**
+ * @param slot AttributeSlots 配置的槽位；-1 表示一般 attribute（以名稱存取）
+ */
+public record AttrKey<R>(String name, TypeReference<R> typeRef, Function<Object, R> caster, int slot) {
+
+    public AttrKey(String name, TypeReference<R> typeRef, Function<Object, R> caster) {
+        this(name, typeRef, caster, -1);
+    }
 
     public static <R> AttrKey<R> of(String name, TypeReference<R> typeRef) {
         return new AttrKey<>(name, typeRef, Casters.cast(typeRef));
     }
 
+    /**
+     * 配置固定槽位的 AttrKey，供每則訊息都會讀寫的常用 attribute 使用（如 InboundAttrKeys）。
+     * 透過此 key 寫入的值存放於 StepContext 的槽位陣列，讀取時不需字串雜湊與 cast；槽位額滿時退回一般 attribute。
+     */
+    public static <R> AttrKey<R> slotted(String name, TypeReference<R> typeRef) {
+        return new AttrKey<>(name, typeRef, Casters.cast(typeRef), AttributeSlots.register(name, typeRef.getType()));
+    }
+
     public <T> R getOrElse(StepContext<T> stepContext, R defaultValue) {
         return maybe(stepContext)
                 .orElse(defaultValue);
     }
 
     public <T> Maybe<R> maybe(StepContext<T> stepContext) {
-        return stepContext.getAttribute(name)
-                .flatMap(inst -> Maybe.given(inst).map(caster));
+        return stepContext.findAttribute(this);
     }
 
     public <T> Validation<Violations, R> require(StepContext<T> stepContext) {
-        return stepContext.requireAttr(name, typeRef);
+        return stepContext.requireAttr(this);
     }
 
 }
@@ -8,10 +8,21 @@ import lombok.experimental.UtilityClass;
 import java.time.Instant;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @UtilityClass
 public class InboundScopes {
 
+    /** InboundQueryView 會讀到的 attributes（供 BehaviorStep.declare 使用） */
+    public static final Set<AttrKey<?>> QUERY_VIEW_READS = Set.of(
+            InboundAttrKeys.ENVELOPE, InboundAttrKeys.SOURCE, InboundAttrKeys.SOURCE_ID,
+            InboundAttrKeys.META, InboundAttrKeys.CLAIMS);
+
+    /** 完整 InboundScope 會讀到的 attributes（再加上 status 與 failures） */
+    public static final Set<AttrKey<?>> SCOPE_READS = Set.of(
+            InboundAttrKeys.ENVELOPE, InboundAttrKeys.SOURCE, InboundAttrKeys.SOURCE_ID,
+            InboundAttrKeys.META, InboundAttrKeys.CLAIMS, InboundAttrKeys.STATUS, InboundAttrKeys.FAILURES);
+
     public <T> InboundScope<T> from(StepContext<T> stepContext) {
         Maybe<InboundEnvelope<?>> envelope = InboundAttrKeys.ENVELOPE.maybe(stepContext);
 
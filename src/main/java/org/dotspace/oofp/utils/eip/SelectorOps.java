@@ -4,6 +4,7 @@ import org.dotspace.oofp.utils.dsl.BehaviorStep;
 import org.dotspace.oofp.model.dto.behaviorstep.StepContext;
 
 import org.dotspace.oofp.utils.eip.routekey.RouteKey;
+import org.dotspace.oofp.utils.jfr.FlightEvents;
 import lombok.experimental.UtilityClass;
 
 import java.util.function.Function;
@@ -16,7 +17,7 @@ public class SelectorOps {
         return sc -> {
             var key = decider.apply(sc);
             var step = routeResolver.apply(key);
-            return step.execute(sc);
+            return FlightEvents.route(key, step, sc);
         };
     }
 }
@@ -47,7 +47,7 @@ public class SplitterOps {
                 .filter(predicate, Violations.violate("split.predicate.not-matched",
                         "predicate not matched"))
                 .flatMap(validatedItemsResolver) // 這裡得到 List<I>
-                .map(items -> sc.withAttribute(itemsAttrKey.name(), items));
+                .flatMap(items -> sc.withAttributeWithinBudget(itemsAttrKey.name(), items)); // 超出 AttributeBudget 時 invalid
     }
 
     private <I> Predicate<List<I>> nonEmpty() {
@@ -5,12 +5,22 @@ import org.dotspace.oofp.utils.dsl.BehaviorStep;
 import org.dotspace.oofp.model.dto.behaviorstep.Violations;
 import org.dotspace.oofp.model.dto.behaviorstep.StepContext;
 import org.dotspace.oofp.utils.functional.monad.validation.Validation;
+import org.dotspace.oofp.utils.jfr.FlightEvents;
+
+import lombok.NonNull;
 
 @FunctionalInterface
 public interface InboundFlow<T> {
 
     Validation<Violations, StepContext<T>> from(InboundEnvelope<T> envelope);
 
+    /**
+     * 以 JFR InboundFlowEvent 記錄 from 的執行（flowName、source、outcome、violation 數）。
+     */
+    static <T> InboundFlow<T> recorded(@NonNull String flowName, @NonNull InboundFlow<T> flow) {
+        return env -> FlightEvents.flow(flowName, env, flow::from);
+    }
+
     default InboundFlow<T> andThen(BehaviorStep<T> step) {
         return env -> from(env).flatMap(step::execute);
     }
@@ -12,6 +12,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import lombok.NonNull;
 import lombok.experimental.UtilityClass;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -20,8 +21,16 @@ import java.util.Objects;
 public class InboundFlows {
 
     public <T> InboundFlow<T> statelessFlow() {
-        return env -> Validation.<Violations, InboundEnvelope<T>>valid(env)
-                .flatMap(EnvelopeTranslators.toStepContext(InboundFlows::resolveInboundMetaSchema));
+        return InboundFlow.recorded("stateless", env -> Validation.<Violations, InboundEnvelope<T>>valid(env)
+                .flatMap(EnvelopeTranslators.toStepContext(InboundFlows::resolveInboundMetaSchema)));
+    }
+
+    /**
+     * 同 statelessFlow，並以 receivedAt + slo 設定處理期限；之後的 BehaviorPipeline.applyContext 會在期限後停止。
+     */
+    public <T> InboundFlow<T> statelessFlow(@NonNull Duration slo) {
+        return InboundFlow.recorded("stateless", env -> Validation.<Violations, InboundEnvelope<T>>valid(env)
+                .flatMap(EnvelopeTranslators.toStepContext(InboundFlows::resolveInboundMetaSchema, slo)));
     }
 
     public <T> Validation<Violations, StepContext<T>> stateless(
@@ -70,8 +79,9 @@ public class InboundFlows {
 
     public static <T> InboundFlow<T> statefulFlow(StatefulGate<T> gate) {
         // gate 只負責 stateful 相關（claims/query/status/decision），不包含 reader/writer
-        return InboundFlows.<T>statelessFlow()
+        InboundFlow<T> flow = InboundFlows.<T>statelessFlow()
                 .andThen(gate.step());
+        return InboundFlow.recorded("stateful", flow);
     }
 
     public <T> Validation<Violations, StepContext<T>> stateful(
@@ -4,9 +4,14 @@ import org.dotspace.oofp.model.dto.eip.InboundAttrKeys;
 import org.dotspace.oofp.model.dto.eip.InboundEnvelope;
 import org.dotspace.oofp.model.dto.behaviorstep.Violations;
 import org.dotspace.oofp.model.dto.behaviorstep.StepContext;
+import org.dotspace.oofp.utils.arena.ArenaPayload;
+import org.dotspace.oofp.utils.functional.monad.Maybe;
 import org.dotspace.oofp.utils.functional.monad.validation.Validation;
+import lombok.NonNull;
 import lombok.experimental.UtilityClass;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.function.Function;
 
 @UtilityClass
@@ -33,7 +38,7 @@ public class EnvelopeTranslators {
             var normalized = InboundMetaNormalizer.normalize(env.meta(), schema);
             vio = vio.join(normalized.violations());
 
-            // 3) 建 StepContext（不希望 setAttribute，就用 withAttribute chain）
+            // 3) 建 StepContext（不希望 setAttribute，就用 withAttribute chain）；ArenaPayload 登記為資源，由 pipeline 結束時釋放
             StepContext<R> sc = StepContext.<R>builder()
                     .withPayload(env.payload())
                     .build()
@@ -41,14 +46,33 @@ public class EnvelopeTranslators {
                     .withAttribute(InboundAttrKeys.SOURCE, env.source())
                     .withAttribute(InboundAttrKeys.SOURCE_ID, env.sourceId())
                     .withAttribute(InboundAttrKeys.META, normalized.meta());
+            if (env.payload() instanceof ArenaPayload payload) {
+                sc = sc.withResource(payload);
+            }
 
-            // 4) 回傳 validation
-            return vio.isEmpty()
-                    ? Validation.valid(sc)
-                    : Validation.invalid(vio);
+            // 4) 回傳 validation；invalid 時 context 不會交給 pipeline，登記的資源在此釋放
+            if (!vio.isEmpty()) {
+                sc.releaseResources();
+                return Validation.invalid(vio);
+            }
+            return Validation.valid(sc);
         };
     }
 
+    /**
+     * 同 toStepContext，並以 receivedAt + slo 設定 StepContext 的處理期限（StepContext.withDeadline）。
+     * receivedAt 為 null 時以目前時間起算。
+     */
+    public <R> Function<InboundEnvelope<R>, Validation<Violations, StepContext<R>>> toStepContext(
+            InboundMetaSchemaResolver schemaResolver, @NonNull Duration slo) {
+        Function<InboundEnvelope<R>, Validation<Violations, StepContext<R>>> translator =
+                toStepContext(schemaResolver);
+        return env -> translator.apply(env)
+                .map(sc -> sc.withDeadline(Maybe.given(env.receivedAt())
+                        .orElseGet(Instant::now)
+                        .plus(slo)));
+    }
+
     @FunctionalInterface
     public interface InboundMetaSchemaResolver {
         InboundMetaSchema resolve(InboundEnvelope.InboundSource source);
@@ -67,7 +67,7 @@ public class FileInboundSourceOps {
                                         "invalid inboundFile"))
                                 .flatMap(reader)
                                 .peek(r -> debug("flatRead.read-result={}", summarize(r)))
-                                .map(r -> resolved.withAttribute(attrKey.name(), r))
+                                .flatMap(r -> resolved.withAttributeWithinBudget(attrKey.name(), r))
                                 .peek(sc -> debugStepContextAttributeValue(attrKey, sc));
                     })
                     .peekError(violations -> error(
@@ -4,6 +4,8 @@ import org.dotspace.oofp.model.dto.eip.InboundEnvelope;
 import org.dotspace.oofp.model.dto.eip.InboundMetaHeaders;
 import org.dotspace.oofp.model.dto.eip.InboundMetaKeys;
 import org.dotspace.oofp.model.dto.eip.MqttMeta;
+import org.dotspace.oofp.utils.arena.ArenaPayload;
+import org.dotspace.oofp.utils.arena.PayloadArena;
 import org.dotspace.oofp.utils.functional.monad.Maybe;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.NonNull;
@@ -13,6 +15,7 @@ import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
 import java.io.File;
+import java.nio.ByteBuffer;
 import java.time.Instant;
 import java.util.Map;
 import java.util.UUID;
@@ -166,6 +169,35 @@ public class InboundAdapters {
         );
     }
 
+    /**
+     * 將 MQTT 訊息內容複製到 arena 的 direct buffer，不在 heap 上配置大型 byte[]。
+     * 回傳的 payload 由 BehaviorPipeline.apply / applyContext 結束時釋放（經 EnvelopeTranslators 登記）。
+     */
+    public InboundEnvelope<ArenaPayload> fromMqtt(
+            String topic, Map<String, String> rawMeta, @NonNull PayloadArena arena, @NonNull ByteBuffer bytes) {
+        return fromSource(
+                InboundEnvelope.InboundSource.MQTT,
+                topic,
+                MqttMeta.normalize(rawMeta),
+                arena::copyOf,
+                bytes
+        );
+    }
+
+    /**
+     * 將 MQ 訊息內容複製到 arena 的 direct buffer，釋放方式同 {@link #fromMqtt(String, Map, PayloadArena, ByteBuffer)}。
+     */
+    public InboundEnvelope<ArenaPayload> fromMq(
+            String topic, Map<String, String> headers, @NonNull PayloadArena arena, @NonNull ByteBuffer bytes) {
+        return fromSource(
+                InboundEnvelope.InboundSource.MQ,
+                topic,
+                headers,
+                arena::copyOf,
+                bytes
+        );
+    }
+
     public <T> InboundEnvelope<T> fromFile(Map<String, String> meta, InboundSourceReader<File, T> reader, File file) {
         return fromSource(
                 InboundEnvelope.InboundSource.FILE,
@@ -21,7 +21,7 @@ public class AccessGateSteps {
 
     public <T> BehaviorStep<T> denyAnonymousIfRequired(
             @NonNull AuthBindingSteps.AuthCondition<T> authCondition) {
-        return sc -> authCondition.isOptional(sc) ? Validation.valid(sc) : denyAnonymous(sc);
+        return readsAuthContext(sc -> authCondition.isOptional(sc) ? Validation.valid(sc) : denyAnonymous(sc));
     }
 
     private static <T> Validation<Violations, StepContext<T>> denyAnonymous(StepContext<T> sc) {
@@ -34,9 +34,9 @@ public class AccessGateSteps {
     }
 
     public <T> BehaviorStep<T> requireAllAuthorities(@NonNull Set<String> required) {
-        return sc -> InboundAttrKeys.AUTH_CONTEXT.maybe(sc)
+        return readsAuthContext(sc -> InboundAttrKeys.AUTH_CONTEXT.maybe(sc)
                 .map(ac -> denyNotRequired(required, sc, ac))
-                .orElseGet(() -> denyMissingAuthorities(required, Set.of()));
+                .orElseGet(() -> denyMissingAuthorities(required, Set.of())));
     }
 
     private <T> Validation<Violations, StepContext<T>> denyMissingAuthorities(Set<String> required, Set<String> have) {
@@ -53,7 +53,7 @@ public class AccessGateSteps {
     }
 
     public <T> BehaviorStep<T> requireAnyAuthority(@NonNull Set<String> anyOf) {
-        return sc ->
+        return readsAuthContext(sc ->
                 InboundAttrKeys.AUTH_CONTEXT.maybe(sc)
                         .map(ac -> {
                             Set<String> have = ac.getAuthorities() == null ? Set.of() : ac.getAuthorities();
@@ -61,7 +61,7 @@ public class AccessGateSteps {
                             return ok ? Validation.<Violations, StepContext<T>>valid(sc)
                                     : AccessGateSteps.<T>denyAnyOf(anyOf);
                         })
-                        .orElseGet(() -> denyAnyOf(anyOf));
+                        .orElseGet(() -> denyAnyOf(anyOf)));
     }
 
     private <T> Validation<Violations, StepContext<T>> denyAnyOf(
@@ -78,4 +78,9 @@ public class AccessGateSteps {
                 .collect(Collectors.joining(","));
     }
 
+    /** gate 只讀 AUTH_CONTEXT，排程時可與其他不寫 AUTH_CONTEXT 的 Step 平行 */
+    private <T> BehaviorStep<T> readsAuthContext(BehaviorStep<T> step) {
+        return step.declare(Set.of(InboundAttrKeys.AUTH_CONTEXT), Set.of());
+    }
+
 }
@@ -40,7 +40,7 @@ public class AuthBindingSteps {
 
     public <T> BehaviorStep<T> bindClaims(
             AuthCondition<T> authCondition, @NonNull Supplier<Validation<Violations, MessageClaims>> claimsSupplier) {
-        return stepContext -> {
+        BehaviorStep<T> step = stepContext -> {
 
             Validation<Violations, MessageClaims> claims = claimsSupplier.get();
 
@@ -60,6 +60,7 @@ public class AuthBindingSteps {
                             .orElse("violations is empty"))
             );
         };
+        return step.declare(Set.of(), Set.of(InboundAttrKeys.CLAIMS));
     }
 
     public static final String AUTH_MISSING_VIO = "auth.ctx.missing";
@@ -70,7 +71,7 @@ public class AuthBindingSteps {
             @NonNull Supplier<Validation<Violations, Authentication>> authSupplier,
             @NonNull Extractor<Authentication, AuthContext> authContextExtractor) {
 
-        return stepContext ->
+        BehaviorStep<T> step = stepContext ->
                 authSupplier.get()
                         .flatMap(auth -> {
                             // unauthenticated / anonymous → treat as missing
@@ -97,6 +98,7 @@ public class AuthBindingSteps {
                             }
                         })
                         .map(ac -> stepContext.withAttribute(InboundAttrKeys.AUTH_CONTEXT, ac));
+        return step.declare(Set.of(), Set.of(InboundAttrKeys.AUTH_CONTEXT));
     }
 
     public static final String AUTH_BINDING_RESOLVE_FAILED_VIO = "auth-binding.resolve.failed";
@@ -108,7 +110,7 @@ public class AuthBindingSteps {
     public <T> BehaviorStep<T> resolveEntitlements(
             AuthCondition<T> authCondition,
             @NonNull EntitlementsResolver resolver) {
-        return stepContext -> {
+        BehaviorStep<T> step = stepContext -> {
             var principal = InboundAttrKeys.AUTH_CONTEXT.maybe(stepContext)
                     .map(AuthContext::getPrincipalId)
                     .orElse(null);
@@ -149,6 +151,7 @@ public class AuthBindingSteps {
                             ))
                     );
         };
+        return step.declare(Set.of(InboundAttrKeys.AUTH_CONTEXT), Set.of(InboundAttrKeys.AUTH_CONTEXT));
     }
 
 }
@@ -8,10 +8,12 @@ import org.dotspace.oofp.utils.eip.InboundScopes;
 import org.dotspace.oofp.utils.eip.QuerySpecExtractor;
 import org.dotspace.oofp.utils.functional.monad.Maybe;
 import org.dotspace.oofp.utils.functional.monad.validation.Validation;
+import org.dotspace.oofp.utils.jfr.FlightEvents;
 import lombok.NonNull;
 import lombok.experimental.UtilityClass;
 
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Stream;
 
 @UtilityClass
@@ -21,7 +23,7 @@ public class InboundExtractionBindingSteps {
 
     @SafeVarargs
     public <T> BehaviorStep<T> bindQuerySpec(@NonNull QuerySpecExtractor<T>... extractors) {
-        return ctx -> {
+        BehaviorStep<T> step = ctx -> {
             InboundQueryView<T> queryView = InboundScopes.from(ctx);
             try {
                 List<Validation<Violations, QuerySpec>> validations = Stream.of(extractors)
@@ -58,22 +60,25 @@ public class InboundExtractionBindingSteps {
                 ));
             }
         };
+        return step.declare(InboundScopes.QUERY_VIEW_READS, Set.of(InboundAttrKeys.QUERY_SPEC_LIST));
     }
 
     public <T> BehaviorStep<T> decide(@NonNull DecisionPolicy policy) {
-        return stepContext -> {
+        BehaviorStep<T> step = stepContext -> {
             InboundScope<T> scope = InboundScopes.from(stepContext);
 
-            ControlDecision decision;
-            try {
-                decision = policy.decide(scope);
-            } catch (Exception e) {
-                decision = new ControlDecision.FailInternal(
-                        "DecisionPolicy threw: " + e.getClass().getSimpleName(), e);
-            }
+            ControlDecision decision = FlightEvents.decision(policy.getClass().getName(), () -> {
+                try {
+                    return policy.decide(scope);
+                } catch (Exception e) {
+                    return new ControlDecision.FailInternal(
+                            "DecisionPolicy threw: " + e.getClass().getSimpleName(), e);
+                }
+            });
 
             return Validation.valid(stepContext.withAttribute(InboundAttrKeys.NEXT_DECISION, decision));
         };
+        return step.declare(InboundScopes.SCOPE_READS, Set.of(InboundAttrKeys.NEXT_DECISION));
     }
 
 }
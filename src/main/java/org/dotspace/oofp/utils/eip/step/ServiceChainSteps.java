@@ -2,6 +2,8 @@ package org.dotspace.oofp.utils.eip.step;
 
 import org.dotspace.oofp.model.dto.behaviorstep.StepContext;
 import org.dotspace.oofp.model.dto.behaviorstep.Violations;
+import org.dotspace.oofp.utils.dsl.AsyncBehaviorStep;
+import org.dotspace.oofp.utils.dsl.BatchBehaviorStep;
 import org.dotspace.oofp.utils.dsl.BehaviorStep;
 import org.dotspace.oofp.utils.eip.AttrKey;
 import org.dotspace.oofp.utils.eip.attr.ServiceRequestExtractor;
@@ -11,8 +13,13 @@ import org.dotspace.oofp.utils.functional.monad.validation.Validation;
 import lombok.experimental.UtilityClass;
 import org.apache.commons.lang3.StringUtils;
 
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 @UtilityClass
 public class ServiceChainSteps {
@@ -25,6 +32,51 @@ public class ServiceChainSteps {
         };
     }
 
+    /**
+     * 非同步版本的 serviceStep：服務呼叫以 CompletableFuture 回傳，不佔住呼叫端執行緒。
+     * 搭配 BehaviorPipeline.withAsync(...) 與 applyAsync(...) 使用。
+     */
+    public <T, R> AsyncBehaviorStep<T> serviceStepAsync(
+            Function<T, CompletableFuture<Validation<Violations, R>>> serviceOperation, AttrKey<R> attrKey) {
+        return stepContext -> serviceOperation.apply(stepContext.getPayload())
+                .thenApply(result -> result.map(r -> stepContext.withAttribute(attrKey, r)));
+    }
+
+    /**
+     * 批次版本的 serviceStep：同一批 context 只呼叫一次 bulkOperation（以不重複的 key 查詢）。
+     * 查無結果的 context 回傳 invalid；bulkOperation 失敗時整批 invalid。
+     * 搭配 BehaviorPipeline.applyAll(...) 使用。
+     */
+    public <T, K, R> BatchBehaviorStep<T> bulkServiceStep(
+            Function<T, K> keyExtractor, Function<Set<K>, Map<K, R>> bulkOperation, AttrKey<R> attrKey) {
+        return stepContexts -> {
+            Set<K> keys = stepContexts.stream()
+                    .map(sc -> keyExtractor.apply(sc.getPayload()))
+                    .collect(Collectors.toCollection(LinkedHashSet::new));
+
+            Map<K, R> found;
+            try {
+                found = bulkOperation.apply(keys);
+            } catch (Exception ex) {
+                String msg = getExMsg(ex);
+                return stepContexts.stream()
+                        .map(sc -> Validation.<Violations, StepContext<T>>invalid(Violations.violate(
+                                "service.step.failed", "Service operation failed: " + msg)))
+                        .toList();
+            }
+
+            return stepContexts.stream()
+                    .map(sc -> {
+                        K key = keyExtractor.apply(sc.getPayload());
+                        return Maybe.given(found.get(key))
+                                .map(r -> sc.withAttribute(attrKey, r))
+                                .toValidation(Violations.violate("service.bulk.result.missing",
+                                        "Service result missing: key=" + key));
+                    })
+                    .toList();
+        };
+    }
+
     public <T> BehaviorStep<T> require(
             Predicate<StepContext<T>> predicate,
             Extractor<StepContext<T>, Violations> violationsExtractor) {
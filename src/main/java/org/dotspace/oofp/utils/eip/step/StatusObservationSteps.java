@@ -14,6 +14,7 @@ import lombok.experimental.UtilityClass;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.Set;
 
 @UtilityClass
 public class StatusObservationSteps {
@@ -21,7 +22,7 @@ public class StatusObservationSteps {
     public static final String VIO_STATUS_OBSERVE_FAILED = "status.observe.failed";
 
     public <T> BehaviorStep<T> observeStatus(@NonNull StatusObserver<T> observer) {
-        return stepContext -> {
+        BehaviorStep<T> step = stepContext -> {
             InboundScope<T> scope = InboundScopes.from(stepContext);
 
             try {
@@ -48,5 +49,6 @@ public class StatusObservationSteps {
                 );
             }
         };
+        return step.declare(InboundScopes.SCOPE_READS, Set.of(InboundAttrKeys.STATUS, InboundAttrKeys.FAILURES));
     }
 }
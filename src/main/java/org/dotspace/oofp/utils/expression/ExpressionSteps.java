@@ -1,6 +1,7 @@
 package org.dotspace.oofp.utils.expression;
 
 import org.dotspace.oofp.utils.dsl.BehaviorStep;
+import org.dotspace.oofp.model.dto.behaviorstep.StackTraces;
 import org.dotspace.oofp.model.dto.behaviorstep.Violations;
 import org.dotspace.oofp.model.dto.behaviorstep.StepContext;
 import org.dotspace.oofp.model.dto.expression.ExpressionOperation;
@@ -8,7 +9,6 @@ import org.dotspace.oofp.utils.functional.monad.Maybe;
 import org.dotspace.oofp.utils.functional.monad.validation.Validation;
 import lombok.NonNull;
 import lombok.experimental.UtilityClass;
-import org.apache.tika.utils.ExceptionUtils;
 
 import java.util.Map;
 import java.util.Objects;
@@ -50,7 +50,7 @@ public class ExpressionSteps {
         }
         catch (Exception ex) {
             return Validation.invalid(Violations.violate(
-                    "verifyValidated.stack-trace", ExceptionUtils.getStackTrace(ex)));
+                    "verifyValidated.stack-trace", StackTraces.capture(ex).orElse(ex::toString)));
         }
     }
 
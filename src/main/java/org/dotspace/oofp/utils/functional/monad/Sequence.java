@@ -26,6 +26,13 @@ public class Sequence<T> implements Foldable<T> {
                 .map(e -> Pair.of(e.getKey(), e.getValue())));
     }
 
+    /**
+     * 每次取 stream 時才由 supplier 建立，適合包裝需要逐次重新開啟的來源。
+     */
+    public static <T> Sequence<T> defer(Supplier<Stream<T>> supplier) {
+        return new Sequence<>(supplier);
+    }
+
     public static <T> Sequence<T> empty() {
         return new Sequence<>(Stream::empty);
     }
@@ -89,9 +89,9 @@ public interface Validation<E extends Joinable<E>, T> {
             return Validation.valid(values);
         }
 
-        E merged = errors.stream()
-                .reduce(Joinable::join)
-                .orElseThrow();
+        Joinable.Accumulator<E> accumulator = errors.get(0).accumulator();
+        errors.subList(1, errors.size()).forEach(accumulator::add);
+        E merged = accumulator.freeze();
 
         return Validation.invalid(merged);
     }
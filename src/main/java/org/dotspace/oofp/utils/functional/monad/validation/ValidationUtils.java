@@ -26,13 +26,11 @@ public class ValidationUtils {
 
         class Context {
             final List<T> values = new ArrayList<>();
-            Maybe<E> errors = Maybe.empty();
+            Joinable.Accumulator<E> errors;
 
             void addError(@NonNull E error) {
-                // 若已有錯誤，將新的錯誤與既有錯誤 join
-                errors = errors
-                        .map(existing -> existing.join(error))
-                        .or(Maybe.just(error));
+                // 若已有錯誤，累加到同一個 accumulator（結果等同依序 join，但不為每筆建立中間結果）
+                errors = null == errors ? error.accumulator() : errors.add(error);
             }
 
             void addValue(@NonNull T value) {
@@ -60,8 +58,8 @@ public class ValidationUtils {
 
         // 有錯誤 → invalid(合併後的錯誤)
         // 無錯誤 → valid(collector 收斂後的結果)
-        return context.errors
-                .map(Validation::<E, R>invalid)
+        return Maybe.given(context.errors)
+                .map(errors -> Validation.<E, R>invalid(errors.freeze()))
                 .orElseGet(() -> Validation.valid(
                         context.values.stream().collect(collector)
                 ));
@@ -77,12 +75,10 @@ public class ValidationUtils {
 
         class Context {
             final Map<String, Object> values = new HashMap<>();
-            Maybe<E> errors = Maybe.empty();
+            Joinable.Accumulator<E> errors;
 
             void addError(@NonNull E error) {
-                errors = errors
-                        .map(existing -> existing.join(error))
-                        .or(Maybe.just(error));
+                errors = null == errors ? error.accumulator() : errors.add(error);
             }
 
             void addValue(@NonNull String name, @NonNull Object value) {
@@ -109,8 +105,8 @@ public class ValidationUtils {
 
         }
 
-        return context.errors
-                .map(Validation::<E, Map<String, Object>>invalid)
+        return Maybe.given(context.errors)
+                .map(errors -> Validation.<E, Map<String, Object>>invalid(errors.freeze()))
                 .orElseGet(() -> Validation.valid(context.values));
     }
 
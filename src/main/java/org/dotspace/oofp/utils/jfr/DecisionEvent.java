@@ -0,0 +1,30 @@
+package org.dotspace.oofp.utils.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * DecisionPolicy.decide 的結果（Ack / Retry / Dlq / Noop / FailInternal）。
+ */
+@Name("org.dotspace.oofp.Decision")
+@Label("Control Decision")
+@Category({"OOFP", "Inbound"})
+@Description("Control decision made by a DecisionPolicy")
+@Threshold("0 ms")
+@StackTrace(false)
+public class DecisionEvent extends jdk.jfr.Event {
+
+    @Label("Policy")
+    String policy;
+
+    @Label("Decision")
+    String decision;
+
+    @Label("Reason")
+    String reason;
+
+}
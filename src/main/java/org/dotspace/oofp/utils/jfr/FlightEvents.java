@@ -0,0 +1,188 @@
+package org.dotspace.oofp.utils.jfr;
+
+import org.dotspace.oofp.enumeration.stepcontext.StepOutcome;
+import org.dotspace.oofp.model.dto.behaviorstep.StepContext;
+import org.dotspace.oofp.model.dto.behaviorstep.Violations;
+import org.dotspace.oofp.model.dto.eip.ControlDecision;
+import org.dotspace.oofp.model.dto.eip.InboundEnvelope;
+import org.dotspace.oofp.utils.dsl.AsyncBehaviorStep;
+import org.dotspace.oofp.utils.dsl.BatchBehaviorStep;
+import org.dotspace.oofp.utils.dsl.BehaviorStep;
+import org.dotspace.oofp.utils.eip.routekey.RouteKey;
+import org.dotspace.oofp.utils.functional.monad.validation.Validation;
+
+import lombok.experimental.UtilityClass;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 以 JFR 事件包裝 Step、InboundFlow、DecisionPolicy 與路由選擇。
+ * <pre>
+ * - 沒有錄製或事件被停用時，只多一次 isEnabled() 判斷
+ * - 只有超過門檻（@Threshold，可於 .jfc 覆寫）的事件才會填欄位並 commit
+ * </pre>
+ */
+@UtilityClass
+public class FlightEvents {
+
+    public <T> Validation<Violations, StepContext<T>> step(
+            Supplier<String> stepName, BehaviorStep<T> step, StepContext<T> stepContext) {
+        StepExecutionEvent event = new StepExecutionEvent();
+        if (!event.isEnabled()) {
+            return step.execute(stepContext);
+        }
+
+        event.begin();
+        Validation<Violations, StepContext<T>> result = step.execute(stepContext);
+        event.end();
+        if (event.shouldCommit()) {
+            event.stepName = stepName.get();
+            event.outcome = StepOutcome.of(result).name();
+            event.violationCount = violationCount(result);
+            event.commit();
+        }
+        return result;
+    }
+
+    /** 非同步 Step：事件在 future 完成時結束，例外完成時不 commit */
+    public <T> CompletableFuture<Validation<Violations, StepContext<T>>> stepAsync(
+            Supplier<String> stepName, AsyncBehaviorStep<T> step, StepContext<T> stepContext) {
+        StepExecutionEvent event = new StepExecutionEvent();
+        if (!event.isEnabled()) {
+            return step.executeAsync(stepContext);
+        }
+
+        event.begin();
+        return step.executeAsync(stepContext).whenComplete((result, error) -> {
+            event.end();
+            if (result != null && event.shouldCommit()) {
+                event.stepName = stepName.get();
+                event.outcome = StepOutcome.of(result).name();
+                event.violationCount = violationCount(result);
+                event.commit();
+            }
+        });
+    }
+
+    /** BatchBehaviorStep 的一次批次呼叫記為一個事件：outcome 取最差者，violationCount 為總和 */
+    public <T> List<Validation<Violations, StepContext<T>>> batch(
+            Supplier<String> stepName, BatchBehaviorStep<T> step, List<StepContext<T>> stepContexts) {
+        StepExecutionEvent event = new StepExecutionEvent();
+        if (!event.isEnabled()) {
+            return step.executeAll(stepContexts);
+        }
+
+        event.begin();
+        List<Validation<Violations, StepContext<T>>> results = step.executeAll(stepContexts);
+        event.end();
+        if (event.shouldCommit()) {
+            event.stepName = stepName.get();
+            event.outcome = results.stream()
+                    .map(StepOutcome::of)
+                    .max(Comparator.comparingInt(FlightEvents::rank))
+                    .orElse(StepOutcome.VALID)
+                    .name();
+            event.violationCount = results.stream().mapToInt(FlightEvents::violationCount).sum();
+            event.batchSize = stepContexts.size();
+            event.commit();
+        }
+        return results;
+    }
+
+    public <T> Validation<Violations, StepContext<T>> flow(
+            String flowName, InboundEnvelope<T> envelope,
+            Function<InboundEnvelope<T>, Validation<Violations, StepContext<T>>> flow) {
+        InboundFlowEvent event = new InboundFlowEvent();
+        if (!event.isEnabled()) {
+            return flow.apply(envelope);
+        }
+
+        event.begin();
+        Validation<Violations, StepContext<T>> result = flow.apply(envelope);
+        event.end();
+        if (event.shouldCommit()) {
+            event.flowName = flowName;
+            if (envelope != null) {
+                event.source = String.valueOf(envelope.source());
+                event.sourceId = envelope.sourceId();
+            }
+            event.outcome = StepOutcome.of(result).name();
+            event.violationCount = violationCount(result);
+            event.commit();
+        }
+        return result;
+    }
+
+    public ControlDecision decision(String policyName, Supplier<ControlDecision> decider) {
+        DecisionEvent event = new DecisionEvent();
+        if (!event.isEnabled()) {
+            return decider.get();
+        }
+
+        event.begin();
+        ControlDecision decision = decider.get();
+        event.end();
+        if (event.shouldCommit()) {
+            event.policy = policyName;
+            event.decision = decision == null ? null : decision.getClass().getSimpleName();
+            event.reason = reasonOf(decision);
+            event.commit();
+        }
+        return decision;
+    }
+
+    public <T> Validation<Violations, StepContext<T>> route(
+            RouteKey routeKey, BehaviorStep<T> step, StepContext<T> stepContext) {
+        RouteSelectionEvent event = new RouteSelectionEvent();
+        if (!event.isEnabled()) {
+            return step.execute(stepContext);
+        }
+
+        event.begin();
+        Validation<Violations, StepContext<T>> result = step.execute(stepContext);
+        event.end();
+        if (event.shouldCommit()) {
+            event.routeKey = String.valueOf(routeKey);
+            event.outcome = StepOutcome.of(result).name();
+            event.violationCount = violationCount(result);
+            event.commit();
+        }
+        return result;
+    }
+
+    /** 批次 outcome 的嚴重度：INVALID > ABORTED > VALID */
+    private int rank(StepOutcome outcome) {
+        return switch (outcome) {
+            case INVALID -> 2;
+            case ABORTED -> 1;
+            case VALID -> 0;
+        };
+    }
+
+    private <T> int violationCount(Validation<Violations, StepContext<T>> result) {
+        return result.error()
+                .map(violations -> violations.getViolationCollection().size())
+                .orElse(0);
+    }
+
+    private String reasonOf(ControlDecision decision) {
+        if (decision instanceof ControlDecision.Retry retry) {
+            return retry.reason();
+        }
+        if (decision instanceof ControlDecision.Dlq dlq) {
+            return dlq.reason();
+        }
+        if (decision instanceof ControlDecision.Noop noop) {
+            return noop.reason();
+        }
+        if (decision instanceof ControlDecision.FailInternal failInternal) {
+            return failInternal.reason();
+        }
+        return null;
+    }
+
+}
@@ -0,0 +1,37 @@
+package org.dotspace.oofp.utils.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * InboundFlow.from：由 InboundEnvelope 建立 StepContext 的過程。
+ * 預設只記錄超過 1 ms 者，可於 .jfc 以 org.dotspace.oofp.InboundFlow#threshold 調整。
+ */
+@Name("org.dotspace.oofp.InboundFlow")
+@Label("Inbound Flow")
+@Category({"OOFP", "Inbound"})
+@Description("Translation of an InboundEnvelope through an InboundFlow")
+@Threshold("1 ms")
+@StackTrace(false)
+public class InboundFlowEvent extends jdk.jfr.Event {
+
+    @Label("Flow Name")
+    String flowName;
+
+    @Label("Source")
+    String source;
+
+    @Label("Source Id")
+    String sourceId;
+
+    @Label("Outcome")
+    String outcome;
+
+    @Label("Violation Count")
+    int violationCount;
+
+}
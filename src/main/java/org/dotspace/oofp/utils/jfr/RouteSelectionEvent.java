@@ -0,0 +1,30 @@
+package org.dotspace.oofp.utils.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * SelectorOps.select 選出的路由，持續時間涵蓋被選中 Step 的執行。
+ */
+@Name("org.dotspace.oofp.RouteSelection")
+@Label("Route Selection")
+@Category({"OOFP", "Pipeline"})
+@Description("Route chosen by SelectorOps and the outcome of the routed step")
+@Threshold("0 ms")
+@StackTrace(false)
+public class RouteSelectionEvent extends jdk.jfr.Event {
+
+    @Label("Route Key")
+    String routeKey;
+
+    @Label("Outcome")
+    String outcome;
+
+    @Label("Violation Count")
+    int violationCount;
+
+}
@@ -0,0 +1,35 @@
+package org.dotspace.oofp.utils.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * BehaviorPipeline 中單一頂層 Step 的執行（apply、applyAsync、applyAll / stream 皆會記錄）。
+ * BatchBehaviorStep 的一次批次呼叫記為一個事件，batchSize 為該批 context 數。
+ * 預設只記錄超過 1 ms 者，可於 .jfc 以 org.dotspace.oofp.StepExecution#threshold 調整。
+ */
+@Name("org.dotspace.oofp.StepExecution")
+@Label("Behavior Step Execution")
+@Category({"OOFP", "Pipeline"})
+@Description("Execution of a top-level BehaviorStep in a BehaviorPipeline")
+@Threshold("1 ms")
+@StackTrace(false)
+public class StepExecutionEvent extends jdk.jfr.Event {
+
+    @Label("Step Name")
+    String stepName;
+
+    @Label("Outcome")
+    String outcome;
+
+    @Label("Violation Count")
+    int violationCount;
+
+    @Label("Batch Size")
+    int batchSize = 1;
+
+}
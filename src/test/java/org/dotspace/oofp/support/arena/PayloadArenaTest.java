@@ -0,0 +1,175 @@
+package org.dotspace.oofp.support.arena;
+
+import org.dotspace.oofp.model.dto.behaviorstep.StepContext;
+import org.dotspace.oofp.model.dto.behaviorstep.Violations;
+import org.dotspace.oofp.model.dto.eip.InboundEnvelope;
+import org.dotspace.oofp.model.dto.eip.InboundMetaKeys;
+import org.dotspace.oofp.utils.arena.ArenaPayload;
+import org.dotspace.oofp.utils.arena.PayloadArena;
+import org.dotspace.oofp.utils.dsl.pipeline.BehaviorPipeline;
+import org.dotspace.oofp.utils.dsl.pipeline.CompiledBehaviorPipeline;
+import org.dotspace.oofp.utils.dsl.pipeline.ScheduledBehaviorPipeline;
+import org.dotspace.oofp.utils.eip.flow.InboundFlows;
+import org.dotspace.oofp.utils.eip.inbound.InboundAdapters;
+import org.dotspace.oofp.utils.functional.monad.Sequence;
+import org.dotspace.oofp.utils.functional.monad.validation.Validation;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PayloadArenaTest {
+
+    @Test
+    @DisplayName("PayloadArena：參考計數歸零時歸還 buffer，下次取得時重複使用")
+    void shouldRecycleReleasedBuffers() {
+        PayloadArena arena = PayloadArena.create(1 << 20);
+
+        ArenaPayload first = arena.copyOf("hello".getBytes(StandardCharsets.UTF_8));
+        assertEquals("hello", new String(first.toByteArray(), StandardCharsets.UTF_8));
+        assertTrue(first.buffer().isReadOnly());
+
+        first.retain();
+        assertFalse(first.release());
+        assertTrue(first.release());
+        assertThrows(IllegalStateException.class, first::buffer);
+        assertThrows(IllegalStateException.class, first::release);
+
+        ArenaPayload second = arena.copyOf(ByteBuffer.wrap(new byte[100]));
+        assertEquals(100, second.length());
+        assertEquals(new PayloadArena.Stats(1, 1, 0), arena.stats());
+    }
+
+    @Test
+    @DisplayName("BehaviorPipeline：完成、invalid 或例外時都會釋放 ArenaPayload")
+    void shouldReleaseWhenPipelineEnds() {
+        PayloadArena arena = PayloadArena.create(1 << 20);
+        BehaviorPipeline<ArenaPayload> pipeline = BehaviorPipeline.<ArenaPayload>steps()
+                .with(sc -> sc.getPayload().length() > 3
+                        ? Validation.valid(sc)
+                        : Validation.invalid(Violations.violate("SHORT", "too short")));
+
+        ArenaPayload valid = arena.copyOf(new byte[8]);
+        assertEquals(8, pipeline.apply(valid, sc -> sc.getPayload().length()).get().orElse(null));
+        assertEquals(0, valid.refCount());
+
+        ArenaPayload invalid = arena.copyOf(new byte[2]);
+        assertTrue(pipeline.applyCorrectErrors(invalid, StepContext::getPayload).isInvalid());
+        assertEquals(0, invalid.refCount());
+
+        ArenaPayload failing = arena.copyOf(new byte[8]);
+        BehaviorPipeline<ArenaPayload> throwing = BehaviorPipeline.<ArenaPayload>steps()
+                .with(sc -> {
+                    throw new IllegalStateException("boom");
+                });
+        assertThrows(IllegalStateException.class, () -> throwing.apply(failing, StepContext::getPayload));
+        assertEquals(0, failing.refCount());
+    }
+
+    @Test
+    @DisplayName("BehaviorPipeline：applyAsync、applyAll 與 stream 結束時也會釋放 ArenaPayload，buffer 回到 arena 重複使用")
+    void shouldReleaseAfterAsyncAndBatchRuns() {
+        PayloadArena arena = PayloadArena.create(1 << 20);
+        BehaviorPipeline<ArenaPayload> pipeline = BehaviorPipeline.<ArenaPayload>steps()
+                .with(sc -> sc.getPayload().length() > 3
+                        ? Validation.valid(sc)
+                        : Validation.invalid(Violations.violate("SHORT", "too short")));
+
+        ArenaPayload async = arena.copyOf(new byte[8]);
+        assertEquals(8, pipeline.applyAsync(async, sc -> sc.getPayload().length()).join().get().orElse(null));
+        assertEquals(0, async.refCount());
+
+        ArenaPayload asyncInvalid = arena.copyOf(new byte[2]);
+        assertTrue(pipeline.applyAsync(asyncInvalid, StepContext::getPayload).join().isInvalid());
+        assertEquals(0, asyncInvalid.refCount());
+
+        List<ArenaPayload> batch = List.of(arena.copyOf(new byte[8]), arena.copyOf(new byte[2]));
+        List<Validation<Violations, Integer>> results = pipeline.applyAll(batch, sc -> sc.getPayload().length());
+        assertEquals(8, results.get(0).get().orElse(null));
+        assertTrue(results.get(1).isInvalid());
+        assertTrue(batch.stream().allMatch(payload -> payload.refCount() == 0));
+
+        List<ArenaPayload> streamed = List.of(arena.copyOf(new byte[8]), arena.copyOf(new byte[8]));
+        assertEquals(2, pipeline.stream(Sequence.from(streamed), 1, sc -> sc.getPayload().length())
+                .stream()
+                .filter(Validation::isValid)
+                .count());
+        assertTrue(streamed.stream().allMatch(payload -> payload.refCount() == 0));
+
+        assertEquals(2, arena.stats().allocated(), "同時存活的最多兩筆，其餘都取自池中");
+        assertEquals(4, arena.stats().reused());
+    }
+
+    @Test
+    @DisplayName("CompiledBehaviorPipeline：Step 丟出例外時也會釋放 ArenaPayload")
+    void shouldReleaseWhenCompiledStepThrows() {
+        PayloadArena arena = PayloadArena.create(1 << 20);
+        CompiledBehaviorPipeline<ArenaPayload> compiled = BehaviorPipeline.<ArenaPayload>steps()
+                .with(sc -> {
+                    throw new IllegalStateException("boom");
+                })
+                .compile();
+
+        ArenaPayload failing = arena.copyOf(new byte[8]);
+        assertThrows(IllegalStateException.class, () -> compiled.apply(failing, StepContext::getPayload));
+        assertEquals(0, failing.refCount());
+
+        ArenaPayload correcting = arena.copyOf(new byte[8]);
+        assertThrows(IllegalStateException.class,
+                () -> compiled.applyCorrectErrors(correcting, StepContext::getPayload));
+        assertEquals(0, correcting.refCount());
+    }
+
+    @Test
+    @DisplayName("ScheduledBehaviorPipeline：Step 丟出例外時也會釋放 ArenaPayload")
+    void shouldReleaseWhenScheduledStepThrows() {
+        PayloadArena arena = PayloadArena.create(1 << 20);
+        ScheduledBehaviorPipeline<ArenaPayload> scheduled = BehaviorPipeline.<ArenaPayload>steps()
+                .with(sc -> {
+                    throw new IllegalStateException("boom");
+                })
+                .schedule();
+
+        ArenaPayload failing = arena.copyOf(new byte[8]);
+        assertThrows(IllegalStateException.class, () -> scheduled.apply(failing, StepContext::getPayload));
+        assertEquals(0, failing.refCount());
+
+        ArenaPayload correcting = arena.copyOf(new byte[8]);
+        assertThrows(IllegalStateException.class,
+                () -> scheduled.applyCorrectErrors(correcting, StepContext::getPayload));
+        assertEquals(0, correcting.refCount());
+    }
+
+    @Test
+    @DisplayName("InboundAdapters.fromMq：arena payload 經 InboundFlows 登記後，由 applyContext 結束時釋放")
+    void shouldReleaseInboundPayloadAfterApplyContext() {
+        PayloadArena arena = PayloadArena.create(1 << 20);
+        InboundEnvelope<ArenaPayload> envelope = InboundAdapters.fromMq("orders", Map.of(InboundMetaKeys.TRACE_ID, "t-1"), arena,
+                ByteBuffer.allocateDirect(16));
+
+        StepContext<ArenaPayload> context = InboundFlows.stateless(envelope).get().orElseThrow();
+        assertEquals(1, context.getResources().size());
+
+        BehaviorPipeline.<ArenaPayload>steps()
+                .with(Validation::valid)
+                .applyContext(context, sc -> sc.getPayload().length());
+
+        assertEquals(0, envelope.payload().refCount());
+    }
+
+    @Test
+    @DisplayName("InboundFlows：meta 驗證失敗時不建立 context，arena payload 立即釋放")
+    void shouldReleaseInboundPayloadWhenEnvelopeIsInvalid() {
+        PayloadArena arena = PayloadArena.create(1 << 20);
+        InboundEnvelope<ArenaPayload> envelope = InboundAdapters.fromMq("orders", Map.of(), arena,
+                ByteBuffer.allocateDirect(16));
+
+        assertTrue(InboundFlows.stateless(envelope).isInvalid());
+        assertEquals(0, envelope.payload().refCount());
+    }
+}
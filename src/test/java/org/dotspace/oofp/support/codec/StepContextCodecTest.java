@@ -0,0 +1,92 @@
+package org.dotspace.oofp.support.codec;
+
+import org.dotspace.oofp.enumeration.stepcontext.ViolationSeverity;
+import org.dotspace.oofp.model.dto.behaviorstep.GeneralViolation;
+import org.dotspace.oofp.model.dto.behaviorstep.StepContext;
+import org.dotspace.oofp.model.dto.behaviorstep.Violations;
+import org.dotspace.oofp.model.dto.eip.InboundAttrKeys;
+import org.dotspace.oofp.model.dto.eip.InboundEnvelope;
+import org.dotspace.oofp.utils.codec.BinaryCodecs;
+import org.dotspace.oofp.utils.codec.BinaryReader;
+import org.dotspace.oofp.utils.codec.BinaryWriter;
+import org.dotspace.oofp.utils.codec.StepContextCodec;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StepContextCodecTest {
+
+    private final StepContextCodec<String> codec = StepContextCodec.of(BinaryCodecs.string())
+            .withEnvelope(BinaryCodecs.string());
+
+    @Test
+    @DisplayName("StepContextCodec：payload、violations、attributes（含 envelope 與 deadline）與 aborted 可完整還原")
+    void shouldRoundTripStepContext() {
+        Instant receivedAt = Instant.parse("2026-01-02T03:04:05.123456789Z");
+        InboundEnvelope<String> envelope = new InboundEnvelope<>(InboundEnvelope.InboundSource.MQ, "orders",
+                Map.of("traceId", "t-1"), "{\"id\":1}", receivedAt);
+
+        GeneralViolation warning = GeneralViolation.violate("W1", "slow");
+        warning.setStepName("lookup");
+        warning.getOptions().put(GeneralViolation.SEVERITY, ViolationSeverity.WARNING);
+
+        StepContext<String> context = StepContext.<String>builder()
+                .withPayload("body")
+                .withViolations(Violations.of(warning))
+                .withAttributes(Map.of("count", 3, "ids", List.of(1L, 2L), "nested", Map.of("flag", true)))
+                .withAborted(true)
+                .build()
+                .withAttribute(InboundAttrKeys.ENVELOPE, envelope)
+                .withDeadline(receivedAt.plusSeconds(5));
+
+        StepContext<String> decoded = codec.encode(context)
+                .flatMap(codec::decode)
+                .get()
+                .orElseThrow();
+
+        assertEquals("body", decoded.getPayload());
+        assertTrue(decoded.isAborted());
+        assertEquals(context.getViolations(), decoded.getViolations());
+        assertEquals(ViolationSeverity.WARNING, decoded.getViolations().stream().findFirst().orElseThrow().getSeverity());
+        assertEquals(envelope, InboundAttrKeys.ENVELOPE.maybe(decoded).orElse(null));
+        assertEquals(receivedAt.plusSeconds(5), decoded.getDeadline().orElse(null));
+        assertEquals(3, decoded.<Integer>getAttribute("count").orElse(null));
+        assertEquals(List.of(1L, 2L), decoded.<List<Long>>getAttribute("ids").orElse(null));
+        assertEquals(Map.of("flag", true), decoded.<Map<String, Object>>getAttribute("nested").orElse(null));
+    }
+
+    @Test
+    @DisplayName("StepContextCodec：串流寫入多筆後依序讀出；不支援的型別與損毀資料回傳 invalid")
+    void shouldStreamAndReportFailures() {
+        BinaryWriter out = BinaryWriter.allocate(16);
+        for (int i = 0; i < 100; i++) {
+            codec.write(StepContext.<String>builder().withPayload("p" + i).withViolations(Violations.empty()).build(),
+                    out);
+        }
+        BinaryReader in = BinaryReader.from(out.buffer());
+        for (int i = 0; i < 100; i++) {
+            assertEquals("p" + i, codec.read(in).getPayload());
+        }
+        assertFalse(in.hasRemaining());
+
+        StepContext<String> unsupported = StepContext.<String>builder()
+                .withPayload("x")
+                .withAttributes(Map.of("thread", new Object()))
+                .build();
+        assertTrue(codec.encode(unsupported).error().orElseThrow()
+                .namesAnyMatch(StepContextCodec.STEP_CONTEXT_CODEC_WRITE_FAILED::equals));
+
+        ByteBuffer truncated = codec.encode(StepContext.<String>builder().withPayload("payload").build())
+                .get()
+                .map(buffer -> buffer.limit(buffer.limit() - 3))
+                .orElseThrow();
+        assertTrue(codec.decode(truncated).error().orElseThrow()
+                .namesAnyMatch(StepContextCodec.STEP_CONTEXT_CODEC_READ_FAILED::equals));
+    }
+}
@@ -0,0 +1,62 @@
+package org.dotspace.oofp.support.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.dotspace.oofp.enumeration.stepcontext.ViolationSeverity;
+import org.dotspace.oofp.model.dto.behaviorstep.GeneralViolation;
+import org.dotspace.oofp.model.dto.behaviorstep.Violations;
+import org.dotspace.oofp.utils.codec.ViolationsJson;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ViolationsJsonTest {
+
+    @Test
+    @DisplayName("ViolationsJson：串流輸出 validationName、stepName、severity、messages 與其他 options")
+    void shouldWriteViolationsAsJson() throws Exception {
+        GeneralViolation fatal = GeneralViolation.violate("amount", "must be positive");
+        fatal.setStepName("validate");
+        fatal.setSeverity(ViolationSeverity.FATAL);
+        fatal.getOptions().put("limit", 10);
+        fatal.getOptions().put(GeneralViolation.SEVERE, true);
+        Violations violations = Violations.of(fatal)
+                .join(Violations.violate("name", () -> "must not be \"blank\""));
+
+        Object parsed = new ObjectMapper().readValue(ViolationsJson.toJson(violations), Object.class);
+
+        assertEquals(List.of(
+                Map.of("validationName", "amount", "stepName", "validate", "severity", "FATAL",
+                        "messages", List.of("must be positive"),
+                        "options", Map.of("limit", 10, GeneralViolation.SEVERE, true)),
+                Map.of("validationName", "name", "messages", List.of("must not be \"blank\""))), parsed);
+        assertEquals("[]", ViolationsJson.toJson(Violations.empty()));
+    }
+
+    @Test
+    @DisplayName("getViolationMessages / collectMessages / associateMessage：單次走訪輸出與原格式相同")
+    void shouldRenderMessagesInOnePass() {
+        List<GeneralViolation> items = IntStream.rangeClosed(1, 3)
+                .mapToObj(i -> GeneralViolation.violate("field" + i, "message" + i))
+                .toList();
+
+        assertEquals(" (1) message1 {field1}\n (2) message2 {field2}\n (3) message3 {field3}",
+                GeneralViolation.getViolationMessages(items, Map.of("withPropertyPath", true)));
+        assertEquals(" (1) message1\n (2) message2\n (3) message3",
+                GeneralViolation.getViolationMessages(items, Map.of()));
+
+        GeneralViolation error = GeneralViolation.violate("field1", "again");
+        error.setSeverity(ViolationSeverity.ERROR);
+        Violations violations = Violations.from(items).join(Violations.of(error));
+
+        assertEquals("field1 -> [message1]\nfield2 -> [message2]\nfield3 -> [message3]\nfield1 -> [again] (ERROR)",
+                violations.collectMessages());
+        assertEquals(Map.of("field1", "message1\nagain", "field2", "message2", "field3", "message3"),
+                violations.associateMessage());
+    }
+}
@@ -0,0 +1,149 @@
+package org.dotspace.oofp.support.dsl;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+
+import org.dotspace.oofp.enumeration.stepcontext.BudgetOverflowAction;
+import org.dotspace.oofp.model.dto.behaviorstep.AttributeBudget;
+import org.dotspace.oofp.model.dto.behaviorstep.StepContext;
+import org.dotspace.oofp.model.dto.behaviorstep.Violations;
+import org.dotspace.oofp.utils.dsl.pipeline.BehaviorPipeline;
+import org.dotspace.oofp.utils.dsl.pipeline.metrics.AttributeMemoryStats;
+import org.dotspace.oofp.utils.eip.AttrKey;
+import org.dotspace.oofp.utils.eip.SplitterOps;
+import org.dotspace.oofp.utils.functional.monad.validation.Validation;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AttributeBudgetTest {
+
+    private static final AttrKey<List<String>> ITEMS = AttrKey.of("items", new TypeReference<>() { });
+
+    @Test
+    @DisplayName("AttributeBudget：split 的清單超過單一 attribute 上限時 invalid，不寫入並記錄統計")
+    void shouldRejectOversizedSplitItems() {
+        AttributeBudget budget = AttributeBudget.builder()
+                .withAttributeLimit(ITEMS.name(), 4_096L)
+                .build();
+        BehaviorPipeline<Integer> pipeline = BehaviorPipeline.<Integer>steps()
+                .withAttributeBudget(budget)
+                .with(SplitterOps.split(sc -> true, sc -> Collections.nCopies(sc.getPayload(), "item-0001"),
+                        ITEMS));
+
+        assertEquals(3, pipeline.apply(3, sc -> sc.findAttribute(ITEMS).orElse(List.of()).size())
+                .get().orElse(null));
+
+        Validation<Violations, StepContext<Integer>> tooLarge = pipeline.apply(100_000, sc -> sc);
+        assertTrue(tooLarge.error().orElseThrow()
+                .namesAnyMatch(AttributeBudget.STEP_CONTEXT_ATTRIBUTE_TOO_LARGE::equals));
+
+        AttributeMemoryStats.Snapshot snapshot = budget.getStats().snapshot();
+        assertEquals(1, snapshot.accepted());
+        assertEquals(1, snapshot.rejected());
+        assertTrue(snapshot.peakAttributeBytes().get(ITEMS.name()) > 4_096L);
+    }
+
+    @Test
+    @DisplayName("AttributeBudget：整體上限以覆寫後的大小計算，ABORT 時中止並保留原值")
+    void shouldAccountOverwritesAndAbort() {
+        StepContext<String> context = StepContext.<String>builder()
+                .withPayload("p")
+                .withViolations(Violations.empty())
+                .build()
+                .withAttributeBudget(AttributeBudget.builder()
+                        .withMaxContextBytes(1_000L)
+                        .withOverflowAction(BudgetOverflowAction.ABORT)
+                        .build());
+
+        context.withAttribute("a", new byte[400]).withAttribute("b", new byte[400]);
+        long twoEntries = context.getAttributeBytes();
+        assertEquals(832L, twoEntries);
+
+        context.withAttribute("a", new byte[100]);
+        assertEquals(twoEntries - 300L, context.getAttributeBytes());
+        context.withNoneAttribute("b");
+        assertEquals(116L, context.getAttributeBytes());
+        assertFalse(context.isAborted());
+
+        context.withAttribute("c", new byte[2_000]);
+        assertTrue(context.isAborted());
+        assertTrue(context.getAttribute("c").isEmpty());
+        assertTrue(context.getViolations()
+                .namesAnyMatch(AttributeBudget.STEP_CONTEXT_ATTRIBUTES_TOO_LARGE::equals));
+        assertEquals(116L, context.getAttributeBytes());
+    }
+
+    @Test
+    @DisplayName("AttributeBudget：withAttributes 的每一筆都記帳，超出上限者不寫入")
+    void shouldAccountBulkWrites() {
+        StepContext<String> context = StepContext.<String>builder()
+                .withPayload("p")
+                .withViolations(Violations.empty())
+                .build()
+                .withAttributeBudget(AttributeBudget.builder()
+                        .withMaxAttributeBytes(1_000L)
+                        .build());
+
+        StepContext<String> next = context.withAttributes(Map.of("small", new byte[100], "large", new byte[2_000]));
+        assertTrue(next.getAttribute("small").isPresent());
+        assertTrue(next.getAttribute("large").isEmpty());
+        assertEquals(116L, next.getAttributeBytes());
+        assertTrue(next.getViolations()
+                .namesAnyMatch(AttributeBudget.STEP_CONTEXT_ATTRIBUTE_TOO_LARGE::equals));
+    }
+
+    @Test
+    @DisplayName("AttributeBudget：fail-fast apply 在超出上限的 Step 之後即回傳 invalid，不執行後續 Step")
+    void shouldSurfaceBudgetViolationsInFailFastApply() {
+        List<String> executed = new ArrayList<>();
+        BehaviorPipeline<String> pipeline = BehaviorPipeline.<String>steps()
+                .withAttributeBudget(AttributeBudget.builder()
+                        .withMaxAttributeBytes(1_000L)
+                        .build())
+                .with(sc -> Validation.valid(sc.withAttribute("blob", new byte[2_000])))
+                .with(sc -> {
+                    executed.add("next");
+                    return Validation.valid(sc);
+                });
+
+        Validation<Violations, String> result = pipeline.apply("p", StepContext::getPayload);
+        assertTrue(result.error().orElseThrow()
+                .namesAnyMatch(AttributeBudget.STEP_CONTEXT_ATTRIBUTE_TOO_LARGE::equals));
+        assertTrue(executed.isEmpty());
+
+        assertTrue(pipeline.applyAll(List.of("p"), StepContext::getPayload).get(0).isInvalid());
+        assertTrue(pipeline.applyCorrectErrors("p", StepContext::getPayload).isInvalid());
+        assertEquals(1, executed.size(), "correct-errors 模式仍執行後續 Step");
+    }
+
+    @Test
+    @DisplayName("AttributeBudget：mergeBranch 依合併後的 context 重新記帳，各分支的寫入合計不可超出上限")
+    void shouldReaccountBranchWritesOnMerge() {
+        StepContext<String> base = StepContext.<String>builder()
+                .withPayload("p")
+                .withViolations(Violations.empty())
+                .build()
+                .withAttributeBudget(AttributeBudget.builder()
+                        .withMaxContextBytes(3_000L)
+                        .build());
+
+        StepContext<String> merged = base;
+        for (int i = 0; i < 4; i++) {
+            StepContext<String> branch = base.fork().withAttribute("blob-" + i, new byte[1_000]);
+            assertTrue(branch.getAttribute("blob-" + i).isPresent());
+            merged = merged.mergeBranch(base, branch);
+        }
+
+        assertTrue(merged.getAttributeBytes() <= 3_000L);
+        assertTrue(merged.getAttribute("blob-3").isEmpty());
+        assertTrue(merged.getBudgetViolations()
+                .namesAnyMatch(AttributeBudget.STEP_CONTEXT_ATTRIBUTES_TOO_LARGE::equals));
+        assertEquals(0L, base.getAttributeBytes(), "分支的記帳不影響起點");
+    }
+}
@@ -0,0 +1,117 @@
+package org.dotspace.oofp.support.dsl;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+
+import org.dotspace.oofp.model.dto.behaviorstep.AttributeMap;
+import org.dotspace.oofp.model.dto.behaviorstep.StepContext;
+import org.dotspace.oofp.model.dto.behaviorstep.StepContextAttributes;
+import org.dotspace.oofp.utils.eip.AttrKey;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AttributeMapTest {
+
+    @Test
+    @DisplayName("AttributeMap：隨機新增、覆寫、移除後與 HashMap 一致（含 hash 碰撞與小陣列 / trie 切換）")
+    void shouldBehaveLikeHashMap() {
+        Random random = new Random(42);
+        // "Aa" 與 "BB" 的 hashCode 相同，組合後產生大量完全碰撞的 key
+        List<String> collidingParts = List.of("Aa", "BB");
+        Map<String, Object> expected = new HashMap<>();
+        AttributeMap actual = AttributeMap.empty();
+
+        for (int i = 0; i < 5_000; i++) {
+            String key = random.nextInt(4) == 0
+                    ? collidingParts.get(random.nextInt(2)) + collidingParts.get(random.nextInt(2))
+                    + collidingParts.get(random.nextInt(2))
+                    : "k" + random.nextInt(64);
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                actual = actual.minus(key);
+            } else {
+                Object value = random.nextInt(10) == 0 ? null : i;
+                expected.put(key, value);
+                actual = actual.plus(key, value);
+            }
+            assertEquals(expected.size(), actual.size());
+        }
+
+        AttributeMap result = actual;
+        assertEquals(expected, result);
+        expected.forEach((key, value) -> assertTrue(result.containsKey(key)));
+        assertFalse(result.containsKey("missing"));
+    }
+
+    @Test
+    @DisplayName("AttributeMap：更新回傳新實例，舊版本不受影響")
+    void shouldKeepPreviousVersions() {
+        AttributeMap base = AttributeMap.empty();
+        for (int i = 0; i < 40; i++) {
+            base = base.plus("k" + i, i);
+        }
+
+        AttributeMap updated = base.plus("k0", "changed").minus("k1");
+
+        assertEquals(0, base.get("k0"));
+        assertEquals(1, base.get("k1"));
+        assertEquals("changed", updated.get("k0"));
+        assertFalse(updated.containsKey("k1"));
+        assertSame(base, base.plus("k2", base.get("k2")));
+        assertThrows(UnsupportedOperationException.class, () -> updated.put("x", 1));
+    }
+
+    @Test
+    @DisplayName("StepContext：fork 與 transit 後的 withAttribute 不影響原 context")
+    void shouldIsolateContextsSharingAttributes() {
+        StepContext<String> context = StepContext.<String>builder()
+                .withPayload("in")
+                .withAttributes(Map.of("a", 1))
+                .build();
+
+        StepContext<String> forked = context.fork().withAttribute("b", 2);
+        StepContext<String> transited = context.transit("out").withAttribute("c", 3);
+
+        assertTrue(context.getAttribute("b").isEmpty());
+        assertTrue(context.getAttribute("c").isEmpty());
+        assertEquals(1, forked.<Integer>getAttribute("a").orElse(null));
+        assertEquals(3, transited.<Integer>getAttribute("c").orElse(null));
+        assertEquals(Map.of("b", 2), context.diff(forked).written());
+    }
+
+    @Test
+    @DisplayName("AttrKey.slotted：以槽位存放已轉型的值，字串存取、diff 與 applyDelta 皆一致")
+    void shouldStoreSlottedAttributesTyped() {
+        AttrKey<List<String>> tags = AttrKey.slotted("test.slotted.tags", new TypeReference<>() {});
+        assertTrue(tags.slot() >= 0);
+        assertEquals(tags.slot(), AttrKey.slotted("test.slotted.tags", new TypeReference<List<String>>() {}).slot());
+        assertEquals(-1, AttrKey.slotted("test.slotted.tags", new TypeReference<String>() {}).slot(),
+                "同名不同型別不配置槽位");
+
+        List<String> value = new ArrayList<>(List.of("a", "b"));
+        StepContext<String> context = StepContext.<String>builder()
+                .withPayload("in")
+                .withAttributes(Map.of("plain", 1))
+                .build();
+        StepContext<String> written = context.fork().withAttribute(tags, value);
+
+        assertSame(value, tags.maybe(written).orElse(null), "已轉型的值不經 Jackson 轉換");
+        assertSame(value, tags.require(written).get().orElse(null));
+        assertEquals(value, written.<List<String>>getAttribute("test.slotted.tags").orElse(null));
+        assertEquals(Map.of("plain", 1, "test.slotted.tags", value), StepContextAttributes.copyOf(written));
+
+        StepContext<String> merged = context.applyDelta(context.diff(written));
+        assertSame(value, tags.maybe(merged).orElse(null), "applyDelta 保留已轉型標記");
+
+        StepContext<String> viaName = context.fork().withAttribute("test.slotted.tags", List.of("c"));
+        assertEquals(List.of("c"), tags.maybe(viaName).orElse(null));
+        assertTrue(tags.maybe(viaName.withNoneAttribute("test.slotted.tags")).isEmpty());
+    }
+}
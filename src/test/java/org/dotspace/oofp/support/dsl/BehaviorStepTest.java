@@ -3,7 +3,13 @@ package org.dotspace.oofp.support.dsl;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.UnaryOperator;
@@ -11,6 +17,8 @@ import java.util.function.UnaryOperator;
 import org.dotspace.oofp.model.dto.behaviorstep.Violations;
 import org.dotspace.oofp.model.dto.behaviorstep.StepContext;
 import org.dotspace.oofp.utils.dsl.BehaviorStep;
+import org.dotspace.oofp.utils.dsl.cache.CacheSpec;
+import org.dotspace.oofp.utils.dsl.cache.CacheStats;
 import org.dotspace.oofp.utils.functional.monad.validation.Validation;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -218,4 +226,210 @@ class BehaviorStepTest {
         var out = recovered.execute(ctx(7));
         out.fold(err -> err, ok -> fail("應維持 Invalid"));
     }
+
+    // -------------------- parallel --------------------
+
+    @Test
+    @DisplayName("parallel：各 step 同時執行，attribute 異動依清單順序合併")
+    void testParallel_mergesAttributesInOrder() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        BehaviorStep<Integer> entitlements = sc -> {
+            bothStarted.countDown();
+            awaitQuietly(bothStarted);
+            return Validation.valid(sc.withAttribute("entitlements", "E").withAttribute("shared", "first"));
+        };
+        BehaviorStep<Integer> status = sc -> {
+            bothStarted.countDown();
+            awaitQuietly(bothStarted);
+            return Validation.valid(sc.withAttribute("status", "S").withAttribute("shared", "second"));
+        };
+
+        try {
+            StepContext<Integer> input = ctx(1).withAttribute("kept", "K");
+            var out = BehaviorStep.parallel(List.of(entitlements, status), executor).execute(input);
+
+            StepContext<Integer> merged = out.get().orElseThrow();
+            assertEquals("E", merged.getAttribute("entitlements", String.class).orElse(null));
+            assertEquals("S", merged.getAttribute("status", String.class).orElse(null));
+            assertEquals("second", merged.getAttribute("shared", String.class).orElse(null));
+            assertEquals("K", merged.getAttribute("kept", String.class).orElse(null));
+            assertTrue(input.getAttribute("status").isEmpty(), "原 context 不應被分支修改");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("parallel：任一 step invalid 時，以 join 合併所有 violations")
+    void testParallel_joinsViolations() {
+        BehaviorStep<Integer> ok = Validation::valid;
+        BehaviorStep<Integer> e1 = in -> Validation.invalid(Violations.violate("E1", "first"));
+        BehaviorStep<Integer> e2 = in -> Validation.invalid(Violations.violate("E2", "second"));
+
+        var out = BehaviorStep.parallel(List.of(e1, ok, e2)).execute(ctx(0));
+
+        Violations violations = out.error().orElseThrow();
+        assertTrue(violations.namesAnyMatch("E1"::equals));
+        assertTrue(violations.namesAnyMatch("E2"::equals));
+    }
+
+    @Test
+    @DisplayName("parallel：呼叫端的 step 丟出例外時，先等其餘分支結束再丟出")
+    void testParallel_awaitsForksBeforeRethrowing() {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicBoolean finished = new AtomicBoolean();
+        BehaviorStep<Integer> failing = in -> {
+            awaitQuietly(started);
+            throw new IllegalStateException("boom");
+        };
+        BehaviorStep<Integer> slow = in -> {
+            started.countDown();
+            sleepQuietly(50);
+            finished.set(true);
+            return Validation.valid(in);
+        };
+
+        try {
+            BehaviorStep<Integer> parallel = BehaviorStep.parallel(List.of(failing, slow), executor);
+            assertThrows(IllegalStateException.class, () -> parallel.execute(ctx(0)));
+            assertTrue(finished.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // -------------------- memoize --------------------
+
+    @Test
+    @DisplayName("memoize：相同 key 重播快取的 attributes，不重複執行 step")
+    void testMemoize_replaysDelta() {
+        AtomicInteger calls = new AtomicInteger();
+        BehaviorStep<Integer> lookup = in -> {
+            calls.incrementAndGet();
+            return Validation.valid(in.withAttribute("square", in.getPayload() * in.getPayload()));
+        };
+        var memoized = lookup.memoize(StepContext::getPayload, CacheSpec.ofSize(10));
+
+        StepContext<Integer> first = ctx(3).withAttribute("request", "A");
+        StepContext<Integer> second = ctx(3).withAttribute("request", "B");
+        memoized.execute(first);
+        StepContext<Integer> replayed = memoized.execute(second).get().orElseThrow();
+
+        assertEquals(1, calls.get());
+        assertEquals(9, replayed.getAttribute("square", Integer.class).orElse(null));
+        assertEquals("B", replayed.getAttribute("request", String.class).orElse(null));
+        assertTrue(first.getAttribute("square").isEmpty(), "miss 時在副本上執行");
+
+        CacheStats stats = memoized.cache().stats();
+        assertEquals(1, stats.hits());
+        assertEquals(1, stats.misses());
+    }
+
+    @Test
+    @DisplayName("memoize：超過容量時淘汰最早寫入者，invalid 結果也會快取")
+    void testMemoize_evictsAndCachesInvalid() {
+        AtomicInteger calls = new AtomicInteger();
+        BehaviorStep<Integer> check = in -> {
+            calls.incrementAndGet();
+            return in.getPayload() < 0
+                    ? Validation.invalid(Violations.violate("NEGATIVE", "negative"))
+                    : Validation.valid(in);
+        };
+        var memoized = check.memoize(StepContext::getPayload, CacheSpec.of(2, Duration.ofMinutes(1)));
+
+        memoized.execute(ctx(-1));
+        memoized.execute(ctx(1));
+        memoized.execute(ctx(2));     // 淘汰 -1
+        var out = memoized.execute(ctx(-1));
+
+        assertTrue(out.error().orElseThrow().namesAnyMatch("NEGATIVE"::equals));
+        assertEquals(4, calls.get());
+        assertEquals(2, memoized.cache().stats().size());
+        assertTrue(memoized.cache().stats().evictions() >= 1);
+
+        memoized.execute(ctx(-1));
+        assertEquals(4, calls.get(), "invalid 結果命中快取");
+    }
+
+    @Test
+    @DisplayName("memoize：invalid 結果命中與未命中時回傳相同的 violations（不含 context 既有者）")
+    void testMemoize_invalidResultIndependentOfCacheState() {
+        BehaviorStep<Integer> check = in -> Validation.invalid(
+                in.getViolations().join(Violations.violate("NEGATIVE", "negative")));
+        var memoized = check.memoize(StepContext::getPayload, CacheSpec.ofSize(10));
+
+        StepContext<Integer> first = ctx(-1);
+        first.addViolation(Violations.violate("EARLIER", "earlier"));
+        StepContext<Integer> second = ctx(-1);
+        second.addViolation(Violations.violate("EARLIER", "earlier"));
+
+        Violations miss = memoized.execute(first).error().orElseThrow();
+        Violations hit = memoized.execute(second).error().orElseThrow();
+
+        assertEquals(miss, hit);
+        assertFalse(hit.namesAnyMatch("EARLIER"::equals));
+        assertEquals(1, memoized.cache().stats().hits());
+    }
+
+    // -------------------- withTimeout --------------------
+
+    @Test
+    @DisplayName("withTimeout：超過時間不再等待，回傳 behavior-step.timeout")
+    void testWithTimeout_timesOut() {
+        CountDownLatch release = new CountDownLatch(1);
+        BehaviorStep<Integer> slow = in -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return Validation.valid(in.withAttribute("late", true));
+        };
+
+        StepContext<Integer> input = ctx(1);
+        var out = slow.withTimeout(Duration.ofMillis(50)).execute(input);
+        release.countDown();
+
+        assertTrue(out.error().orElseThrow().namesAnyMatch("behavior-step.timeout"::equals));
+        assertTrue(input.getAttribute("late").isEmpty(), "逾時的結果不寫回原 context");
+    }
+
+    @Test
+    @DisplayName("withTimeout：context 期限已過時不執行 step")
+    void testWithTimeout_deadlineExceeded() {
+        AtomicBoolean called = new AtomicBoolean(false);
+        BehaviorStep<Integer> step = in -> {
+            called.set(true);
+            return Validation.valid(in);
+        };
+
+        var out = step.withTimeout(Duration.ofSeconds(1))
+                .execute(ctx(1).withDeadline(Instant.now().minusSeconds(1)));
+
+        assertFalse(called.get());
+        assertTrue(out.error().orElseThrow()
+                .namesAnyMatch(StepContext.STEP_CONTEXT_DEADLINE_EXCEEDED::equals));
+        assertEquals(2, step.withTimeout(Duration.ofSeconds(5))
+                .andThenMapper(c -> c.transit(c.getPayload() + 1))
+                .execute(ctx(1)).get().orElseThrow().getPayload());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS), "steps 應同時執行");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail(e);
+        }
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
 }
@@ -0,0 +1,39 @@
+package org.dotspace.oofp.support.dsl.joinable;
+
+import org.dotspace.oofp.model.dto.behaviorstep.JoinableMessage;
+import org.dotspace.oofp.utils.dsl.Joinable;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JoinableMessageTest {
+
+    @Test
+    void testJoinBuildsRopeFlattenedOnRead() {
+        JoinableMessage joined = JoinableMessage.of(null);
+        for (int i = 0; i < 50_000; i++) {
+            joined = joined.join(JoinableMessage.of("m" + i));
+        }
+
+        String expected = IntStream.range(0, 50_000).mapToObj(i -> "m" + i).collect(Collectors.joining("\n"));
+        assertEquals(expected, joined.getMessage());
+        assertSame(joined.getMessage(), joined.getMessage());
+        assertEquals("a\n\nb", JoinableMessage.of("a").join(JoinableMessage.of("")).join(JoinableMessage.of("b"))
+                .getMessage());
+    }
+
+    @Test
+    void testAccumulatorMatchesJoin() {
+        JoinableMessage first = JoinableMessage.of("a").join(JoinableMessage.of("b"));
+        Joinable.Accumulator<JoinableMessage> accumulator = first.accumulator()
+                .add(JoinableMessage.of("c"))
+                .add(JoinableMessage.of(null))
+                .add(JoinableMessage.of("d"));
+
+        assertEquals("a\nb\nc\nd", accumulator.freeze().getMessage());
+        assertEquals("a\nb", first.getMessage());
+    }
+}
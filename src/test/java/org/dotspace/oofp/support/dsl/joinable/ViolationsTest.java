@@ -1,13 +1,20 @@
 package org.dotspace.oofp.support.dsl.joinable;
 
+import org.dotspace.oofp.enumeration.stepcontext.StackTracePolicy;
 import org.dotspace.oofp.enumeration.stepcontext.ViolationSeverity;
 import org.dotspace.oofp.model.dto.behaviorstep.StepContext;
 import org.dotspace.oofp.model.dto.behaviorstep.Violations;
 import org.dotspace.oofp.model.dto.behaviorstep.GeneralViolation;
+import org.dotspace.oofp.model.dto.behaviorstep.StackTraces;
+import org.dotspace.oofp.utils.dsl.Joinable;
+import org.dotspace.oofp.utils.dsl.pipeline.BehaviorPipeline;
+import org.dotspace.oofp.utils.dsl.pipeline.ViolationFilters;
 import org.dotspace.oofp.utils.functional.monad.validation.Validation;
 import org.junit.jupiter.api.Test;
 
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -212,4 +219,121 @@ class ViolationsTest {
         
         assertEquals(violations1.hashCode(), violations2.hashCode());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testJoinDoesNotModifyReceiverAndBranchesStayIndependent() {
+        Violations base = Violations.violate("base", "message");
+
+        Violations left = base.join(Violations.violate("left", "message"));
+        Violations right = base.join(Violations.violate("right", "message"));
+
+        assertEquals(1, base.getViolationCollection().size());
+        assertTrue(left.namesAnyMatch("left"::equals));
+        assertFalse(left.namesAnyMatch("right"::equals));
+        assertTrue(right.namesAnyMatch("right"::equals));
+        assertFalse(right.namesAnyMatch("left"::equals));
+        assertEquals(Violations.from(List.of(GeneralViolation.violate("base", "message"),
+                GeneralViolation.violate("right", "message"))), right);
+    }
+
+    @Test
+    void testJoinAccumulatesWithoutDuplicatesAfterTagStep() {
+        Violations accumulated = Violations.empty();
+        for (int i = 0; i < 10_000; i++) {
+            Violations next = Violations.violate("name-" + (i % 5_000), "message");
+            next.tagStep("step");
+            accumulated = accumulated.join(next);
+        }
+        assertEquals(5_000, accumulated.getViolationCollection().size());
+
+        Violations tagged = Violations.violate("name-1", "message");
+        tagged.tagStep("step");
+        assertTrue(accumulated.contains(tagged.stream().findFirst().orElseThrow()));
+        assertEquals(accumulated, accumulated.join(tagged));
+    }
+
+    @Test
+    void testAccumulatorMatchesJoinFold() {
+        List<Violations> parts = IntStream.range(0, 200)
+                .mapToObj(i -> Violations.violate("name-" + (i % 150), "message"))
+                .toList();
+        Violations base = Violations.violate("base", "message");
+
+        Violations folded = parts.stream().reduce(base, Violations::join);
+        Joinable.Accumulator<Violations> accumulator = base.accumulator();
+        parts.forEach(accumulator::add);
+        Violations accumulated = accumulator.freeze();
+
+        assertEquals(folded, accumulated);
+        assertEquals(151, accumulated.getViolationCollection().size());
+        assertEquals(1, base.getViolationCollection().size());
+    }
+
+    @Test
+    void testDeferredMessagesRenderAtMostOnce() {
+        AtomicInteger renders = new AtomicInteger();
+        Violations deferred = Violations.violate("deferred", () -> "rendered-" + renders.incrementAndGet());
+        Violations joined = Violations.violate("other", "value %d", 42).join(deferred).join(deferred);
+        assertEquals(2, joined.getViolationCollection().size());
+        assertTrue(ViolationFilters.onlySevere().apply(joined).isEmpty());
+        assertEquals(1, renders.get());
+
+        assertEquals("other -> [value 42]\ndeferred -> [rendered-1]", joined.collectMessages());
+        assertEquals("rendered-1", joined.associateMessage().get("deferred"));
+        assertEquals(1, renders.get());
+    }
+
+    @Test
+    void testDeferredViolationsWithEqualMessagesDedup() {
+        Violations joined = Violations.violate("missing", () -> "x")
+                .join(Violations.violate("missing", () -> "x"))
+                .join(Violations.violate("missing", "x"));
+        assertEquals(1, joined.getViolationCollection().size());
+        assertEquals(Violations.violate("missing", "x"), joined);
+
+        Validation<Violations, String> result = BehaviorPipeline.<String>steps()
+                .with(sc -> sc.requireAttr("user", String.class).map(user -> sc))
+                .with(sc -> sc.requireAttr("user", String.class).map(user -> sc))
+                .applyCorrectErrors("p", StepContext::getPayload);
+        assertEquals(1, result.error().orElseThrow().getViolationCollection().size());
+    }
+
+    @Test
+    void testSameNameViolationsDedupByMessages() {
+        Violations accumulated = Violations.empty();
+        for (int i = 0; i < 20_000; i++) {
+            accumulated = accumulated.join(Violations.violate("required", "field-" + (i % 10_000) + " missing"));
+        }
+        assertEquals(10_000, accumulated.getViolationCollection().size());
+
+        AtomicInteger renders = new AtomicInteger();
+        Violations deferred = Violations.violate("required", "field-%d missing", 7)
+                .join(Violations.violate("required", "field-%d missing", 7))
+                .join(Violations.violate("required", "field-%d missing", 8))
+                .join(Violations.violate("required", () -> "lazy-" + renders.incrementAndGet()));
+        assertEquals(3, deferred.getViolationCollection().size());
+        assertEquals(1, renders.get());
+    }
+
+    @Test
+    void testStackTracePolicy() {
+        Exception exception = new IllegalStateException("boom");
+        try {
+            StackTraces.configure(StackTracePolicy.NONE, 1);
+            assertEquals(List.of("boom"), messagesOf(Violations.getInvalidValidation("none", exception)));
+
+            StackTraces.configure(StackTracePolicy.TOP_FRAMES, 1);
+            List<String> top = messagesOf(Violations.getInvalidValidation("top", exception));
+            assertEquals(2, top.size());
+            assertTrue(top.get(1).startsWith("java.lang.IllegalStateException: boom"));
+            assertEquals(1, top.get(1).lines().filter(line -> line.startsWith("\tat ")).count());
+            assertTrue(top.get(1).lines().reduce((first, second) -> second).orElseThrow().endsWith("more"));
+        } finally {
+            StackTraces.configure(StackTracePolicy.FULL, StackTraces.DEFAULT_TOP_FRAMES);
+        }
+    }
+
+    private static List<String> messagesOf(Validation<Violations, StepContext<String>> validation) {
+        return validation.error().orElseThrow().stream().findFirst().orElseThrow().getMessages();
+    }
+}
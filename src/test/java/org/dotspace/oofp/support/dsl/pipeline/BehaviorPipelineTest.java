@@ -1,14 +1,30 @@
 package org.dotspace.oofp.support.dsl.pipeline;
 
 import org.dotspace.oofp.model.dto.behaviorstep.StepContext;
+import org.dotspace.oofp.utils.behaviorstep.StepLogger;
+import org.dotspace.oofp.utils.dsl.AsyncBehaviorStep;
+import org.dotspace.oofp.utils.dsl.BatchBehaviorStep;
 import org.dotspace.oofp.utils.dsl.BehaviorStep;
 import org.dotspace.oofp.model.dto.behaviorstep.Violations;
 import org.dotspace.oofp.utils.dsl.pipeline.BehaviorPipeline;
+import org.dotspace.oofp.utils.functional.monad.Maybe;
+import org.dotspace.oofp.utils.functional.monad.Sequence;
 import org.dotspace.oofp.utils.functional.monad.validation.Validation;
+import org.apache.commons.lang3.tuple.Pair;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -246,4 +262,222 @@ class BehaviorPipelineTest {
         assertTrue(result.isInvalid());
         assertTrue(result.error().orElse(Violations.empty()).collectMessages().contains("PARSE_ERROR"));
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("applyAsync：同步與非同步 Step 可混用，結果與 apply 相同")
+    void shouldApplyAsyncWithMixedSteps() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            AsyncBehaviorStep<String> lookup = context -> CompletableFuture.supplyAsync(
+                    () -> Validation.valid(context.withAttribute("lookup", "done")), executor);
+            BehaviorStep<String> upper = context -> Validation.valid(
+                    context.transit(context.getPayload().toUpperCase()));
+
+            pipeline.with(upper)
+                    .withAsync(lookup)
+                    .with(upper);
+
+            Validation<Violations, String> async = pipeline
+                    .applyAsync("test", context -> context.getPayload()
+                            + context.getAttributeOrDefault("lookup", String.class::cast, ""))
+                    .get(5, TimeUnit.SECONDS);
+            Validation<Violations, String> sync = pipeline
+                    .apply("test", context -> context.getPayload()
+                            + context.getAttributeOrDefault("lookup", String.class::cast, ""));
+
+            assertEquals("TESTdone", async.get().orElse(null));
+            assertEquals(sync.get().orElse(null), async.get().orElse(null));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("applyAsync：非同步 Step invalid 時停止，後續 Step 不執行")
+    void shouldStopAsyncOnInvalid() throws Exception {
+        AsyncBehaviorStep<String> invalid = context -> CompletableFuture.supplyAsync(
+                () -> Validation.invalid(Violations.violate("ASYNC_ERROR", "failed")));
+        BehaviorStep<String> shouldNotExecute = context -> {
+            fail("This step should not be executed");
+            return Validation.valid(context);
+        };
+
+        Validation<Violations, String> result = pipeline
+                .withAsync(invalid)
+                .with(shouldNotExecute)
+                .applyAsync("test", StepContext::getPayload)
+                .get(5, TimeUnit.SECONDS);
+
+        assertTrue(result.isInvalid());
+        assertTrue(result.error().orElseThrow().namesAnyMatch("ASYNC_ERROR"::equals));
+    }
+
+    @Test
+    @DisplayName("applyCorrectErrorsAsync：累積所有 violations")
+    void shouldAccumulateViolationsAsync() throws Exception {
+        AsyncBehaviorStep<String> first = context -> CompletableFuture.supplyAsync(
+                () -> Validation.invalid(Violations.violate("E1", "first")));
+        BehaviorStep<String> second = context -> Validation.invalid(Violations.violate("E2", "second"));
+
+        Validation<Violations, String> result = pipeline
+                .withAsync(first)
+                .with(second)
+                .applyCorrectErrorsAsync("test", StepContext::getPayload)
+                .get(5, TimeUnit.SECONDS);
+
+        Violations violations = result.error().orElseThrow();
+        assertTrue(violations.namesAnyMatch("E1"::equals));
+        assertTrue(violations.namesAnyMatch("E2"::equals));
+    }
+
+    @Test
+    @DisplayName("applyAll：BatchBehaviorStep 一次收到所有仍在執行中的 context，結果依輸入順序回傳")
+    void shouldApplyAllWithBatchStep() {
+        List<Integer> batchSizes = new ArrayList<>();
+        BehaviorStep<String> rejectBad = context -> context.getPayload().startsWith("bad")
+                ? Validation.invalid(Violations.violate("BAD", context.getPayload()))
+                : Validation.valid(context);
+        BatchBehaviorStep<String> bulkUpper = contexts -> {
+            batchSizes.add(contexts.size());
+            return contexts.stream()
+                    .map(context -> Validation.<Violations, StepContext<String>>valid(
+                            context.transit(context.getPayload().toUpperCase())))
+                    .toList();
+        };
+
+        List<Validation<Violations, String>> results = pipeline
+                .with(rejectBad)
+                .with(bulkUpper)
+                .applyAll(List.of("a", "bad-1", "b"), StepContext::getPayload);
+
+        assertEquals(List.of(2), batchSizes, "只呼叫一次，且不含已 invalid 的那一筆");
+        assertEquals("A", results.get(0).get().orElse(null));
+        assertTrue(results.get(1).isInvalid());
+        assertEquals("B", results.get(2).get().orElse(null));
+    }
+
+    @Test
+    @DisplayName("named / declare 包裝的 BatchBehaviorStep 仍以批次執行；named 的非同步 Step 不在呼叫端等待")
+    void shouldKeepBatchAndAsyncThroughNamedSteps() throws Exception {
+        List<Integer> batchSizes = new ArrayList<>();
+        BatchBehaviorStep<String> bulkUpper = contexts -> {
+            batchSizes.add(contexts.size());
+            return contexts.stream()
+                    .map(context -> Validation.<Violations, StepContext<String>>valid(
+                            context.transit(context.getPayload().toUpperCase())))
+                    .toList();
+        };
+        BehaviorPipeline.<String>steps()
+                .with("bulk", bulkUpper.declare(Set.of(), Set.of()))
+                .applyAll(List.of("a", "b", "c"), StepContext::getPayload);
+        assertEquals(List.of(3), batchSizes);
+
+        CompletableFuture<Validation<Violations, StepContext<String>>> pending = new CompletableFuture<>();
+        AsyncBehaviorStep<String> lookup = context -> pending;
+        CompletableFuture<Validation<Violations, String>> result = assertTimeoutPreemptively(
+                Duration.ofSeconds(5), () -> BehaviorPipeline.<String>steps()
+                        .with(StepLogger.tagAndLogOnError("lookup", lookup.blocking(), violations -> {}))
+                        .applyAsync("a", StepContext::getPayload));
+        assertFalse(result.isDone());
+
+        pending.complete(Validation.valid(StepContext.<String>builder()
+                .withPayload("done")
+                .withViolations(Violations.empty())
+                .build()));
+        assertEquals("done", result.get(5, TimeUnit.SECONDS).get().orElse(null));
+    }
+
+    @Test
+    @DisplayName("applyCorrectErrorsAll：每一筆各自累積 violations")
+    void shouldApplyCorrectErrorsAll() {
+        BehaviorStep<String> first = context -> context.getPayload().equals("x")
+                ? Validation.invalid(Violations.violate("E1", "first"))
+                : Validation.valid(context);
+        BehaviorStep<String> second = context -> context.getPayload().equals("x")
+                ? Validation.invalid(Violations.violate("E2", "second"))
+                : Validation.valid(context);
+
+        BehaviorPipeline<String> assembled = pipeline.with(first).with(second);
+        List<Validation<Violations, String>> results = assembled
+                .applyCorrectErrorsAll(List.of("ok", "x"), StepContext::getPayload);
+
+        assertEquals("ok", results.get(0).get().orElse(null));
+        assertEquals(assembled.applyCorrectErrors("x", StepContext::getPayload).error().orElseThrow(),
+                results.get(1).error().orElseThrow());
+    }
+
+    @Test
+    @DisplayName("deadline：超過期限後不再執行剩餘 step，回傳 deadline violation")
+    void shouldStopAfterDeadline() {
+        List<String> executed = new ArrayList<>();
+        BehaviorStep<String> slow = context -> {
+            executed.add("slow");
+            return Validation.valid(context.withDeadline(Instant.now().minusMillis(1)));
+        };
+        BehaviorStep<String> next = context -> {
+            executed.add("next");
+            return Validation.valid(context);
+        };
+        BehaviorPipeline<String> assembled = pipeline.with(slow).with(next);
+
+        Validation<Violations, String> failFast = assembled.apply("in", StepContext::getPayload);
+        Validation<Violations, String> corrected = assembled.applyCorrectErrors("in", StepContext::getPayload);
+
+        assertEquals(List.of("slow", "slow"), executed);
+        assertTrue(failFast.error().orElseThrow()
+                .namesAnyMatch(StepContext.STEP_CONTEXT_DEADLINE_EXCEEDED::equals));
+        assertTrue(corrected.error().orElseThrow()
+                .namesAnyMatch(StepContext.STEP_CONTEXT_DEADLINE_EXCEEDED::equals));
+        assertTrue(assembled.compile().apply("in", StepContext::getPayload).isInvalid());
+    }
+
+    @Test
+    @DisplayName("applyContext：沿用既有 context 的 attributes 與 deadline")
+    void shouldApplyExistingContext() {
+        StepContext<String> initial = StepContext.<String>builder()
+                .withPayload("in")
+                .build()
+                .withAttribute("tenant", "t1")
+                .withDeadline(Instant.now().plusSeconds(60));
+
+        Validation<Violations, String> result = pipeline
+                .with(context -> Validation.valid(context.transit(context.getPayload() + "-"
+                        + context.getAttribute("tenant", String.class).orElse(null))))
+                .applyCorrectErrorsContext(initial, StepContext::getPayload);
+
+        assertEquals("in-t1", result.get().orElse(null));
+    }
+
+    @Test
+    @DisplayName("stream：逐段讀取輸入，批次大小不超過 window，且只讀取需要的部分")
+    void shouldStreamInWindows() {
+        AtomicInteger pulled = new AtomicInteger();
+        Sequence<Integer> inputs = Sequence.<Integer, Integer>unfold(1,
+                        n -> n > 1000 ? Maybe.empty() : Maybe.just(Pair.of(n, n + 1)))
+                .peek(n -> pulled.incrementAndGet());
+        List<Integer> batchSizes = new ArrayList<>();
+        BatchBehaviorStep<Integer> bulkDouble = BatchBehaviorStep.of(contexts -> {
+            batchSizes.add(contexts.size());
+            return contexts.stream()
+                    .map(context -> Validation.<Violations, StepContext<Integer>>valid(
+                            context.transit(context.getPayload() * 2)))
+                    .toList();
+        });
+        BehaviorStep<Integer> rejectMultipleOfThree = context -> context.getPayload() % 3 == 0
+                ? Validation.invalid(Violations.violate("MOD3", "multiple of 3"))
+                : Validation.valid(context);
+
+        Sequence<Validation<Violations, Integer>> results = BehaviorPipeline.<Integer>steps()
+                .with(rejectMultipleOfThree)
+                .with(bulkDouble)
+                .stream(inputs, 16, StepContext::getPayload);
+
+        List<Validation<Violations, Integer>> firstThree = results.stream().limit(3).toList();
+        assertEquals(16, pulled.get(), "只讀取第一段");
+        assertEquals(2, firstThree.get(0).get().orElse(null));
+        assertTrue(firstThree.get(2).isInvalid());
+
+        assertEquals(1000, results.size());
+        assertTrue(batchSizes.stream().allMatch(size -> size <= 16));
+    }
+}
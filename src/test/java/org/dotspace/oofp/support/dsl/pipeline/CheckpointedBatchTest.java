@@ -0,0 +1,76 @@
+package org.dotspace.oofp.support.dsl.pipeline;
+
+import org.dotspace.oofp.model.dto.behaviorstep.StepContext;
+import org.dotspace.oofp.model.dto.behaviorstep.Violations;
+import org.dotspace.oofp.utils.dsl.pipeline.BehaviorPipeline;
+import org.dotspace.oofp.utils.dsl.pipeline.checkpoint.BatchCheckpoint;
+import org.dotspace.oofp.utils.dsl.pipeline.checkpoint.CheckpointFile;
+import org.dotspace.oofp.utils.functional.monad.Sequence;
+import org.dotspace.oofp.utils.functional.monad.validation.Validation;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CheckpointedBatchTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final BehaviorPipeline<Integer> pipeline = BehaviorPipeline.<Integer>steps()
+            .with(sc -> sc.getPayload() % 3 == 0
+                    ? Validation.invalid(Violations.violate("MOD3", "multiple of 3"))
+                    : Validation.valid(sc));
+
+    private final Sequence<Integer> inputs = Sequence.from(IntStream.rangeClosed(1, 10).boxed().toList());
+
+    @Test
+    @DisplayName("checkpoint：中斷後由最後的檢查點繼續，完成後不再重跑")
+    void shouldResumeFromLastCheckpoint() {
+        CheckpointFile checkpointFile = CheckpointFile.at(tempDir.resolve("jobs/import.json"));
+
+        List<Integer> firstRun = new ArrayList<>();
+        assertThrows(IllegalStateException.class, () -> pipeline.applyCorrectErrorsCheckpointed(
+                inputs, StepContext::getPayload, result -> {
+                    if (firstRun.size() == 4) {
+                        throw new IllegalStateException("crash");
+                    }
+                    firstRun.add(result.get().orElse(-1));
+                }, checkpointFile, 2));
+        assertEquals(4, checkpointFile.load().get().orElseThrow().offset());
+
+        List<Integer> secondRun = new ArrayList<>();
+        BatchCheckpoint done = pipeline.applyCorrectErrorsCheckpointed(inputs, StepContext::getPayload,
+                result -> secondRun.add(result.get().orElse(-1)), checkpointFile, 2)
+                .get()
+                .orElseThrow();
+
+        assertEquals(List.of(5, -1, 7, 8, -1, 10), secondRun);
+        assertEquals(new BatchCheckpoint(10, 3, Map.of("MOD3", 3L), true), done);
+
+        List<Integer> thirdRun = new ArrayList<>();
+        pipeline.applyCorrectErrorsCheckpointed(inputs, StepContext::getPayload,
+                result -> thirdRun.add(result.get().orElse(-1)), checkpointFile, 2);
+        assertTrue(thirdRun.isEmpty(), "已完成的批次不重跑");
+    }
+
+    @Test
+    @DisplayName("checkpoint：檔案無法解析時回傳 invalid")
+    void shouldReportUnreadableCheckpoint() throws Exception {
+        Path path = tempDir.resolve("broken.json");
+        Files.writeString(path, "{not json");
+
+        Validation<Violations, BatchCheckpoint> result = pipeline.applyCorrectErrorsCheckpointed(
+                inputs, StepContext::getPayload, r -> { }, CheckpointFile.at(path), 2);
+
+        assertTrue(result.error().orElseThrow().namesAnyMatch(CheckpointFile.CHECKPOINT_READ_FAILED::equals));
+    }
+}
@@ -0,0 +1,173 @@
+package org.dotspace.oofp.support.dsl.pipeline;
+
+import org.dotspace.oofp.model.dto.behaviorstep.AttributeBudget;
+import org.dotspace.oofp.model.dto.behaviorstep.StepContext;
+import org.dotspace.oofp.model.dto.behaviorstep.Violations;
+import org.dotspace.oofp.utils.arena.ArenaPayload;
+import org.dotspace.oofp.utils.arena.PayloadArena;
+import org.dotspace.oofp.utils.dsl.BehaviorStep;
+import org.dotspace.oofp.utils.dsl.pipeline.BehaviorPipeline;
+import org.dotspace.oofp.utils.dsl.pipeline.CompiledBehaviorPipeline;
+import org.dotspace.oofp.utils.dsl.pipeline.metrics.PipelineMetrics;
+import org.dotspace.oofp.utils.dsl.pipeline.metrics.StepStats;
+import org.dotspace.oofp.utils.functional.monad.validation.Validation;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompiledBehaviorPipelineTest {
+
+    private static BehaviorStep<Integer> plus(int n) {
+        return sc -> Validation.valid(sc.transit(sc.getPayload() + n));
+    }
+
+    private static BehaviorStep<Integer> fail(String name) {
+        return sc -> Validation.invalid(Violations.violate(name, name + " failed"));
+    }
+
+    @Test
+    @DisplayName("compile：巢狀 chain / when / peek / requirePayload 與未編譯結果一致")
+    void shouldMatchInterpretedResult() {
+        List<Integer> observed = new ArrayList<>();
+        BehaviorStep<Integer> nested = BehaviorStep.chain(List.of(
+                plus(1),
+                BehaviorStep.when(sc -> sc.getPayload() > 100, plus(1000)),
+                BehaviorStep.chain(List.of(plus(2), plus(3))).peek(sc -> observed.add(sc.getPayload())),
+                plus(4).requirePayload(p -> p > 0, p -> Violations.violate("positive", "not positive"))
+        ));
+
+        BehaviorPipeline<Integer> pipeline = BehaviorPipeline.<Integer>steps()
+                .with(nested)
+                .with(plus(10).andThenMapper(sc -> sc.transit(sc.getPayload() * 2)));
+
+        Validation<Violations, Integer> interpreted = pipeline.apply(0, StepContext::getPayload);
+        Validation<Violations, Integer> compiled = pipeline.compile().apply(0, StepContext::getPayload);
+
+        assertEquals(interpreted.get().orElse(null), compiled.get().orElse(null));
+        assertEquals(40, compiled.get().orElse(null));
+        assertEquals(List.of(6, 6), observed);
+    }
+
+    @Test
+    @DisplayName("compile：巢狀結構被攤平成單一指令陣列")
+    void shouldFlattenNestedSteps() {
+        BehaviorStep<Integer> nested = BehaviorStep.chain(List.of(
+                plus(1),
+                BehaviorStep.chain(List.of(plus(2), BehaviorStep.chain(List.of(plus(3)))))));
+
+        CompiledBehaviorPipeline<Integer> compiled = BehaviorPipeline.<Integer>steps()
+                .with(nested)
+                .compile();
+
+        // 3 個 RUN + 1 個頂層邊界
+        assertEquals(4, compiled.size());
+        assertEquals(6, compiled.apply(0, StepContext::getPayload).get().orElse(null));
+    }
+
+    @Test
+    @DisplayName("apply：遇到 invalid 即停止並回傳該 violations")
+    void shouldFailFast() {
+        AtomicInteger after = new AtomicInteger();
+        CompiledBehaviorPipeline<Integer> compiled = BehaviorPipeline.<Integer>steps()
+                .with(BehaviorStep.chain(List.of(plus(1), fail("E1"), plus(1))))
+                .with(sc -> {
+                    after.incrementAndGet();
+                    return Validation.valid(sc);
+                })
+                .compile();
+
+        Validation<Violations, Integer> result = compiled.apply(0, StepContext::getPayload);
+
+        assertTrue(result.isInvalid());
+        assertTrue(result.error().orElseThrow().namesAnyMatch("E1"::equals));
+        assertEquals(0, after.get());
+    }
+
+    @Test
+    @DisplayName("applyCorrectErrors：invalid 會略過該頂層 Step 的其餘指令，並繼續下一個 Step")
+    void shouldCorrectErrorsPerTopLevelStep() {
+        AtomicInteger skipped = new AtomicInteger();
+        AtomicInteger next = new AtomicInteger();
+        BehaviorPipeline<Integer> pipeline = BehaviorPipeline.<Integer>steps()
+                .with(BehaviorStep.chain(List.of(fail("E1"), sc -> {
+                    skipped.incrementAndGet();
+                    return Validation.valid(sc);
+                })))
+                .with(fail("E2"))
+                .with(sc -> {
+                    next.incrementAndGet();
+                    return Validation.valid(sc);
+                });
+
+        Validation<Violations, Integer> interpreted = pipeline.applyCorrectErrors(0, StepContext::getPayload);
+        Validation<Violations, Integer> compiled = pipeline.compile().applyCorrectErrors(0, StepContext::getPayload);
+
+        assertTrue(compiled.isInvalid());
+        assertEquals(interpreted.error().orElseThrow(), compiled.error().orElseThrow());
+        assertEquals(0, skipped.get());
+        assertEquals(2, next.get());
+    }
+
+    @Test
+    @DisplayName("aborted：頂層 Step 結束後判定，後續 Step 不執行")
+    void shouldStopWhenAborted() {
+        AtomicInteger after = new AtomicInteger();
+        CompiledBehaviorPipeline<Integer> compiled = BehaviorPipeline.<Integer>steps()
+                .with(BehaviorStep.chain(List.of(sc -> {
+                    sc.setAborted(true);
+                    return Validation.valid(sc);
+                }, plus(5))))
+                .with(sc -> {
+                    after.incrementAndGet();
+                    return Validation.valid(sc);
+                })
+                .compile();
+
+        assertEquals(5, compiled.apply(0, StepContext::getPayload).get().orElse(null));
+        assertEquals(0, after.get());
+    }
+
+    @Test
+    @DisplayName("compile：回傳快照，之後的 with(...) 不影響已編譯結果")
+    void shouldSnapshotSteps() {
+        BehaviorPipeline<Integer> pipeline = BehaviorPipeline.<Integer>steps().with(plus(1));
+        CompiledBehaviorPipeline<Integer> compiled = pipeline.compile();
+        pipeline.with(plus(100));
+
+        assertEquals(1, compiled.apply(0, StepContext::getPayload).get().orElse(null));
+    }
+
+    @Test
+    @DisplayName("compile：沿用 pipeline 的 metrics、AttributeBudget，並在結束時釋放 ArenaPayload")
+    void shouldCarryPipelineSettings() {
+        PipelineMetrics metrics = PipelineMetrics.create();
+        CompiledBehaviorPipeline<ArenaPayload> compiled = BehaviorPipeline.<ArenaPayload>steps()
+                .withMetrics(metrics)
+                .withAttributeBudget(AttributeBudget.builder().withMaxAttributeBytes(1_000L).build())
+                .with("check", BehaviorStep.<ArenaPayload>of(sc -> sc.getPayload().length() > 4
+                        ? Validation.valid(sc)
+                        : Validation.invalid(Violations.violate("SHORT", "too short"))))
+                .with("large", sc -> Validation.valid(sc.withAttribute("large", new byte[2_000])))
+                .compile();
+
+        PayloadArena arena = PayloadArena.create(1 << 20);
+        ArenaPayload valid = arena.copyOf(new byte[8]);
+        assertTrue(compiled.apply(valid, sc -> sc.getPayload().length()).error().orElseThrow()
+                .namesAnyMatch(AttributeBudget.STEP_CONTEXT_ATTRIBUTE_TOO_LARGE::equals));
+        assertEquals(0, valid.refCount());
+
+        ArenaPayload shortPayload = arena.copyOf(new byte[2]);
+        assertTrue(compiled.applyCorrectErrors(shortPayload, sc -> sc.getPayload().length()).isInvalid());
+        assertEquals(0, shortPayload.refCount());
+
+        StepStats.Snapshot check = metrics.snapshot().get("check");
+        assertEquals(2, check.count());
+        assertEquals(1, check.invalid());
+        assertEquals(2, metrics.snapshot().get("large").count());
+    }
+}
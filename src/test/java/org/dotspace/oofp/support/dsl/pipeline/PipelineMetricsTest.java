@@ -0,0 +1,162 @@
+package org.dotspace.oofp.support.dsl.pipeline;
+
+import org.dotspace.oofp.model.dto.behaviorstep.StepContext;
+import org.dotspace.oofp.model.dto.behaviorstep.Violations;
+import org.dotspace.oofp.utils.behaviorstep.StepLogger;
+import org.dotspace.oofp.utils.dsl.AsyncBehaviorStep;
+import org.dotspace.oofp.utils.dsl.BatchBehaviorStep;
+import org.dotspace.oofp.utils.dsl.BehaviorStep;
+import org.dotspace.oofp.enumeration.stepcontext.StepKind;
+import org.dotspace.oofp.utils.dsl.pipeline.BehaviorPipeline;
+import org.dotspace.oofp.utils.dsl.pipeline.PipelinePlan;
+import org.dotspace.oofp.utils.dsl.pipeline.metrics.LatencyHistogram;
+import org.dotspace.oofp.utils.dsl.pipeline.metrics.PipelineMetrics;
+import org.dotspace.oofp.utils.dsl.pipeline.metrics.StepStats;
+import org.dotspace.oofp.utils.functional.monad.Sequence;
+import org.dotspace.oofp.utils.functional.monad.validation.Validation;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PipelineMetricsTest {
+
+    @Test
+    @DisplayName("LatencyHistogram：百分位數落在實際值的分桶誤差內")
+    void shouldEstimatePercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 1000; i++) {
+            histogram.record(i * 1_000L);
+        }
+
+        assertEquals(1000, histogram.count());
+        assertEquals(1_000_000L, histogram.maxNanos());
+        assertEquals(500_500d, histogram.meanNanos(), 0.001);
+
+        long p50 = histogram.percentileNanos(50);
+        long p99 = histogram.percentileNanos(99);
+        assertTrue(p50 >= 500_000L && p50 <= 500_000L * 5 / 4, "p50=" + p50);
+        assertTrue(p99 >= 990_000L && p99 <= 1_000_000L, "p99=" + p99);
+    }
+
+    @Test
+    @DisplayName("withMetrics：依 step 名稱記錄 valid / invalid / aborted 與 violation 數")
+    void shouldRecordPerStepOutcomes() {
+        PipelineMetrics metrics = PipelineMetrics.create();
+        BehaviorStep<String> rejectEmpty = sc -> sc.getPayload().isEmpty()
+                ? Validation.invalid(Violations.violate("EMPTY", "empty")
+                        .join(Violations.violate("BLANK", "blank")))
+                : Validation.valid(sc);
+        BehaviorStep<String> abortOnStop = sc -> {
+            sc.setAborted("stop".equals(sc.getPayload()));
+            return Validation.valid(sc);
+        };
+
+        BehaviorPipeline<String> pipeline = BehaviorPipeline.<String>steps()
+                .withMetrics(metrics)
+                .with("reject-empty", rejectEmpty)
+                .with(StepLogger.tagAndLogOnError("abort-on-stop", abortOnStop, v -> { }))
+                .with(Validation::valid);
+
+        pipeline.apply("ok", StepContext::getPayload);
+        pipeline.apply("stop", StepContext::getPayload);
+        pipeline.applyCorrectErrors("", StepContext::getPayload);
+
+        Map<String, StepStats.Snapshot> snapshot = metrics.snapshot();
+
+        StepStats.Snapshot reject = snapshot.get("reject-empty");
+        assertEquals(3, reject.count());
+        assertEquals(2, reject.valid());
+        assertEquals(1, reject.invalid());
+        assertEquals(2, reject.violations());
+
+        StepStats.Snapshot abort = snapshot.get("abort-on-stop");
+        assertEquals(1, abort.aborted());
+        assertEquals(2, abort.valid());
+
+        assertEquals(2, snapshot.get("step[2]").count(), "aborted 之後的 step 不執行");
+    }
+
+    @Test
+    @DisplayName("withMetrics：applyAsync、applyAll 與 stream 也逐 Step 記錄")
+    void shouldRecordAsyncAndBatchModes() throws Exception {
+        PipelineMetrics metrics = PipelineMetrics.create();
+        AsyncBehaviorStep<String> lookup = sc -> CompletableFuture.supplyAsync(() -> Validation.valid(sc));
+        BatchBehaviorStep<String> bulkReject = BatchBehaviorStep.of(contexts -> contexts.stream()
+                .map(sc -> sc.getPayload().isEmpty()
+                        ? Validation.<Violations, StepContext<String>>invalid(Violations.violate("EMPTY", "empty"))
+                        : Validation.<Violations, StepContext<String>>valid(sc))
+                .toList());
+
+        BehaviorPipeline<String> pipeline = BehaviorPipeline.<String>steps()
+                .withMetrics(metrics)
+                .with("lookup", lookup.blocking())
+                .with("bulk-reject", bulkReject);
+
+        pipeline.applyAsync("a", StepContext::getPayload).get(5, TimeUnit.SECONDS);
+        pipeline.applyAll(List.of("b", ""), StepContext::getPayload);
+        pipeline.stream(Sequence.from(List.of("c")), StepContext::getPayload).stream().toList();
+
+        Map<String, StepStats.Snapshot> snapshot = metrics.snapshot();
+        assertEquals(4, snapshot.get("lookup").count());
+        StepStats.Snapshot bulk = snapshot.get("bulk-reject");
+        assertEquals(4, bulk.count());
+        assertEquals(1, bulk.invalid());
+    }
+
+    @Test
+    @DisplayName("explain：列出巢狀結構與成本，昂貴 Step 排在便宜守衛之前時提出建議")
+    void shouldExplainPlanWithCostEstimates() {
+        PipelineMetrics metrics = PipelineMetrics.create();
+        BehaviorStep<String> slowLookup = sc -> {
+            LockSupport.parkNanos(2_000_000L);
+            return Validation.valid(sc);
+        };
+        BehaviorStep<String> requireNonEmpty = BehaviorStep.<String>of(Validation::valid)
+                .requirePayload(payload -> !payload.isEmpty(), payload -> Violations.violate("EMPTY", "empty"));
+
+        BehaviorPipeline<String> pipeline = BehaviorPipeline.<String>steps()
+                .withMetrics(metrics)
+                .with("lookup", BehaviorStep.chain(List.of(slowLookup,
+                        BehaviorStep.when(sc -> true, Validation::valid))))
+                .with("non-empty", requireNonEmpty);
+
+        for (String input : List.of("a", "", "b", "")) {
+            pipeline.applyCorrectErrors(input, StepContext::getPayload);
+        }
+
+        PipelinePlan plan = pipeline.explain();
+
+        assertEquals(List.of(StepKind.CHAIN, StepKind.STEP, StepKind.GUARD, StepKind.STEP,
+                        StepKind.REQUIRE, StepKind.STEP),
+                plan.nodes().stream().map(PipelinePlan.Node::kind).toList());
+        assertEquals(List.of(0, 1, 1, 2, 0, 1),
+                plan.nodes().stream().map(PipelinePlan.Node::depth).toList());
+        assertEquals(0.5d, plan.nodes().get(4).cost().orElseThrow().passRate(), 1e-9);
+
+        assertEquals(1, plan.findings().size());
+        assertEquals("lookup", plan.findings().get(0).expensiveStep());
+        assertEquals("non-empty", plan.findings().get(0).guardStep());
+        assertTrue(plan.render().contains("! lookup"), plan.render());
+
+        assertTrue(BehaviorPipeline.<String>steps().with(slowLookup).explain().findings().isEmpty());
+
+        PipelineMetrics plainMetrics = PipelineMetrics.create();
+        BehaviorPipeline<String> plainCheck = BehaviorPipeline.<String>steps()
+                .withMetrics(plainMetrics)
+                .with("lookup", slowLookup)
+                .with("non-empty", sc -> sc.getPayload().isEmpty()
+                        ? Validation.invalid(Violations.violate("EMPTY", "empty"))
+                        : Validation.valid(sc));
+        for (String input : List.of("a", "")) {
+            plainCheck.applyCorrectErrors(input, StepContext::getPayload);
+        }
+        assertTrue(plainCheck.explain().findings().isEmpty(), "只有 when / requirePayload 視為守衛");
+    }
+}
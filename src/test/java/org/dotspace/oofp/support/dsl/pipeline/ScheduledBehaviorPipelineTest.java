@@ -0,0 +1,164 @@
+package org.dotspace.oofp.support.dsl.pipeline;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+
+import org.dotspace.oofp.model.dto.behaviorstep.AttributeBudget;
+import org.dotspace.oofp.model.dto.behaviorstep.StepContext;
+import org.dotspace.oofp.model.dto.behaviorstep.Violations;
+import org.dotspace.oofp.model.dto.eip.ControlDecision;
+import org.dotspace.oofp.model.dto.eip.MessageStatus;
+import org.dotspace.oofp.utils.arena.ArenaPayload;
+import org.dotspace.oofp.utils.arena.PayloadArena;
+import org.dotspace.oofp.utils.dsl.BehaviorStep;
+import org.dotspace.oofp.utils.dsl.pipeline.BehaviorPipeline;
+import org.dotspace.oofp.utils.dsl.pipeline.ScheduledBehaviorPipeline;
+import org.dotspace.oofp.utils.dsl.pipeline.metrics.PipelineMetrics;
+import org.dotspace.oofp.utils.eip.AttrKey;
+import org.dotspace.oofp.utils.eip.StatusObserver;
+import org.dotspace.oofp.utils.eip.step.AccessGateSteps;
+import org.dotspace.oofp.utils.eip.step.AuthBindingSteps;
+import org.dotspace.oofp.utils.eip.step.InboundExtractionBindingSteps;
+import org.dotspace.oofp.utils.eip.step.StatusObservationSteps;
+import org.dotspace.oofp.utils.functional.monad.validation.Validation;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScheduledBehaviorPipelineTest {
+
+    private static final AttrKey<String> A = AttrKey.of("a", new TypeReference<>() {});
+    private static final AttrKey<String> B = AttrKey.of("b", new TypeReference<>() {});
+    private static final AttrKey<String> C = AttrKey.of("c", new TypeReference<>() {});
+
+    private static BehaviorStep<String> write(AttrKey<String> key, String value) {
+        return sc -> Validation.valid(sc.withAttribute(key, value));
+    }
+
+    @Test
+    @DisplayName("schedule：互不相依者同階段平行執行，相依者與未宣告者排在之後")
+    void shouldRunIndependentStepsConcurrently() {
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        BehaviorStep<String> awaitPeer = sc -> {
+            bothStarted.countDown();
+            try {
+                assertTrue(bothStarted.await(5, TimeUnit.SECONDS), "a 與 b 應同時執行");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return Validation.valid(sc);
+        };
+        BehaviorStep<String> combine = sc -> Validation.valid(sc.withAttribute(C,
+                A.getOrElse(sc, "?") + B.getOrElse(sc, "?")));
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            ScheduledBehaviorPipeline<String> scheduled = BehaviorPipeline.<String>steps()
+                    .with("a", awaitPeer.andThenStep(write(A, "x")).declare(Set.of(), Set.of(A)))
+                    .with("b", awaitPeer.andThenStep(write(B, "y")).declare(Set.of(), Set.of(B)))
+                    .with("c", combine.declare(Set.of(A, B), Set.of(C)))
+                    .with("undeclared", Validation::valid)
+                    .with("a-again", write(A, "z").declare(Set.of(), Set.of(A)))
+                    .schedule(executor);
+
+            assertEquals(List.of(List.of("a", "b"), List.of("c"), List.of("undeclared"), List.of("a-again")),
+                    scheduled.stages());
+
+            Map<String, String> result = scheduled.apply("in",
+                    sc -> Map.of("a", A.getOrElse(sc, ""), "c", C.getOrElse(sc, "")))
+                    .get()
+                    .orElseThrow();
+            assertEquals(Map.of("a", "z", "c", "xy"), result);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("schedule：同階段 invalid 時，fail-fast 回傳其 violations，correct-errors 繼續累積")
+    void shouldAccumulateViolationsWithinStage() {
+        BehaviorStep<String> reject = sc -> Validation.invalid(Violations.violate("E1", "rejected"));
+
+        ScheduledBehaviorPipeline<String> scheduled = BehaviorPipeline.<String>steps()
+                .with(write(A, "x").declare(Set.of(), Set.of(A)))
+                .with(reject.declare(Set.of(), Set.of(B)))
+                .with(sc -> Validation.valid(sc.transit(A.getOrElse(sc, "?"))))
+                .schedule();
+
+        assertTrue(scheduled.apply("in", StepContext::getPayload).error().orElseThrow()
+                .namesAnyMatch("E1"::equals));
+
+        Violations corrected = scheduled.applyCorrectErrors("in", StepContext::getPayload).error().orElseThrow();
+        assertTrue(corrected.namesAnyMatch("E1"::equals));
+    }
+
+    @Test
+    @DisplayName("StatefulGate 常見 Steps：auth、status、query 同一階段，gate 與 decide 在其後")
+    void shouldScheduleInboundSteps() {
+        ScheduledBehaviorPipeline<String> scheduled = BehaviorPipeline.<String>steps()
+                .with("auth", AuthBindingSteps.bindAuthContext(AuthBindingSteps.AuthCondition.optional(),
+                        () -> Validation.invalid(Violations.violate("none", "none")), auth -> null))
+                .with("status", StatusObservationSteps.observeStatus(scope -> new StatusObserver.Observation(
+                        MessageStatus.unknown("test", Instant.now()), List.of())))
+                .with("query", InboundExtractionBindingSteps.<String>bindQuerySpec(
+                        view -> Validation.invalid(Violations.violate("none", "none"))))
+                .with("gate", AccessGateSteps.requireAnyAuthority(Set.of("ADMIN")))
+                .with("decide", InboundExtractionBindingSteps.decide(view -> new ControlDecision.Ack()))
+                .schedule();
+
+        assertEquals(List.of(List.of("auth", "status", "query"), List.of("gate", "decide")), scheduled.stages());
+    }
+
+    @Test
+    @DisplayName("schedule：替換 payload 的 Step 需宣告 writesPayload，否則同階段執行時丟出例外")
+    void shouldTreatPayloadWritesAsConflicts() {
+        BehaviorStep<String> upper = sc -> Validation.valid(sc.transit(sc.getPayload().toUpperCase()));
+
+        ScheduledBehaviorPipeline<String> declared = BehaviorPipeline.<String>steps()
+                .with("a", write(A, "x").declare(Set.of(), Set.of(A)))
+                .with("upper", upper.declare(Set.of(), Set.of(), true))
+                .with("b", write(B, "y").declare(Set.of(), Set.of(B)))
+                .schedule();
+        assertEquals(List.of(List.of("a"), List.of("upper"), List.of("b")), declared.stages());
+        assertEquals("IN", declared.apply("in", StepContext::getPayload).get().orElse(null));
+
+        ScheduledBehaviorPipeline<String> undeclared = BehaviorPipeline.<String>steps()
+                .with("a", write(A, "x").declare(Set.of(), Set.of(A)))
+                .with("upper", upper.declare(Set.of(), Set.of()))
+                .schedule();
+        assertThrows(IllegalStateException.class, () -> undeclared.apply("in", StepContext::getPayload));
+    }
+
+    @Test
+    @DisplayName("schedule：沿用 pipeline 的 metrics 與 AttributeBudget，並在結束時釋放 ArenaPayload")
+    void shouldCarryPipelineSettings() {
+        PipelineMetrics metrics = PipelineMetrics.create();
+        ScheduledBehaviorPipeline<ArenaPayload> scheduled = BehaviorPipeline.<ArenaPayload>steps()
+                .withMetrics(metrics)
+                .withAttributeBudget(AttributeBudget.builder().withMaxAttributeBytes(1_000L).build())
+                .with("small", BehaviorStep.<ArenaPayload>of(sc -> Validation.valid(sc.withAttribute("small", "s")))
+                        .declare(Set.of(), Set.of(A)))
+                .with("large", BehaviorStep.<ArenaPayload>of(
+                                sc -> Validation.valid(sc.withAttribute("large", new byte[2_000])))
+                        .declare(Set.of(), Set.of(B)))
+                .schedule(Runnable::run);
+
+        ArenaPayload payload = PayloadArena.create(1 << 20).copyOf(new byte[8]);
+        Validation<Violations, Integer> result = scheduled.apply(payload, sc -> sc.getPayload().length());
+
+        assertTrue(result.error().orElseThrow()
+                .namesAnyMatch(AttributeBudget.STEP_CONTEXT_ATTRIBUTE_TOO_LARGE::equals));
+        assertEquals(0, payload.refCount());
+        assertEquals(1, metrics.snapshot().get("small").count());
+        assertEquals(1, metrics.snapshot().get("large").count());
+    }
+}
@@ -0,0 +1,107 @@
+package org.dotspace.oofp.support.dsl.pipeline;
+
+import org.dotspace.oofp.model.dto.behaviorstep.StepContext;
+import org.dotspace.oofp.utils.arena.ArenaPayload;
+import org.dotspace.oofp.utils.arena.PayloadArena;
+import org.dotspace.oofp.utils.dsl.pipeline.BehaviorPipeline;
+import org.dotspace.oofp.utils.dsl.pipeline.ShadowBehaviorPipeline;
+import org.dotspace.oofp.utils.dsl.pipeline.metrics.ShadowStats;
+import org.dotspace.oofp.utils.functional.monad.validation.Validation;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShadowBehaviorPipelineTest {
+
+    private static BehaviorPipeline<Integer> doubling() {
+        return BehaviorPipeline.<Integer>steps()
+                .with(sc -> Validation.valid(sc.transit(sc.getPayload() * 2)));
+    }
+
+    @Test
+    @DisplayName("shadow：回應來自主流程，候選結果一致與否記錄在 stats")
+    void shouldCompareCandidateWithoutAffectingResponse() {
+        BehaviorPipeline<Integer> candidate = BehaviorPipeline.<Integer>steps()
+                .with(sc -> Validation.valid(sc.transit(sc.getPayload() == 3 ? -1 : sc.getPayload() * 2)));
+
+        ShadowBehaviorPipeline<Integer> shadow = doubling().shadow(candidate, 1d,
+                ShadowBehaviorPipeline.Equivalence.sameOutcome(), Runnable::run);
+
+        for (int i = 1; i <= 4; i++) {
+            assertEquals(i * 2, shadow.apply(i, StepContext::getPayload).get().orElse(null));
+        }
+
+        ShadowStats.Snapshot snapshot = shadow.getStats().snapshot();
+        assertEquals(3, snapshot.matched());
+        assertEquals(1, snapshot.mismatched());
+        assertEquals(0.75d, snapshot.matchRate(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("shadow：未抽樣不執行候選；executor 滿載記為 dropped；候選例外記為 failed")
+    void shouldCountSkippedDroppedAndFailed() {
+        AtomicInteger candidateRuns = new AtomicInteger();
+        BehaviorPipeline<Integer> counting = BehaviorPipeline.<Integer>steps()
+                .with(sc -> {
+                    candidateRuns.incrementAndGet();
+                    return Validation.valid(sc);
+                });
+        doubling().shadow(counting, 0d, ShadowBehaviorPipeline.Equivalence.sameOutcome(), Runnable::run)
+                .apply(1, StepContext::getPayload);
+        assertEquals(0, candidateRuns.get());
+
+        ShadowBehaviorPipeline<Integer> rejected = doubling().shadow(counting, 1d,
+                ShadowBehaviorPipeline.Equivalence.sameOutcome(), runnable -> {
+                    throw new RejectedExecutionException("full");
+                });
+        assertEquals(2, rejected.applyCorrectErrors(1, StepContext::getPayload).get().orElse(null));
+        assertEquals(1, rejected.getStats().snapshot().dropped());
+
+        BehaviorPipeline<Integer> throwing = BehaviorPipeline.<Integer>steps()
+                .with(sc -> {
+                    throw new IllegalStateException("boom");
+                });
+        ShadowBehaviorPipeline<Integer> failing = doubling().shadow(throwing, 1d,
+                ShadowBehaviorPipeline.Equivalence.sameOutcome(), Runnable::run);
+        assertEquals(2, failing.apply(1, StepContext::getPayload).get().orElse(null));
+        assertEquals(1, failing.getStats().snapshot().failed());
+    }
+
+    @Test
+    @DisplayName("shadow：resultApplier 在 ArenaPayload 釋放前執行；executor 滿載或主流程例外時不殘留參考")
+    void shouldApplyResultBeforeReleasingArenaPayload() {
+        PayloadArena arena = PayloadArena.create(1 << 20);
+        BehaviorPipeline<ArenaPayload> identity = BehaviorPipeline.<ArenaPayload>steps()
+                .with(Validation::valid);
+
+        ShadowBehaviorPipeline<ArenaPayload> rejected = identity.shadow(identity, 1d,
+                ShadowBehaviorPipeline.Equivalence.sameOutcome(), runnable -> {
+                    throw new RejectedExecutionException("full");
+                });
+        ArenaPayload dropped = arena.copyOf(new byte[8]);
+        assertEquals(8, rejected.apply(dropped, sc -> sc.getPayload().length()).get().orElse(null));
+        assertEquals(0, dropped.refCount());
+
+        ShadowBehaviorPipeline<ArenaPayload> compared = identity.shadow(identity, 1d,
+                ShadowBehaviorPipeline.Equivalence.sameOutcome(), Runnable::run);
+        ArenaPayload shadowed = arena.copyOf(new byte[4]);
+        assertEquals(4, compared.applyCorrectErrors(shadowed, sc -> sc.getPayload().length())
+                .get().orElse(null));
+        assertEquals(0, shadowed.refCount());
+        assertEquals(1, compared.getStats().snapshot().matched());
+
+        BehaviorPipeline<ArenaPayload> throwing = BehaviorPipeline.<ArenaPayload>steps()
+                .with(sc -> {
+                    throw new IllegalStateException("boom");
+                });
+        ArenaPayload failed = arena.copyOf(new byte[2]);
+        assertThrows(IllegalStateException.class, () -> throwing.shadow(identity, 1d,
+                        ShadowBehaviorPipeline.Equivalence.sameOutcome(), Runnable::run)
+                .apply(failed, sc -> sc.getPayload().length()));
+        assertEquals(0, failed.refCount());
+    }
+}
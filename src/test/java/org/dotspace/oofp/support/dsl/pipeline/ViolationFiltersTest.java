@@ -1,5 +1,6 @@
 package org.dotspace.oofp.support.dsl.pipeline;
 
+import org.dotspace.oofp.enumeration.stepcontext.ViolationSeverity;
 import org.dotspace.oofp.model.dto.behaviorstep.Violations;
 import org.dotspace.oofp.model.dto.behaviorstep.GeneralViolation;
 import org.dotspace.oofp.utils.dsl.pipeline.ViolationFilters;
@@ -8,6 +9,7 @@ import org.dotspace.oofp.utils.builder.operation.WriteOperations;
 import org.junit.jupiter.api.Test;
 
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -98,6 +100,51 @@ class ViolationFiltersTest {
         return Violations.from(List.of(warningViolation, normalViolation));
     }
 
+    @Test
+    void allOf_fusesFiltersIntoSinglePass() {
+        // Given
+        Violations violations = Violations.from(List.of(
+                createViolationWithSeverity(true, false),
+                createViolationWithSeverity(true, true),
+                createViolationWithSeverity(false, false)));
+        AtomicInteger custom = new AtomicInteger();
+
+        // When
+        Function<Violations, Violations> filter = ViolationFilters.allOf(List.of(
+                ViolationFilters.onlySevere(),
+                ViolationFilters.ignoreWarnings(),
+                ViolationFilters.matching(v -> custom.incrementAndGet() > 0)));
+        Violations result = filter.apply(violations);
+
+        // Then
+        assertEquals(1, result.stream().count());
+        assertTrue(result.stream().allMatch(v -> v.isSevere() && !v.isWarning()));
+        assertEquals(1, custom.get(), "後段條件只對通過前段者求值");
+        assertEquals(result, ViolationFilters.onlySevere().andThen(ViolationFilters.ignoreWarnings())
+                .apply(violations));
+    }
+
+    @Test
+    void filter_keepsSeverityCounts() {
+        // Given
+        GeneralViolation fatal = createViolationWithSeverity(false, false);
+        fatal.setSeverity(ViolationSeverity.FATAL);
+        GeneralViolation warning = createViolationWithSeverity(false, true);
+        warning.setSeverity(ViolationSeverity.WARNING);
+        Violations violations = Violations.from(List.of(fatal, warning))
+                .join(Violations.violate("other", "message"));
+
+        // When
+        Violations result = ViolationFilters.ignoreWarnings().apply(violations);
+
+        // Then
+        assertEquals(1, violations.countOf(ViolationSeverity.FATAL));
+        assertEquals(2, violations.countAtLeast(ViolationSeverity.FATAL));
+        assertEquals(0, result.countOf(ViolationSeverity.WARNING));
+        assertEquals(1, result.countOf(ViolationSeverity.FATAL));
+        assertEquals(1, result.countOf(ViolationSeverity.UNSPECIFIED));
+    }
+
     private GeneralViolation createViolationWithSeverity(boolean severe, boolean warning) {
         GeneralViolation violation = GeneralBuilders.supply(GeneralViolation::new)
                 .with(WriteOperations.set(GeneralViolation::setValidationName, "test"))
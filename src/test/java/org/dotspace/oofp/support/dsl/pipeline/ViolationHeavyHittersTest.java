@@ -0,0 +1,91 @@
+package org.dotspace.oofp.support.dsl.pipeline;
+
+import org.dotspace.oofp.enumeration.stepcontext.ViolationSeverity;
+import org.dotspace.oofp.model.dto.behaviorstep.StepContext;
+import org.dotspace.oofp.model.dto.behaviorstep.Violations;
+import org.dotspace.oofp.utils.behaviorstep.StepLogger;
+import org.dotspace.oofp.utils.dsl.BehaviorStep;
+import org.dotspace.oofp.utils.dsl.pipeline.BehaviorPipeline;
+import org.dotspace.oofp.utils.dsl.pipeline.metrics.ViolationHeavyHitters;
+import org.dotspace.oofp.utils.functional.monad.validation.Validation;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ViolationHeavyHittersTest {
+
+    @Test
+    @DisplayName("heavy hitters：依次數排出前 K 名，時間窗外的計數不再列入")
+    void shouldRankWithinRollingWindow() {
+        AtomicLong clock = new AtomicLong();
+        ViolationHeavyHitters hitters = ViolationHeavyHitters.create(3, Duration.ofSeconds(1), 4, 1 << 10, 2,
+                clock::get);
+
+        ViolationHeavyHitters.Key hot = new ViolationHeavyHitters.Key("hot", "validate", ViolationSeverity.ERROR);
+        ViolationHeavyHitters.Key warm = new ViolationHeavyHitters.Key("warm", "validate", ViolationSeverity.ERROR);
+        for (int i = 0; i < 100; i++) {
+            hitters.record(hot);
+            hitters.record(new ViolationHeavyHitters.Key("cold-" + i, "validate", ViolationSeverity.INFO));
+            if (i % 2 == 0) {
+                hitters.record(warm);
+            }
+        }
+
+        assertEquals(List.of(new ViolationHeavyHitters.Entry(hot, 100), new ViolationHeavyHitters.Entry(warm, 50)),
+                hitters.topK());
+
+        clock.addAndGet(Duration.ofSeconds(2).toNanos());
+        hitters.record(warm);
+        assertEquals(100, hitters.estimate(hot));
+
+        clock.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertEquals(0, hitters.estimate(hot));
+        assertEquals(List.of(new ViolationHeavyHitters.Entry(warm, 1)), hitters.topK());
+    }
+
+    @Test
+    @DisplayName("heavy hitters：BehaviorPipeline.withViolationStats 以 Step 名稱記錄 violations")
+    void shouldRecordFromPipeline() {
+        ViolationHeavyHitters hitters = ViolationHeavyHitters.create(2, Duration.ofMinutes(1), 4, 1 << 8, 5);
+        BehaviorPipeline<Integer> pipeline = BehaviorPipeline.<Integer>steps()
+                .withViolationStats(hitters)
+                .with("positive", sc -> sc.getPayload() > 0
+                        ? Validation.valid(sc)
+                        : Validation.invalid(Violations.violate("NOT_POSITIVE", "not positive")));
+
+        for (int i = -3; i <= 3; i++) {
+            pipeline.applyCorrectErrors(i, StepContext::getPayload);
+        }
+
+        assertEquals(4, hitters.estimate(
+                new ViolationHeavyHitters.Key("NOT_POSITIVE", "positive", ViolationSeverity.UNSPECIFIED)));
+        assertEquals(1, hitters.topK().size());
+    }
+
+    @Test
+    @DisplayName("heavy hitters：StepLogger 只在指定 violationStats 時記錄，與 withViolationStats 並用不重複計數")
+    void shouldRecordTaggedFailuresOnce() {
+        ViolationHeavyHitters hitters = ViolationHeavyHitters.create(2, Duration.ofMinutes(1), 4, 1 << 8, 5);
+        BehaviorStep<Integer> positive = sc -> sc.getPayload() > 0
+                ? Validation.valid(sc)
+                : Validation.invalid(Violations.violate("NOT_POSITIVE", "not positive"));
+        ViolationHeavyHitters.Key key =
+                new ViolationHeavyHitters.Key("NOT_POSITIVE", "positive", ViolationSeverity.UNSPECIFIED);
+
+        BehaviorPipeline.<Integer>steps()
+                .withViolationStats(hitters)
+                .with(StepLogger.tagAndLogOnError("positive", positive, violations -> { }))
+                .apply(-1, StepContext::getPayload);
+        assertEquals(1, hitters.estimate(key));
+
+        BehaviorPipeline.<Integer>steps()
+                .with(StepLogger.tagAndLogOnError("positive", positive, violations -> { }, hitters))
+                .apply(-1, StepContext::getPayload);
+        assertEquals(2, hitters.estimate(key));
+    }
+}
@@ -0,0 +1,69 @@
+package org.dotspace.oofp.support.jfr;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.dotspace.oofp.enumeration.eip.CoreRouteKey;
+import org.dotspace.oofp.model.dto.behaviorstep.StepContext;
+import org.dotspace.oofp.model.dto.behaviorstep.Violations;
+import org.dotspace.oofp.utils.dsl.BehaviorStep;
+import org.dotspace.oofp.utils.dsl.pipeline.BehaviorPipeline;
+import org.dotspace.oofp.utils.eip.SelectorOps;
+import org.dotspace.oofp.utils.eip.routekey.CoreRoute;
+import org.dotspace.oofp.utils.functional.monad.validation.Validation;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlightEventsTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("JFR：記錄 step 執行與路由選擇的名稱、結果與 violation 數")
+    void shouldEmitStepAndRouteEvents() throws Exception {
+        BehaviorStep<String> reject = sc -> Validation.invalid(Violations.violate("E1", "rejected"));
+        BehaviorStep<String> routed = SelectorOps.select(
+                sc -> new CoreRoute(CoreRouteKey.CACHE), key -> Validation::valid);
+
+        Path dump = tempDir.resolve("events.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("org.dotspace.oofp.StepExecution").withThreshold(Duration.ZERO);
+            recording.enable("org.dotspace.oofp.RouteSelection").withThreshold(Duration.ZERO);
+            recording.start();
+
+            BehaviorPipeline.<String>steps()
+                    .with("route", routed)
+                    .with("reject", reject)
+                    .apply("in", StepContext::getPayload);
+
+            recording.stop();
+            recording.dump(dump);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(dump);
+
+        RecordedEvent rejected = events.stream()
+                .filter(e -> e.getEventType().getName().equals("org.dotspace.oofp.StepExecution"))
+                .filter(e -> "reject".equals(e.getString("stepName")))
+                .findFirst()
+                .orElseThrow();
+        assertEquals("INVALID", rejected.getString("outcome"));
+        assertEquals(1, rejected.getInt("violationCount"));
+
+        RecordedEvent route = events.stream()
+                .filter(e -> e.getEventType().getName().equals("org.dotspace.oofp.RouteSelection"))
+                .findFirst()
+                .orElseThrow();
+        assertTrue(route.getString("routeKey").contains("CACHE"));
+        assertEquals("VALID", route.getString("outcome"));
+    }
+}
@@ -248,4 +248,41 @@ class GeneralViolationTest {
         assertNotNull(result);
         assertTrue(result.contains("GeneralViolation"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testOptionsViewMatchesTypedFields() {
+        violation.setSeverity(ViolationSeverity.FATAL);
+        violation.getOptions().put(GeneralViolation.WARNING, true);
+        violation.getOptions().put("source", "jsr303");
+
+        assertEquals(Map.of(GeneralViolation.SEVERITY, ViolationSeverity.FATAL,
+                GeneralViolation.WARNING, true, "source", "jsr303"), violation.getOptions());
+        assertTrue(violation.isWarning());
+        assertFalse(violation.getOptions().containsKey(GeneralViolation.SEVERE));
+
+        violation.getOptions().put(GeneralViolation.SEVERE, false);
+        assertFalse(violation.isSevere());
+        assertEquals(4, violation.getOptions().size());
+
+        violation.getOptions().entrySet().removeIf(e -> e.getKey().equals(GeneralViolation.SEVERITY));
+        assertEquals(ViolationSeverity.UNSPECIFIED, violation.getSeverity());
+
+        violation.getOptions().put(GeneralViolation.WARNING, "yes");
+        assertFalse(violation.isWarning());
+        assertEquals("yes", violation.getOptions().get(GeneralViolation.WARNING));
+    }
+
+    @Test
+    void testEqualsDistinguishesUnsetAndFalseOptions() {
+        GeneralViolation unset = new GeneralViolation();
+        GeneralViolation explicitFalse = new GeneralViolation();
+        explicitFalse.setSevere(false);
+
+        assertNotEquals(unset, explicitFalse);
+
+        unset.getOptions().put(GeneralViolation.SEVERE, false);
+        assertEquals(unset, explicitFalse);
+        assertEquals(unset.hashCode(), explicitFalse.hashCode());
+        assertEquals(unset.getOptions().hashCode(), Map.of(GeneralViolation.SEVERE, false).hashCode());
+    }
+}
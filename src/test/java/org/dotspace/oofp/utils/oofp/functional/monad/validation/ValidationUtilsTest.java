@@ -1,5 +1,6 @@
 package org.dotspace.oofp.utils.oofp.functional.monad.validation;
 
+import org.dotspace.oofp.model.dto.behaviorstep.Violations;
 import org.dotspace.oofp.utils.dsl.Joinable;
 import org.dotspace.oofp.utils.functional.monad.validation.Validation;
 import org.dotspace.oofp.utils.functional.monad.validation.ValidationUtils;
@@ -10,6 +11,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -81,6 +83,20 @@ class ValidationUtilsTest {
         assertEquals("error1, error2", result.error().orElse(null).getMessage());
     }
 
+    @Test
+    void mergeAll_withCollector_violationsAccumulatedWithoutDuplicates() {
+        @SuppressWarnings("unchecked")
+        Validation<Violations, Integer>[] validations = IntStream.range(0, 200)
+                .mapToObj(i -> Validation.<Violations, Integer>invalid(
+                        Violations.violate("name-" + (i % 150), "message")))
+                .toArray(Validation[]::new);
+
+        Validation<Violations, List<Integer>> result = ValidationUtils.mergeAll(Collectors.toList(), validations);
+
+        assertTrue(result.isInvalid());
+        assertEquals(150, result.error().orElseThrow().getViolationCollection().size());
+    }
+
     @Test
     void mergeAll_withMap_allValid() {
         Map<String, Validation<TestError, ?>> validations = new HashMap<>();